@@ -0,0 +1,172 @@
+package org.example.beer.order.service.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Builds the executors behind {@code @Async}, {@code @Scheduled} and the JMS listener containers so they all follow
+ * the same mode: bounded platform thread pools with a queue limit and a rejection policy, or, when virtual threads
+ * are asked for, a new virtual thread per task. Asking for virtual threads on a JDK without them (before 21) fails at
+ * startup. Every executor reports {@code beer.order.executor.active} and {@code .rejected} tagged with its name, and
+ * pools, which have a queue, {@code .queued} as well.
+ */
+public class ExecutorFactory {
+
+    public enum RejectionPolicy {
+        ABORT, CALLER_RUNS;
+
+        public static RejectionPolicy of(String name) {
+            return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final boolean virtualThreads;
+
+    public ExecutorFactory(MeterRegistry meterRegistry, boolean virtualThreads) {
+        if (virtualThreads && !virtualThreadsSupported()) {
+            throw new IllegalStateException("sfg.beer-order.executor.virtual-threads=true needs Java 21 or later, "
+                    + "running on Java " + System.getProperty("java.version"));
+        }
+        this.meterRegistry = meterRegistry;
+        this.virtualThreads = virtualThreads;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * A pool of at most {@code maxSize} threads in front of a queue of {@code queueCapacity} tasks (0 hands tasks
+     * straight to a thread), or one virtual thread per task, whose count is unbounded.
+     */
+    public AsyncTaskExecutor taskExecutor(String name, int coreSize, int maxSize, int queueCapacity,
+                                          RejectionPolicy rejectionPolicy) {
+        Counter rejected = rejectedCounter(name);
+
+        if (virtualThreads) {
+            AtomicInteger active = new AtomicInteger();
+            TaskExecutorAdapter executor = new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor(name));
+            executor.setTaskDecorator(task -> () -> {
+                active.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    active.decrementAndGet();
+                }
+            });
+            registerActiveGauge(name, active::get);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(countingHandler(rejectionPolicy, rejected));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        registerActiveGauge(name, executor::getActiveCount);
+        registerQueuedGauge(name, () -> executor.getThreadPoolExecutor().getQueue().size());
+        return executor;
+    }
+
+    public ThreadPoolTaskScheduler taskScheduler(String name, int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(name + "-");
+        if (virtualThreads) {
+            scheduler.setThreadFactory(virtualThreadFactory(name));
+        }
+        scheduler.setRejectedExecutionHandler(countingHandler(RejectionPolicy.ABORT, rejectedCounter(name)));
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        scheduler.initialize();
+        registerActiveGauge(name, scheduler::getActiveCount);
+        registerQueuedGauge(name, () -> scheduler.getScheduledThreadPoolExecutor().getQueue().size());
+        return scheduler;
+    }
+
+    private void registerActiveGauge(String name, IntSupplier active) {
+        Gauge.builder("beer.order.executor.active", active, IntSupplier::getAsInt)
+                .description("Tasks currently running")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    private void registerQueuedGauge(String name, IntSupplier queued) {
+        Gauge.builder("beer.order.executor.queued", queued, IntSupplier::getAsInt)
+                .description("Tasks waiting for a thread")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    private Counter rejectedCounter(String name) {
+        return Counter.builder("beer.order.executor.rejected")
+                .description("Tasks turned away because the pool and its queue were full")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    private static RejectedExecutionHandler countingHandler(RejectionPolicy policy, Counter rejected) {
+        RejectedExecutionHandler delegate = policy == RejectionPolicy.CALLER_RUNS
+                ? new ThreadPoolExecutor.CallerRunsPolicy() : new ThreadPoolExecutor.AbortPolicy();
+
+        return (task, executor) -> {
+            rejected.increment();
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+
+    private static boolean virtualThreadsSupported() {
+        try {
+            virtualThreadFactory("probe").newThread(() -> { });
+            return true;
+        } catch (RuntimeException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * {@code Executors.newThreadPerTaskExecutor(virtualThreadFactory(name))}, looked up reflectively as the build
+     * targets Java 11.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, virtualThreadFactory(name));
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads are not available", e);
+        }
+    }
+
+    /**
+     * {@code Thread.ofVirtual().name(name + "-", 0).factory()}, looked up reflectively for the same reason.
+     */
+    static ThreadFactory virtualThreadFactory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads are not available", e);
+        }
+    }
+}
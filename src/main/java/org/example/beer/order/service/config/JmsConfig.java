@@ -10,11 +10,20 @@
 package org.example.beer.order.service.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.example.brewery.model.events.AllocateOrderRequest;
+import org.example.brewery.model.events.AllocateOrderResult;
+import org.example.brewery.model.events.AllocationFailureEvent;
+import org.example.brewery.model.events.DeallocateOrderRequest;
+import org.example.brewery.model.events.InventoryRestockedEvent;
+import org.example.brewery.model.events.ValidateOrderRequest;
+import org.example.brewery.model.events.ValidateOrderResult;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jms.support.converter.MappingJackson2MessageConverter;
-import org.springframework.jms.support.converter.MessageConverter;
-import org.springframework.jms.support.converter.MessageType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
 
 /**
  * JmsConfig
@@ -30,14 +39,36 @@ public class JmsConfig {
   public static final String ALLOCATE_ORDER_RESPONSE_QUEUE = "allocate-order-response";
   public static final String ALLOCATION_FAILURE_QUEUE = "aallocation-failure";
   public static final String DEALLOCATE_ORDER_QUEUE = "deallocate-order";
+  public static final String INVENTORY_RESTOCKED_QUEUE = "inventory-restocked";
+  public static final String DEAD_LETTER_QUEUE = "DLQ";
+  public static final String TYPE_ID_PROPERTY = "_type";
+  public static final String CONTENT_TYPE_PROPERTY = "_contentType";
+
+  /**
+   * The aliases sent in {@link #TYPE_ID_PROPERTY} when {@code sfg.beer-order.jms.type-aliases} is on. Aliases are
+   * part of the wire format: add new ones, never rename them.
+   */
+  public static final Map<String, Class<?>> MESSAGE_TYPES = Map.of(
+      "ValidateOrderRequest", ValidateOrderRequest.class,
+      "ValidateOrderResult", ValidateOrderResult.class,
+      "AllocateOrderRequest", AllocateOrderRequest.class,
+      "AllocateOrderResult", AllocateOrderResult.class,
+      "AllocationFailure", AllocationFailureEvent.class,
+      "DeallocateOrderRequest", DeallocateOrderRequest.class,
+      "InventoryRestocked", InventoryRestockedEvent.class);
 
-    @Bean
-  public MessageConverter jacksonJmsMessageConverter(ObjectMapper objectMapper){
-    MappingJackson2MessageConverter converter= new MappingJackson2MessageConverter();
-    converter.setTargetType(MessageType.TEXT);
-    converter.setTypeIdPropertyName("_type");
-    converter.setObjectMapper(objectMapper);
-    return converter;
+  /**
+   * JSON with class names by default, which is what consumers on the previous converter read. Roll out readers
+   * first, then switch producers to {@code smile} and aliases.
+   */
+  @Bean
+  public NegotiatingMessageConverter jacksonJmsMessageConverter(ObjectMapper objectMapper,
+      Jackson2ObjectMapperBuilder objectMapperBuilder,
+      @Value("${sfg.beer-order.jms.encoding:json}") String encoding,
+      @Value("${sfg.beer-order.jms.type-aliases:false}") boolean typeAliases){
+    ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+    return new NegotiatingMessageConverter(objectMapper, smileMapper, NegotiatingMessageConverter.Encoding.of(encoding),
+        typeAliases, MESSAGE_TYPES);
   }
 
 }
@@ -0,0 +1,177 @@
+package org.example.beer.order.service.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the saga's JMS messages as JSON text messages or as Smile (binary JSON) bytes messages, and reads either
+ * back by the {@link JmsConfig#CONTENT_TYPE_PROPERTY} header, so consumers follow whatever the producer chose.
+ * Messages without the header are JSON, as sent by {@code MappingJackson2MessageConverter}.
+ * <p>
+ * {@link JmsConfig#TYPE_ID_PROPERTY} carries a short alias for the payload class, or its class name for consumers
+ * that predate aliases. Both are accepted on the way in, but only for the registered message types.
+ */
+public class NegotiatingMessageConverter implements MessageConverter {
+
+    public enum Encoding {
+        JSON("application/json"), SMILE("application/x-jackson-smile");
+
+        private final String contentType;
+
+        Encoding(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Encoding of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+
+        static Encoding forContentType(String contentType) {
+            if (contentType == null) {
+                return JSON;
+            }
+            for (Encoding encoding : values()) {
+                if (encoding.contentType.equals(contentType)) {
+                    return encoding;
+                }
+            }
+            throw new MessageConversionException("Unsupported JMS content type|ContentType:" + contentType);
+        }
+    }
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final Encoding encoding;
+    private final boolean typeAliases;
+    private final Map<String, Class<?>> typesById = new HashMap<>();
+    private final Map<Class<?>, String> aliasesByType = new HashMap<>();
+
+    public NegotiatingMessageConverter(ObjectMapper jsonMapper, ObjectMapper smileMapper, Encoding encoding,
+                                       boolean typeAliases, Map<String, Class<?>> messageTypes) {
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = smileMapper;
+        this.encoding = encoding;
+        this.typeAliases = typeAliases;
+
+        messageTypes.forEach((alias, type) -> {
+            typesById.put(alias, type);
+            typesById.put(type.getName(), type);
+            aliasesByType.put(type, alias);
+        });
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException {
+        String typeId = typeId(object.getClass());
+        Message message;
+        try {
+            if (encoding == Encoding.SMILE) {
+                BytesMessage bytesMessage = session.createBytesMessage();
+                bytesMessage.writeBytes(smileMapper.writeValueAsBytes(object));
+                message = bytesMessage;
+            } else {
+                message = session.createTextMessage(jsonMapper.writeValueAsString(object));
+            }
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not write JMS message|Type:" + typeId, e);
+        }
+        return withHeaders(message, typeId);
+    }
+
+    /**
+     * As {@link #toMessage(Object, Session)} for a payload the outbox has already written as JSON. Smile is
+     * transcoded token by token, without binding the payload to its class.
+     */
+    public Message toMessage(String json, String payloadType, Session session) throws JMSException {
+        String typeId = typeId(resolveType(payloadType));
+        Message message;
+        if (encoding == Encoding.SMILE) {
+            BytesMessage bytesMessage = session.createBytesMessage();
+            bytesMessage.writeBytes(transcode(json, typeId));
+            message = bytesMessage;
+        } else {
+            message = session.createTextMessage(json);
+        }
+        return withHeaders(message, typeId);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException {
+        Class<?> type = resolveType(message.getStringProperty(JmsConfig.TYPE_ID_PROPERTY));
+        Encoding messageEncoding = Encoding.forContentType(message.getStringProperty(JmsConfig.CONTENT_TYPE_PROPERTY));
+
+        try {
+            if (message instanceof TextMessage) {
+                return jsonMapper.readValue(((TextMessage) message).getText(), type);
+            }
+            if (message instanceof BytesMessage) {
+                BytesMessage bytesMessage = (BytesMessage) message;
+                byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(body);
+                return (messageEncoding == Encoding.SMILE ? smileMapper : jsonMapper).readValue(body, type);
+            }
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not read JMS message|Type:" + type.getName(), e);
+        }
+        throw new MessageConversionException("Unsupported JMS message|Class:" + message.getClass().getName());
+    }
+
+    private Message withHeaders(Message message, String typeId) throws JMSException {
+        message.setStringProperty(JmsConfig.TYPE_ID_PROPERTY, typeId);
+        message.setStringProperty(JmsConfig.CONTENT_TYPE_PROPERTY, encoding.getContentType());
+        return message;
+    }
+
+    private String typeId(Class<?> type) {
+        String alias = aliasesByType.get(type);
+        if (alias == null) {
+            throw new MessageConversionException("Unregistered JMS message type|Type:" + type.getName());
+        }
+        return typeAliases ? alias : type.getName();
+    }
+
+    private Class<?> resolveType(String typeId) {
+        if (typeId == null) {
+            throw new MessageConversionException("JMS message has no type id|Property:" + JmsConfig.TYPE_ID_PROPERTY);
+        }
+        Class<?> type = typesById.get(typeId);
+        if (type == null) {
+            throw new MessageConversionException("Unregistered JMS message type|TypeId:" + typeId);
+        }
+        return type;
+    }
+
+    private byte[] transcode(String json, String typeId) {
+        ByteArrayBuilder out = new ByteArrayBuilder(json.length());
+        try (JsonParser parser = jsonMapper.getFactory().createParser(json);
+             JsonGenerator generator = smileMapper.getFactory().createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not transcode JMS message|Type:" + typeId, e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,18 +1,83 @@
 package org.example.beer.order.service.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
-import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.jms.ConnectionFactory;
 
 @EnableScheduling
 @EnableAsync
 @Configuration
 public class TaskConfig {
+    public static final String JMS_LISTENER_EXECUTOR = "jmsListenerTaskExecutor";
+    public static final String ORDER_EVENTS_EXECUTOR = "orderEventsTaskExecutor";
+
+    @Bean
+    ExecutorFactory executorFactory(MeterRegistry meterRegistry,
+                                    @Value("${sfg.beer-order.executor.virtual-threads:false}") boolean virtualThreads) {
+        return new ExecutorFactory(meterRegistry, virtualThreads);
+    }
+
+    /**
+     * Runs {@code @Async} methods.
+     */
+    @Bean
+    AsyncTaskExecutor taskExecutor(ExecutorFactory executorFactory,
+                                   @Value("${sfg.beer-order.executor.async.core-size:4}") int coreSize,
+                                   @Value("${sfg.beer-order.executor.async.max-size:16}") int maxSize,
+                                   @Value("${sfg.beer-order.executor.async.queue-capacity:500}") int queueCapacity,
+                                   @Value("${sfg.beer-order.executor.async.rejection-policy:caller-runs}") String rejectionPolicy) {
+        return executorFactory.taskExecutor("async", coreSize, maxSize, queueCapacity,
+                ExecutorFactory.RejectionPolicy.of(rejectionPolicy));
+    }
+
+    /**
+     * Runs {@code @Scheduled} methods.
+     */
+    @Bean
+    ThreadPoolTaskScheduler taskScheduler(ExecutorFactory executorFactory,
+                                          @Value("${sfg.beer-order.executor.scheduling.pool-size:2}") int poolSize) {
+        return executorFactory.taskScheduler("scheduling", poolSize);
+    }
+
+    /**
+     * Runs the JMS listener containers' consumers. Each consumer holds its thread for as long as it runs, so the
+     * pool has no queue and needs a thread for every consumer the containers may scale up to.
+     */
+    @Bean(JMS_LISTENER_EXECUTOR)
+    AsyncTaskExecutor jmsListenerTaskExecutor(ExecutorFactory executorFactory,
+                                              @Value("${sfg.beer-order.executor.jms.max-size:32}") int maxSize) {
+        return executorFactory.taskExecutor("jms-listener", maxSize, maxSize, 0, ExecutorFactory.RejectionPolicy.ABORT);
+    }
+
+    /**
+     * Writes order status events to server-sent event subscribers. Events that find the queue full are dropped
+     * rather than run on the committing thread.
+     */
+    @Bean(ORDER_EVENTS_EXECUTOR)
+    AsyncTaskExecutor orderEventsTaskExecutor(ExecutorFactory executorFactory,
+                                              @Value("${sfg.beer-order.executor.order-events.pool-size:2}") int poolSize,
+                                              @Value("${sfg.beer-order.executor.order-events.queue-capacity:10000}") int queueCapacity) {
+        return executorFactory.taskExecutor("order-events", poolSize, poolSize, queueCapacity,
+                ExecutorFactory.RejectionPolicy.ABORT);
+    }
+
     @Bean
-    TaskExecutor taskExecutor(){
-        return new SimpleAsyncTaskExecutor();
+    DefaultJmsListenerContainerFactory jmsListenerContainerFactory(DefaultJmsListenerContainerFactoryConfigurer configurer,
+                                                                   ConnectionFactory connectionFactory,
+                                                                   @Qualifier(JMS_LISTENER_EXECUTOR) AsyncTaskExecutor executor) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setTaskExecutor(executor);
+        return factory;
     }
 }
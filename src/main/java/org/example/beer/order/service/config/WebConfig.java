@@ -0,0 +1,31 @@
+package org.example.beer.order.service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Keeps an entity manager open for the whole of a request, as Spring Boot's {@code spring.jpa.open-in-view} would,
+ * which is turned off so this can leave out the order event streams: an entity manager is held until the async
+ * request completes, and with it a database connection, for as long as the stream stays open.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    static final String[] EVENT_STREAM_PATHS = {"/api/v1/customers/*/orders/events", "/api/v1/customers/*/orders/*/events"};
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public WebConfig(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        registry.addWebRequestInterceptor(interceptor).excludePathPatterns(EVENT_STREAM_PATHS);
+    }
+}
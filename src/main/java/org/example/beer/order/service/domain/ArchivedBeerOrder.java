@@ -0,0 +1,74 @@
+package org.example.beer.order.service.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import java.sql.Timestamp;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A {@link BeerOrder} in an end state moved out of the tables the saga works on by
+ * {@link org.example.beer.order.service.services.archive.OrderArchiver}. The columns of {@code beer_order} plus
+ * {@code archived_date}, so rows can be copied across with one statement. Read only.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "beer_order_archive", indexes = @Index(name = "idx_beer_order_archive_customer", columnList = "customer_id"))
+public class ArchivedBeerOrder extends BaseEntity {
+
+    private String customerRef;
+
+    @ManyToOne
+    private Customer customer;
+
+    @OneToMany(mappedBy = "beerOrder")
+    @Fetch(FetchMode.JOIN)
+    private Set<ArchivedBeerOrderLine> beerOrderLines;
+
+    private BeerOrderStatusEnum orderStatus;
+
+    private String orderStatusCallbackUrl;
+
+    private Timestamp archivedDate;
+
+    /**
+     * A detached {@link BeerOrder} holding this order's values, for code that only knows the hot entity.
+     */
+    public BeerOrder toBeerOrder() {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .id(getId())
+                .version(getVersion())
+                .createdDate(getCreatedDate())
+                .lastModifiedDate(getLastModifiedDate())
+                .customerRef(customerRef)
+                .customer(customer)
+                .orderStatus(orderStatus)
+                .orderStatusCallbackUrl(orderStatusCallbackUrl)
+                .build();
+        beerOrder.setBeerOrderLines(beerOrderLines.stream()
+                .map(line -> BeerOrderLine.builder()
+                        .id(line.getId())
+                        .version(line.getVersion())
+                        .createdDate(line.getCreatedDate())
+                        .lastModifiedDate(line.getLastModifiedDate())
+                        .beerOrder(beerOrder)
+                        .beerId(line.getBeerId())
+                        .upc(line.getUpc())
+                        .orderQuantity(line.getOrderQuantity())
+                        .quantityAllocated(line.getQuantityAllocated())
+                        .build())
+                .collect(Collectors.toSet()));
+        return beerOrder;
+    }
+}
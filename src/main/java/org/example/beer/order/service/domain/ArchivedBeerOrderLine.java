@@ -0,0 +1,29 @@
+package org.example.beer.order.service.domain;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Entity;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.util.UUID;
+
+/**
+ * A {@link BeerOrderLine} of an {@link ArchivedBeerOrder}, with the same columns as {@code beer_order_line}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "beer_order_line_archive")
+public class ArchivedBeerOrderLine extends BaseEntity {
+
+    @ManyToOne
+    private ArchivedBeerOrder beerOrder;
+
+    private UUID beerId;
+    private String upc;
+    private Integer orderQuantity;
+    private Integer quantityAllocated;
+}
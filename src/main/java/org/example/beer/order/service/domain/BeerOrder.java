@@ -6,8 +6,10 @@ import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 import java.sql.Timestamp;
 import java.util.Set;
 import java.util.UUID;
@@ -16,6 +18,7 @@ import java.util.UUID;
 @Setter
 @NoArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_beer_order_order_status", columnList = "orderStatus"))
 public class BeerOrder extends BaseEntity{
 
     private String customerRef;
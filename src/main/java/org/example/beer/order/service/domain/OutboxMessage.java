@@ -0,0 +1,40 @@
+package org.example.beer.order.service.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * A JMS message written in the same transaction as the order change that produced it, waiting to be relayed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_message_created_date", columnList = "createdDate"))
+public class OutboxMessage extends BaseEntity {
+
+    private String destination;
+
+    private String payloadType;
+
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    @Builder
+    public OutboxMessage(UUID id, Long version, Timestamp createdDate, Timestamp lastModifiedDate, String destination,
+                         String payloadType, String payload) {
+        super(id, version, createdDate, lastModifiedDate);
+        this.destination = destination;
+        this.payloadType = payloadType;
+        this.payload = payload;
+    }
+}
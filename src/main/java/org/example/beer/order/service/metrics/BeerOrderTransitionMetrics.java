@@ -0,0 +1,99 @@
+package org.example.beer.order.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.sm.BeerOrderStateMachineConfig;
+import org.example.beer.order.service.sm.BeerOrderTransition;
+import org.example.beer.order.service.sm.BeerOrderTransitionListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order lifecycle metrics fed by the state machine engines: a counter per declared (source, event, target)
+ * transition, how long orders stay in each status and how long an order takes from being placed to being
+ * allocated. Every meter is registered up front so recording is a couple of enum map reads. Inside a transaction
+ * nothing is recorded until it commits, so transitions that roll back are not counted.
+ */
+@Component
+public class BeerOrderTransitionMetrics implements BeerOrderTransitionListener {
+
+    private final Map<BeerOrderStatusEnum, EnumMap<BeerOrderEventEnum, Counter>> transitions =
+            new EnumMap<>(BeerOrderStatusEnum.class);
+    private final Map<BeerOrderStatusEnum, Timer> timeInStatus = new EnumMap<>(BeerOrderStatusEnum.class);
+    private final Timer allocationLatency;
+
+    public BeerOrderTransitionMetrics(MeterRegistry meterRegistry, BeerOrderStateMachineConfig stateMachineConfig) {
+        for (BeerOrderTransition transition : stateMachineConfig.transitions()) {
+            transitions.computeIfAbsent(transition.getSource(), s -> new EnumMap<>(BeerOrderEventEnum.class))
+                    .put(transition.getEvent(), Counter.builder("beer.order.transitions")
+                            .description("Order state transitions persisted")
+                            .tag("source", transition.getSource().name())
+                            .tag("event", transition.getEvent().name())
+                            .tag("target", transition.getTarget().name())
+                            .register(meterRegistry));
+        }
+
+        for (BeerOrderStatusEnum status : BeerOrderStatusEnum.values()) {
+            timeInStatus.put(status, Timer.builder("beer.order.status.duration")
+                    .description("Time orders spent in a status before leaving it")
+                    .tag("status", status.name())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofDays(7))
+                    .register(meterRegistry));
+        }
+
+        this.allocationLatency = Timer.builder("beer.order.allocation.latency")
+                .description("Time from an order being placed to it being allocated")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofDays(7))
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void transitioned(BeerOrder beerOrder, BeerOrderStatusEnum source, BeerOrderEventEnum event,
+                             BeerOrderStatusEnum target, Timestamp sourceEnteredAt) {
+        // read now, the entity keeps changing after this returns
+        long now = System.currentTimeMillis();
+        Timestamp createdDate = beerOrder.getCreatedDate();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(source, event, target, sourceEnteredAt, createdDate, now);
+                }
+            });
+        } else {
+            record(source, event, target, sourceEnteredAt, createdDate, now);
+        }
+    }
+
+    private void record(BeerOrderStatusEnum source, BeerOrderEventEnum event, BeerOrderStatusEnum target,
+                        Timestamp sourceEnteredAt, Timestamp createdDate, long now) {
+        EnumMap<BeerOrderEventEnum, Counter> byEvent = transitions.get(source);
+        Counter counter = byEvent == null ? null : byEvent.get(event);
+        if (counter != null) {
+            counter.increment();
+        }
+
+        if (sourceEnteredAt != null) {
+            timeInStatus.get(source).record(Math.max(0, now - sourceEnteredAt.getTime()), TimeUnit.MILLISECONDS);
+        }
+        if (target == BeerOrderStatusEnum.ALLOCATED && createdDate != null) {
+            allocationLatency.record(Math.max(0, now - createdDate.getTime()), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.beer.order.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times JMS listeners: how long a message waited between being sent and reaching its listener, and how long the
+ * listener took to process it. A listener's timers are registered on its first message and reused afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+public class JmsListenerMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ListenerTimers> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the listener's work, recording its lag from {@code sentAt} (the JMS timestamp, skipped when null) and its
+     * processing time tagged with whether it threw.
+     */
+    public void record(String listener, Long sentAt, Runnable work) {
+        ListenerTimers listenerTimers = timers.computeIfAbsent(listener, this::register);
+        if (sentAt != null && sentAt > 0) {
+            listenerTimers.lag.record(Math.max(0, System.currentTimeMillis() - sentAt), TimeUnit.MILLISECONDS);
+        }
+
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            work.run();
+            succeeded = true;
+        } finally {
+            (succeeded ? listenerTimers.success : listenerTimers.error)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ListenerTimers register(String listener) {
+        return new ListenerTimers(
+                Timer.builder("beer.order.listener.lag")
+                        .description("Time from a message being sent to its listener picking it up")
+                        .tag("listener", listener)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                processingTimer(listener, "success"),
+                processingTimer(listener, "error"));
+    }
+
+    private Timer processingTimer(String listener, String outcome) {
+        return Timer.builder("beer.order.listener.processing")
+                .description("Time a listener spent processing a message")
+                .tag("listener", listener)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @RequiredArgsConstructor
+    private static final class ListenerTimers {
+        private final Timer lag;
+        private final Timer success;
+        private final Timer error;
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.beer.order.service.repositories;
+
+import org.example.beer.order.service.domain.ArchivedBeerOrder;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ArchivedBeerOrderRepository extends JpaRepository<ArchivedBeerOrder, UUID> {
+
+    long countByCustomerId(UUID customerId);
+
+    /**
+     * The orders with their lines and customers in one query.
+     */
+    @Query("select distinct o from ArchivedBeerOrder o join fetch o.customer left join fetch o.beerOrderLines "
+            + "where o.id in :ids")
+    List<ArchivedBeerOrder> findAllWithLinesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("select o.version from ArchivedBeerOrder o where o.id = :id and o.customer.id = :customerId")
+    Optional<Long> findVersionByIdAndCustomerId(@Param("id") UUID id, @Param("customerId") UUID customerId);
+
+    @EntityGraph(attributePaths = {"beerOrderLines", "customer"}, type = EntityGraph.EntityGraphType.LOAD)
+    Optional<ArchivedBeerOrder> findByIdAndCustomerId(UUID id, UUID customerId);
+
+    /**
+     * Copies the orders with these ids from {@code beer_order}; ids are passed as the strings they are stored as.
+     */
+    @Modifying
+    @Query(value = "insert into beer_order_archive (id, version, created_date, last_modified_date, customer_ref, "
+            + "customer_id, order_status, order_status_callback_url, archived_date) "
+            + "select id, version, created_date, last_modified_date, customer_ref, customer_id, order_status, "
+            + "order_status_callback_url, current_timestamp from beer_order where id in (:ids)", nativeQuery = true)
+    int copyOrders(@Param("ids") Collection<String> ids);
+
+    /**
+     * Copies the lines of the orders with these ids from {@code beer_order_line}.
+     */
+    @Modifying
+    @Query(value = "insert into beer_order_line_archive (id, version, created_date, last_modified_date, "
+            + "beer_order_id, beer_id, upc, order_quantity, quantity_allocated) "
+            + "select id, version, created_date, last_modified_date, beer_order_id, beer_id, upc, order_quantity, "
+            + "quantity_allocated from beer_order_line where beer_order_id in (:ids)", nativeQuery = true)
+    int copyOrderLines(@Param("ids") Collection<String> ids);
+}
@@ -1,9 +1,17 @@
 package org.example.beer.order.service.repositories;
 
 import org.example.beer.order.service.domain.BeerOrderLine;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.UUID;
 
-public interface BeerOrderLineRepository extends PagingAndSortingRepository<BeerOrderLine, UUID> {
+public interface BeerOrderLineRepository extends PagingAndSortingRepository<BeerOrderLine, UUID>, BeerOrderLineRepositoryCustom {
+
+    @Modifying
+    @Query("delete from BeerOrderLine l where l.beerOrder.id in :orderIds")
+    int deleteAllByBeerOrderIdIn(@Param("orderIds") Collection<UUID> orderIds);
 }
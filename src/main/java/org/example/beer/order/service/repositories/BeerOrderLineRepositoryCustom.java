@@ -0,0 +1,24 @@
+package org.example.beer.order.service.repositories;
+
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.UUID;
+
+public interface BeerOrderLineRepositoryCustom {
+
+    /**
+     * Sets {@code quantityAllocated} on every given line in one JDBC batch, bumping the version and last modified
+     * date the way an entity update would. A line is only touched if it belongs to the given order.
+     *
+     * @return the number of lines updated
+     */
+    int updateQuantitiesAllocated(Collection<AllocatedQuantity> allocations);
+
+    @Value
+    class AllocatedQuantity {
+        UUID orderId;
+        UUID lineId;
+        Integer quantityAllocated;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.beer.order.service.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class BeerOrderLineRepositoryImpl implements BeerOrderLineRepositoryCustom {
+
+    private static final String UPDATE_QUANTITY_ALLOCATED = "update beer_order_line set quantity_allocated = ?, "
+            + "version = version + 1, last_modified_date = current_timestamp where id = ? and beer_order_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public int updateQuantitiesAllocated(Collection<AllocatedQuantity> allocations) {
+        if (allocations.isEmpty()) {
+            return 0;
+        }
+        // the batch runs on the transaction's connection, anything Hibernate still holds has to be written first
+        entityManager.flush();
+
+        List<Object[]> rows = new ArrayList<>(allocations.size());
+        allocations.forEach(allocation -> rows.add(new Object[]{allocation.getQuantityAllocated(),
+                allocation.getLineId().toString(), allocation.getOrderId().toString()}));
+
+        int updated = 0;
+        for (int count : jdbcTemplate.batchUpdate(UPDATE_QUANTITY_ALLOCATED, rows)) {
+            updated += Math.max(count, 0);
+        }
+        return updated;
+    }
+}
@@ -2,17 +2,125 @@ package org.example.beer.order.service.repositories;
 
 import org.example.beer.order.service.domain.BeerOrder;
 import org.example.beer.order.service.domain.BeerOrderStatusEnum;
-import org.example.beer.order.service.domain.Customer;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
-public interface BeerOrderRepository extends JpaRepository<BeerOrder, UUID> {
+public interface BeerOrderRepository extends JpaRepository<BeerOrder, UUID>, BeerOrderRepositoryCustom {
 
-    Page<BeerOrder> findAllByCustomer(Customer customer, Pageable pageable);
+    /**
+     * The order with its lines, only if it belongs to the customer, in one query.
+     */
+    @EntityGraph(attributePaths = {"beerOrderLines", "customer"}, type = EntityGraph.EntityGraphType.LOAD)
+    Optional<BeerOrder> findByIdAndCustomerId(UUID id, UUID customerId);
+
+    /**
+     * The orders with their lines and customers in one query.
+     */
+    @Query("select distinct o from BeerOrder o join fetch o.customer left join fetch o.beerOrderLines "
+            + "where o.id in :ids")
+    List<BeerOrder> findAllWithLinesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * The order's version, only if it belongs to the customer.
+     */
+    @Query("select o.version from BeerOrder o where o.id = :id and o.customer.id = :customerId")
+    Optional<Long> findVersionByIdAndCustomerId(@Param("id") UUID id, @Param("customerId") UUID customerId);
 
     List<BeerOrder> findAllByOrderStatus(BeerOrderStatusEnum beerOrderStatusEnum);
+
+    /**
+     * The orders with their customers in one query; the lines are left unloaded.
+     */
+    @EntityGraph(attributePaths = "customer")
+    List<BeerOrder> findAllByIdIn(Collection<UUID> ids);
+
+    long countByOrderStatus(BeerOrderStatusEnum beerOrderStatusEnum);
+
+    long countByCustomerId(UUID customerId);
+
+    /**
+     * Id, status, version and when the status was entered of every order in one of {@code statuses}, without loading
+     * lines.
+     */
+    @Query("select o.id as id, o.orderStatus as orderStatus, o.version as version, o.lastModifiedDate as lastModifiedDate "
+            + "from BeerOrder o where o.orderStatus in :statuses")
+    List<OrderStatusView> findStatusViewsByOrderStatusIn(@Param("statuses") Collection<BeerOrderStatusEnum> statuses);
+
+    /**
+     * Id, status, version and when the status was entered of the order, only if it belongs to the customer.
+     */
+    @Query("select o.id as id, o.orderStatus as orderStatus, o.version as version, o.lastModifiedDate as lastModifiedDate "
+            + "from BeerOrder o where o.id = :id and o.customer.id = :customerId")
+    Optional<OrderStatusView> findStatusViewByIdAndCustomerId(@Param("id") UUID id, @Param("customerId") UUID customerId);
+
+    /**
+     * Oldest first, the ids of orders in one of {@code statuses} last changed before {@code before}.
+     */
+    @Query("select o.id from BeerOrder o where o.orderStatus in :statuses and o.lastModifiedDate < :before "
+            + "order by o.lastModifiedDate")
+    List<UUID> findIdsByOrderStatusInAndLastModifiedDateBefore(
+            @Param("statuses") Collection<BeerOrderStatusEnum> statuses, @Param("before") Timestamp before,
+            Pageable pageable);
+
+    @Modifying
+    @Query("delete from BeerOrder o where o.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<UUID> ids);
+
+    interface OrderStatusView {
+        UUID getId();
+
+        BeerOrderStatusEnum getOrderStatus();
+
+        Long getVersion();
+
+        Timestamp getLastModifiedDate();
+    }
+
+    /**
+     * First page of a keyset scan over the ids of orders in {@code status}, in id order; continue with
+     * {@link #findIdsByOrderStatusAfter}.
+     */
+    @Query("select o.id from BeerOrder o where o.orderStatus = :status order by o.id")
+    List<UUID> findIdsByOrderStatus(@Param("status") BeerOrderStatusEnum status, Pageable pageable);
+
+    @Query("select o.id from BeerOrder o where o.orderStatus = :status and o.id > :after order by o.id")
+    List<UUID> findIdsByOrderStatusAfter(@Param("status") BeerOrderStatusEnum status, @Param("after") UUID after,
+                                         Pageable pageable);
+
+    /**
+     * As {@link #findIdsByOrderStatus} but only orders with a line for one of {@code upcs}.
+     */
+    @Query("select distinct o.id from BeerOrder o join o.beerOrderLines l "
+            + "where o.orderStatus = :status and l.upc in :upcs order by o.id")
+    List<UUID> findIdsByOrderStatusAndUpcIn(@Param("status") BeerOrderStatusEnum status,
+                                            @Param("upcs") Collection<String> upcs, Pageable pageable);
+
+    @Query("select distinct o.id from BeerOrder o join o.beerOrderLines l "
+            + "where o.orderStatus = :status and l.upc in :upcs and o.id > :after order by o.id")
+    List<UUID> findIdsByOrderStatusAndUpcInAfter(@Param("status") BeerOrderStatusEnum status,
+                                                 @Param("upcs") Collection<String> upcs, @Param("after") UUID after,
+                                                 Pageable pageable);
+
+    /**
+     * Moves the order from {@code expected} to {@code target} in one statement, bumping the version the way an
+     * entity update would. Pending changes are flushed first. A managed copy of the order is left holding the old
+     * status and version; {@code BeerOrderStateChangeInterceptor.applyTransition} brings it up to date.
+     *
+     * @return 1 if the order was in {@code expected}, 0 if another transition got there first
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update BeerOrder o set o.orderStatus = :target, o.version = o.version + 1, "
+            + "o.lastModifiedDate = CURRENT_TIMESTAMP where o.id = :id and o.orderStatus = :expected")
+    int compareAndSetStatus(@Param("id") UUID id, @Param("expected") BeerOrderStatusEnum expected,
+                            @Param("target") BeerOrderStatusEnum target);
 }
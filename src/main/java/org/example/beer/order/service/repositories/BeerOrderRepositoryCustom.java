@@ -0,0 +1,27 @@
+package org.example.beer.order.service.repositories;
+
+import lombok.Value;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface BeerOrderRepositoryCustom {
+
+    /**
+     * One page of the customer's orders, hot ones first and then archived ones, each in the pageable's sort and then
+     * by id, in one statement. Only ids and versions are read, and every row carries how many orders the customer has
+     * in all, so no separate count is needed. A page past the last order is empty and so has no total.
+     *
+     * @throws IllegalArgumentException if the sort names a property orders can't be sorted by
+     */
+    List<OrderPageRow> findOrderPageByCustomerId(UUID customerId, Pageable pageable);
+
+    @Value
+    class OrderPageRow implements VersionView {
+        UUID id;
+        Long version;
+        boolean archived;
+        long total;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.beer.order.service.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+public class BeerOrderRepositoryImpl implements BeerOrderRepositoryCustom {
+
+    // both tables share these columns, so a sort on either entity means the same on the union
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "version", "version",
+            "createdDate", "created_date",
+            "lastModifiedDate", "last_modified_date",
+            "customerRef", "customer_ref",
+            "orderStatus", "order_status");
+
+    private static final String ORDER_COLUMNS = "id, version, created_date, last_modified_date, customer_ref, "
+            + "order_status";
+
+    // the window count is taken over every row of the customer's, before the limit applies
+    private static final String ORDER_PAGE = "select id, version, archived, count(*) over () as total from ("
+            + "select " + ORDER_COLUMNS + ", 0 as archived from beer_order where customer_id = :customerId "
+            + "union all "
+            + "select " + ORDER_COLUMNS + ", 1 as archived from beer_order_archive where customer_id = :customerId"
+            + ") o order by archived";
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<OrderPageRow> findOrderPageByCustomerId(UUID customerId, Pageable pageable) {
+        StringBuilder sql = new StringBuilder(ORDER_PAGE);
+        for (Sort.Order order : pageable.getSort()) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("Orders can't be sorted by " + order.getProperty());
+            }
+            sql.append(", ").append(column).append(order.isAscending() ? " asc" : " desc");
+        }
+        // ties are broken by id so pages don't overlap
+        sql.append(", id");
+
+        Query query = entityManager.createNativeQuery(sql.toString())
+                .setParameter("customerId", customerId.toString());
+        if (pageable.isPaged()) {
+            query.setFirstResult(Math.toIntExact(pageable.getOffset())).setMaxResults(pageable.getPageSize());
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        List<OrderPageRow> page = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            page.add(new OrderPageRow(UUID.fromString((String) row[0]), ((Number) row[1]).longValue(),
+                    ((Number) row[2]).intValue() == 1, ((Number) row[3]).longValue()));
+        }
+        return page;
+    }
+}
@@ -1,11 +1,23 @@
 package org.example.beer.order.service.repositories;
 
 import org.example.beer.order.service.domain.Customer;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
     List<Customer> findAllByCustomerNameLike(String customerName);
+
+    Optional<Customer> findByApiKey(UUID apiKey);
+
+    /**
+     * Id and version of each customer on the page.
+     */
+    @Query("select c.id as id, c.version as version from Customer c")
+    Page<VersionView> findVersionViews(Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package org.example.beer.order.service.repositories;
+
+import java.util.UUID;
+
+/**
+ * Id and version of an entity, all a conditional request needs to tell whether it changed.
+ */
+public interface VersionView {
+    UUID getId();
+
+    Long getVersion();
+}
@@ -1,8 +1,12 @@
 package org.example.beer.order.service.services;
 
 import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
 import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.events.AllocateOrderResult;
+import org.example.brewery.model.events.ValidateOrderResult;
 
+import java.util.List;
 import java.util.UUID;
 
 public interface BeerOrderManager {
@@ -16,6 +20,33 @@ public interface BeerOrderManager {
 
     void beerOrderAllocationFailed(BeerOrderDto beerOrder);
 
+    /**
+     * Applies a batch of validation results in one transaction. If any of the orders changed status concurrently
+     * the whole batch rolls back. {@link StripedBeerOrderManager} applies the batch as one such transaction per
+     * order stripe.
+     */
+    void processValidationResults(List<ValidateOrderResult> results);
+
+    /**
+     * Applies a batch of allocation results in one transaction, writing the allocated quantities of all their lines
+     * in one JDBC batch. If any of the orders changed status concurrently the whole batch rolls back.
+     * {@link StripedBeerOrderManager} applies the batch as one such transaction per order stripe.
+     */
+    void processAllocationResults(List<AllocateOrderResult> results);
+
+    /**
+     * Asks the allocation service again for an order waiting in {@code PENDING_INVENTORY}.
+     *
+     * @return false if the order is gone or no longer pending inventory
+     */
+    boolean reallocateOrder(UUID id);
+
+    /**
+     * Fails an order whose validation or allocation request went unanswered, if it is still waiting in
+     * {@code pendingStatus}.
+     */
+    void sagaStepTimedOut(UUID id, BeerOrderStatusEnum pendingStatus);
+
     void beerOrderPickedUp(UUID id);
 
     void cancelOrder(UUID id);
@@ -3,24 +3,28 @@ package org.example.beer.order.service.services;
 import org.example.beer.order.service.domain.BeerOrder;
 import org.example.beer.order.service.domain.BeerOrderEventEnum;
 import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.BeerOrderLineRepository;
+import org.example.beer.order.service.repositories.BeerOrderLineRepositoryCustom.AllocatedQuantity;
 import org.example.beer.order.service.repositories.BeerOrderRepository;
-import org.example.beer.order.service.sm.BeerOrderStateChangeInterceptor;
+import org.example.beer.order.service.sm.BeerOrderStateMachineEngine;
+import org.example.beer.order.service.sm.BeerOrderStatusRegistry;
 import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.events.AllocateOrderResult;
+import org.example.brewery.model.events.ValidateOrderResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.support.MessageBuilder;
-import org.springframework.statemachine.StateMachine;
-import org.springframework.statemachine.config.StateMachineFactory;
-import org.springframework.statemachine.support.DefaultStateMachineContext;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import reactor.core.publisher.Mono;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -28,9 +32,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class BeerOrderManagerImpl implements BeerOrderManager {
 
     public static final String ORDER_ID_HEADER = "ORDER_ID_HEADER";
-    private final StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory;
+    private final BeerOrderStateMachineEngine stateMachineEngine;
     private final BeerOrderRepository repository;
-    private final BeerOrderStateChangeInterceptor interceptor;
+    private final BeerOrderLineRepository lineRepository;
+    private final BeerOrderStatusRegistry statusRegistry;
 
     @Transactional
     @Override
@@ -49,41 +54,61 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
 
         Optional<BeerOrder> beerOrderOptional = repository.findById(beerOrderId);
 
-        beerOrderOptional.ifPresentOrElse(beerOrder -> {
-            if (isValid) {
-                sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.VALIDATION_PASSED);
+        beerOrderOptional.ifPresentOrElse(beerOrder -> applyValidationResult(beerOrder, isValid),
+                () -> log.error("Order Not Found|OrderId:{}", beerOrderId));
+    }
 
-                //wait for status change
-                awaitForStatus(beerOrderId, BeerOrderStatusEnum.VALIDATED);
+    @Transactional
+    @Override
+    public void processValidationResults(List<ValidateOrderResult> results) {
+        Map<UUID, BeerOrder> beerOrders = findAllById(results.stream().map(ValidateOrderResult::getOrderId));
+
+        for (ValidateOrderResult result : results) {
+            BeerOrder beerOrder = beerOrders.get(result.getOrderId());
+            if (beerOrder == null) {
+                log.error("Order Not Found|OrderId:{}", result.getOrderId());
+                continue;
+            }
+            applyValidationResult(beerOrder, result.getIsValid());
+        }
+        log.debug("Processed validation results|Count:{}", results.size());
+    }
 
-                Optional<BeerOrder> validatedOrderOptional = repository.findById(beerOrderId);
-                validatedOrderOptional.ifPresent(validatedOrder -> {
-                    log.info("Found beerById with status: {}", validatedOrder.getOrderStatus());
-                    sendBeerOrderEvent(validatedOrder, BeerOrderEventEnum.ALLOCATE_ORDER);
-                });
-            } else {
-                sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.VALIDATION_FAILED);
+    private void applyValidationResult(BeerOrder beerOrder, Boolean isValid) {
+        if (isValid) {
+            //wait for status change
+            if (!sendBeerOrderEventAndAwait(beerOrder, BeerOrderEventEnum.VALIDATION_PASSED,
+                    BeerOrderStatusEnum.VALIDATED)) {
+                // a repeated result, the order has moved on and may be waiting for inventory
+                return;
             }
-        }, () -> log.error("Order Not Found|OrderId:{}", beerOrderId));
+
+            // the engine has already moved beerOrder to the persisted status, no need to read it back
+            log.info("Validated order with status: {}", beerOrder.getOrderStatus());
+            sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.ALLOCATE_ORDER);
+        } else {
+            sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.VALIDATION_FAILED);
+        }
     }
 
 
+    @Transactional
     @Override
     public void beerOrderAllocationPassed(BeerOrderDto dto) {
         Optional<BeerOrder> beerOrderOptional = repository.findById(dto.getId());
         beerOrderOptional.ifPresentOrElse(beerOrder -> {
-            sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.ALLOCATION_SUCCESS);
-            awaitForStatus(beerOrder.getId(), BeerOrderStatusEnum.ALLOCATED);
+            sendBeerOrderEventAndAwait(beerOrder, BeerOrderEventEnum.ALLOCATION_SUCCESS, BeerOrderStatusEnum.ALLOCATED);
             updateAllocatedQty(dto);
         }, () -> log.error("Order Not Found|OrderId:{}", dto.getId()));
     }
 
+    @Transactional
     @Override
     public void beerOrderAllocationPendingInventory(BeerOrderDto dto) {
         Optional<BeerOrder> beerOrderOptional = repository.findById(dto.getId());
         beerOrderOptional.ifPresentOrElse(beerOrder -> {
-            sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.ALLOCATION_NO_INVENTORY);
-            awaitForStatus(beerOrder.getId(), BeerOrderStatusEnum.PENDING_INVENTORY);
+            sendBeerOrderEventAndAwait(beerOrder, BeerOrderEventEnum.ALLOCATION_NO_INVENTORY,
+                    BeerOrderStatusEnum.PENDING_INVENTORY);
             updateAllocatedQty(dto);
         }, () -> log.error("Order Not Found|OrderId:{}", dto.getId()));
     }
@@ -91,18 +116,54 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
     private void updateAllocatedQty(BeerOrderDto dto) {
         Optional<BeerOrder> allocatedOrderOptional = repository.findById(dto.getId());
         allocatedOrderOptional.ifPresentOrElse(allocatedOrder -> {
-            allocatedOrder.getBeerOrderLines().forEach(
-                    line -> dto.getBeerOrderLines().forEach(lineDto -> {
-                        if (line.getId().equals(lineDto.getId())) {
-                            line.setQuantityAllocated(lineDto.getQuantityAllocated());
-                        }
-                    })
-            );
+            Map<UUID, Integer> quantitiesByLineId = new HashMap<>();
+            dto.getBeerOrderLines().forEach(lineDto -> quantitiesByLineId.put(lineDto.getId(), lineDto.getQuantityAllocated()));
+
+            allocatedOrder.getBeerOrderLines().forEach(line -> {
+                if (quantitiesByLineId.containsKey(line.getId())) {
+                    line.setQuantityAllocated(quantitiesByLineId.get(line.getId()));
+                }
+            });
 
             repository.saveAndFlush(allocatedOrder);
         }, () -> log.error("Order Not Found|OrderId:{}", dto.getId()));
     }
 
+    @Transactional
+    @Override
+    public void processAllocationResults(List<AllocateOrderResult> results) {
+        Map<UUID, BeerOrder> beerOrders = findAllById(results.stream().map(result -> result.getBeerOrderDto().getId()));
+        // by line id, so a result delivered twice in the same batch is written once
+        Map<UUID, AllocatedQuantity> allocatedQuantities = new LinkedHashMap<>();
+
+        for (AllocateOrderResult result : results) {
+            BeerOrderDto dto = result.getBeerOrderDto();
+            BeerOrder beerOrder = beerOrders.get(dto.getId());
+            if (beerOrder == null) {
+                log.error("Order Not Found|OrderId:{}", dto.getId());
+                continue;
+            }
+
+            if (Boolean.TRUE.equals(result.getAllocationError())) {
+                sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.ALLOCATION_FAILED);
+                continue;
+            }
+
+            if (Boolean.TRUE.equals(result.getPendingInventory())) {
+                sendBeerOrderEventAndAwait(beerOrder, BeerOrderEventEnum.ALLOCATION_NO_INVENTORY,
+                        BeerOrderStatusEnum.PENDING_INVENTORY);
+            } else {
+                sendBeerOrderEventAndAwait(beerOrder, BeerOrderEventEnum.ALLOCATION_SUCCESS, BeerOrderStatusEnum.ALLOCATED);
+            }
+            dto.getBeerOrderLines().forEach(lineDto -> allocatedQuantities.put(lineDto.getId(),
+                    new AllocatedQuantity(dto.getId(), lineDto.getId(), lineDto.getQuantityAllocated())));
+        }
+
+        int updated = lineRepository.updateQuantitiesAllocated(allocatedQuantities.values());
+        log.debug("Processed allocation results|Count:{}|Lines:{}", results.size(), updated);
+    }
+
+    @Transactional
     @Override
     public void beerOrderAllocationFailed(BeerOrderDto dto) {
         Optional<BeerOrder> beerOrderOptional = repository.findById(dto.getId());
@@ -111,6 +172,30 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
                 () -> log.error("Order Not Found|OrderId:{}", dto.getId()));
     }
 
+    @Transactional
+    @Override
+    public boolean reallocateOrder(UUID id) {
+        return repository.findById(id)
+                .filter(beerOrder -> beerOrder.getOrderStatus() == BeerOrderStatusEnum.PENDING_INVENTORY)
+                .map(beerOrder -> sendBeerOrderEvent(beerOrder, BeerOrderEventEnum.ALLOCATE_ORDER))
+                .orElse(false);
+    }
+
+    @Transactional
+    @Override
+    public void sagaStepTimedOut(UUID id, BeerOrderStatusEnum pendingStatus) {
+        BeerOrderEventEnum failure = pendingStatus == BeerOrderStatusEnum.VALIDATION_PENDING
+                ? BeerOrderEventEnum.VALIDATION_FAILED : BeerOrderEventEnum.ALLOCATION_FAILED;
+
+        repository.findById(id)
+                .filter(beerOrder -> beerOrder.getOrderStatus() == pendingStatus)
+                .ifPresent(beerOrder -> {
+                    log.warn("Saga step timed out|OrderId:{}|Status:{}", id, pendingStatus);
+                    sendBeerOrderEvent(beerOrder, failure);
+                });
+    }
+
+    @Transactional
     @Override
     public void beerOrderPickedUp(UUID id) {
         Optional<BeerOrder> beerOrderOptional = repository.findById(id);
@@ -121,6 +206,7 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
         );
     }
 
+    @Transactional
     @Override
     public void cancelOrder(UUID id) {
         repository.findById(id).ifPresentOrElse(beerOrder -> {
@@ -128,59 +214,34 @@ public class BeerOrderManagerImpl implements BeerOrderManager {
         }, () -> log.error("Order Not Found. Id: {}", id));
     }
 
-    private void sendBeerOrderEvent(BeerOrder beerOrder, BeerOrderEventEnum eventEnum) {
-        StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = build(beerOrder);
-
-        Message<BeerOrderEventEnum> message = MessageBuilder.withPayload(eventEnum)
-                .setHeader(ORDER_ID_HEADER, beerOrder.getId().toString()).build();
-        sm.sendEvent(Mono.just(message)).subscribe();
+    private Map<UUID, BeerOrder> findAllById(Stream<UUID> ids) {
+        Map<UUID, BeerOrder> beerOrders = new HashMap<>();
+        repository.findAllByIdIn(ids.collect(Collectors.toSet()))
+                .forEach(beerOrder -> beerOrders.put(beerOrder.getId(), beerOrder));
+        return beerOrders;
     }
 
-    private StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> build(BeerOrder beerOrder) {
-        StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm =
-                stateMachineFactory.getStateMachine(beerOrder.getId());
-
-        sm.stopReactively().subscribe();
-
-        sm.getStateMachineAccessor().doWithAllRegions(sma -> {
-            sma.addStateMachineInterceptor(interceptor);
-            sma.resetStateMachineReactively(new DefaultStateMachineContext<>(beerOrder.getOrderStatus(), null, null, null)).subscribe();
-        });
-
-        sm.startReactively().subscribe();
-
-        return sm;
+    private boolean sendBeerOrderEvent(BeerOrder beerOrder, BeerOrderEventEnum eventEnum) {
+        return stateMachineEngine.sendEvent(beerOrder, eventEnum);
     }
 
-    private void awaitForStatus(UUID beerOrderId, BeerOrderStatusEnum statusEnum) {
-        AtomicBoolean found = new AtomicBoolean(false);
-        AtomicInteger loopCount = new AtomicInteger(0);
-
-        while (!found.get()) {
-            if (loopCount.incrementAndGet() > 10) {
-                found.set(true);
-                log.debug("Loop Retries exceeded");
-            }
+    /**
+     * @return true if the event was accepted, whether or not the status change was seen in time
+     */
+    private boolean sendBeerOrderEventAndAwait(BeerOrder beerOrder, BeerOrderEventEnum eventEnum,
+                                               BeerOrderStatusEnum statusEnum) {
+        CompletableFuture<BeerOrderStatusEnum> waiter = statusRegistry.expect(beerOrder.getId(), statusEnum);
+
+        if (!sendBeerOrderEvent(beerOrder, eventEnum)) {
+            log.debug("Event not accepted|OrderId:{}|Event:{}|Status:{}", beerOrder.getId(), eventEnum,
+                    beerOrder.getOrderStatus());
+            statusRegistry.cancel(beerOrder.getId(), statusEnum, waiter);
+            return false;
+        }
 
-            repository.findById(beerOrderId).ifPresentOrElse(beerOrder -> {
-                if (beerOrder.getOrderStatus().equals(statusEnum)) {
-                    found.set(true);
-                    log.debug("Order Found");
-                } else {
-                    log.debug("Order Status Not Equal. Expected: " + statusEnum.name() + " Found: " + beerOrder.getOrderStatus().name());
-                }
-            }, () -> log.debug("Order Id Not Found"));
-
-            if (!found.get()) {
-                try {
-                    log.debug("Sleeping for retry");
-                    Thread.sleep(100);
-                } catch (Exception e) {
-                    // do nothing
-                }
-            }
+        if (!statusRegistry.await(beerOrder.getId(), statusEnum, waiter)) {
+            log.warn("Order did not reach expected status|OrderId:{}|Expected:{}", beerOrder.getId(), statusEnum);
         }
+        return true;
     }
-
-
 }
@@ -9,9 +9,19 @@ import java.util.UUID;
 public interface BeerOrderService {
     BeerOrderPagedList listOrders(UUID customerId, PageRequest pageRequest);
 
+    /**
+     * Entity tag of the page {@link #listOrders} would return, or null if there is no such customer.
+     */
+    String listOrdersETag(UUID customerId, PageRequest pageRequest);
+
     BeerOrderDto placeOrder(UUID customerId, BeerOrderDto beerOrderDto);
 
     BeerOrderDto getOrderById(UUID customerId, UUID orderId);
 
+    /**
+     * Entity tag of the order {@link #getOrderById} would return, or null if there is no such order.
+     */
+    String getOrderETag(UUID customerId, UUID orderId);
+
     void pickupOrder(UUID customerId, UUID orderId);
 }
@@ -1,21 +1,30 @@
 package org.example.beer.order.service.services;
 
+import org.example.beer.order.service.domain.ArchivedBeerOrder;
 import org.example.beer.order.service.domain.BeerOrder;
 import org.example.beer.order.service.domain.BeerOrderStatusEnum;
-import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.repositories.ArchivedBeerOrderRepository;
 import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.BeerOrderRepositoryCustom.OrderPageRow;
 import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.beer.BeerOrderEnricher;
 import org.example.beer.order.service.web.mappers.BeerOrderMapper;
+import org.example.beer.order.service.web.mappers.UnenrichedBeerOrderMapper;
 import org.example.brewery.model.BeerOrderDto;
 import org.example.brewery.model.BeerOrderPagedList;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -25,37 +34,96 @@ import java.util.stream.Collectors;
 public class BeerOrderServiceImpl implements BeerOrderService {
 
     private final BeerOrderRepository beerOrderRepository;
+    private final ArchivedBeerOrderRepository archivedBeerOrderRepository;
     private final CustomerRepository customerRepository;
+    private final CustomerCache customerCache;
     private final BeerOrderMapper beerOrderMapper;
+    private final UnenrichedBeerOrderMapper unenrichedBeerOrderMapper;
+    private final BeerOrderEnricher beerOrderEnricher;
     private final BeerOrderManager manager;
 
+    /**
+     * Orders still in the hot table come first, then archived ones, so a page can span both. The page is read in
+     * two steps, the ids on it and then those orders with their lines, so the database applies the limit to orders
+     * rather than Hibernate applying it in memory to order rows joined with their lines. That is two statements a
+     * page, three for one spanning both tables or past the last order, whatever the page size.
+     */
     @Override
     public BeerOrderPagedList listOrders(UUID customerId, PageRequest pageRequest) {
-        Optional<Customer> customerOptional = customerRepository.findById(customerId);
+        if (customerCache.findById(customerId).isPresent()) {
+            Page<OrderPageRow> page = orderPage(customerId, pageRequest);
+
+            List<UUID> hotIds = new ArrayList<>();
+            List<UUID> archivedIds = new ArrayList<>();
+            page.forEach(row -> (row.isArchived() ? archivedIds : hotIds).add(row.getId()));
+
+            Map<UUID, BeerOrder> ordersById = new HashMap<>();
+            if (!hotIds.isEmpty()) {
+                beerOrderRepository.findAllWithLinesByIdIn(hotIds)
+                        .forEach(beerOrder -> ordersById.put(beerOrder.getId(), beerOrder));
+                // archived since the ids were read
+                hotIds.stream().filter(id -> !ordersById.containsKey(id)).forEach(archivedIds::add);
+            }
+            if (!archivedIds.isEmpty()) {
+                archivedBeerOrderRepository.findAllWithLinesByIdIn(archivedIds)
+                        .forEach(archived -> ordersById.put(archived.getId(), archived.toBeerOrder()));
+            }
 
-        if (customerOptional.isPresent()) {
-            Page<BeerOrder> beerOrderPage = beerOrderRepository.findAllByCustomer(customerOptional.get(), pageRequest);
+            List<BeerOrderDto> beerOrders = page.stream()
+                    .map(row -> ordersById.get(row.getId()))
+                    .filter(Objects::nonNull)
+                    .map(unenrichedBeerOrderMapper::beerOrderToDto)
+                    .collect(Collectors.toList());
+            beerOrderEnricher.enrich(beerOrders);
 
-            return new BeerOrderPagedList(beerOrderPage.stream()
-                    .map(beerOrderMapper::beerOrderToDto)
-                    .collect(Collectors.toList()), PageRequest.of(
-                                    beerOrderPage.getPageable().getPageNumber(),
-                                    beerOrderPage.getPageable().getPageSize()),
-                                    beerOrderPage.getTotalElements());
+            return new BeerOrderPagedList(beerOrders, PageRequest.of(pageRequest.getPageNumber(),
+                    pageRequest.getPageSize()), page.getTotalElements());
         } else {
             return null;
         }
     }
 
+    /**
+     * The ids and versions {@link #listOrders} reads first, so nothing else is loaded, mapped or enriched. Beer
+     * names come from the beer service and are left out; a line's allocated quantity is only written with a status
+     * transition, which bumps the order's version.
+     */
+    @Override
+    public String listOrdersETag(UUID customerId, PageRequest pageRequest) {
+        if (customerCache.findById(customerId).isEmpty()) {
+            return null;
+        }
+
+        Page<OrderPageRow> page = orderPage(customerId, pageRequest);
+        return ETags.ofVersions(page.getContent(), page.getTotalElements());
+    }
+
+    /**
+     * The total comes with the page's rows; only a page past the last order has to count separately.
+     */
+    private Page<OrderPageRow> orderPage(UUID customerId, PageRequest pageRequest) {
+        List<OrderPageRow> rows = beerOrderRepository.findOrderPageByCustomerId(customerId, pageRequest);
+
+        long total;
+        if (!rows.isEmpty()) {
+            total = rows.get(0).getTotal();
+        } else if (pageRequest.getOffset() == 0) {
+            total = 0;
+        } else {
+            total = beerOrderRepository.countByCustomerId(customerId)
+                    + archivedBeerOrderRepository.countByCustomerId(customerId);
+        }
+        return new PageImpl<>(rows, pageRequest, total);
+    }
+
     @Transactional
     @Override
     public BeerOrderDto placeOrder(UUID customerId, BeerOrderDto beerOrderDto) {
-        Optional<Customer> customerOptional = customerRepository.findById(customerId);
-
-        if(customerOptional.isPresent()){
+        if(customerCache.findById(customerId).isPresent()){
             BeerOrder beerOrder = beerOrderMapper.dtoToBeerOrder(beerOrderDto);
             beerOrder.setId(null);
-            beerOrder.setCustomer(customerOptional.get());
+            // a reference is enough to set the foreign key, no need to load the customer again
+            beerOrder.setCustomer(customerRepository.getById(customerId));
             beerOrder.setOrderStatus(BeerOrderStatusEnum.NEW);
             beerOrder.getBeerOrderLines().forEach(line -> line.setBeerOrder(beerOrder));
 
@@ -71,24 +139,32 @@ public class BeerOrderServiceImpl implements BeerOrderService {
 
     @Override
     public BeerOrderDto getOrderById(UUID customerId, UUID orderId) {
-        return beerOrderMapper.beerOrderToDto(getOrder(customerId, orderId));
+        return beerOrderEnricher.enrich(unenrichedBeerOrderMapper.beerOrderToDto(getOrder(customerId, orderId)));
     }
 
-    private BeerOrder getOrder(UUID customerId, UUID orderId) {
-        Optional<Customer> customerOptional = customerRepository.findById(customerId);
-
-        if(customerOptional.isPresent()){
-            Optional<BeerOrder> beerOrderOptional = beerOrderRepository.findById(orderId);
-
-            if(beerOrderOptional.isPresent()){
-                BeerOrder beerOrder = beerOrderOptional.get();
-
-                if(beerOrder.getCustomer().getId().equals(customerId)){
-                    return beerOrder;
-                }
-            }
+    /**
+     * An archived order keeps the version it had, so its tag does not change when it is archived.
+     */
+    @Override
+    public String getOrderETag(UUID customerId, UUID orderId) {
+        if (customerCache.findById(customerId).isEmpty()) {
+            return null;
+        }
+        return beerOrderRepository.findVersionByIdAndCustomerId(orderId, customerId)
+                .or(() -> archivedBeerOrderRepository.findVersionByIdAndCustomerId(orderId, customerId))
+                .map(ETags::of)
+                .orElse(null);
+    }
 
-            throw new RuntimeException("Beer Order Not Found");
+    /**
+     * One query for the order constrained by its customer, so the ownership check needs no extra round trip.
+     */
+    private BeerOrder getOrder(UUID customerId, UUID orderId) {
+        if(customerCache.findById(customerId).isPresent()){
+            return beerOrderRepository.findByIdAndCustomerId(orderId, customerId)
+                    .or(() -> archivedBeerOrderRepository.findByIdAndCustomerId(orderId, customerId)
+                            .map(ArchivedBeerOrder::toBeerOrder))
+                    .orElseThrow(() -> new RuntimeException("Beer Order Not Found"));
         }
 
         throw new RuntimeException("Customer Not Found");
@@ -0,0 +1,104 @@
+package org.example.beer.order.service.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Caches the few customer fields order requests need, by id and by API key, so checking that a customer exists
+ * doesn't cost a query per request. Entries are immutable snapshots rather than entities, expire after
+ * {@code expire-after-write} and are dropped as soon as a change to the customer commits, see
+ * {@link CustomerCacheInvalidator}. Customers that aren't found are not cached, so a new one is seen straight away.
+ */
+@Slf4j
+@Component
+public class CustomerCache {
+
+    private final CustomerRepository customerRepository;
+    private final boolean enabled;
+    private final Cache<UUID, CachedCustomer> customersById;
+    private final Cache<UUID, UUID> customerIdsByApiKey;
+
+    public CustomerCache(CustomerRepository customerRepository, MeterRegistry meterRegistry,
+                         @Value("${sfg.beer-order.customer-cache.enabled:true}") boolean enabled,
+                         @Value("${sfg.beer-order.customer-cache.max-size:10000}") long maxSize,
+                         @Value("${sfg.beer-order.customer-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.customerRepository = customerRepository;
+        this.enabled = enabled;
+        this.customersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.customerIdsByApiKey = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, customersById, "customersById");
+        CaffeineCacheMetrics.monitor(meterRegistry, customerIdsByApiKey, "customerIdsByApiKey");
+    }
+
+    public Optional<CachedCustomer> findById(UUID customerId) {
+        if (!enabled) {
+            return customerRepository.findById(customerId).map(this::snapshot);
+        }
+        return Optional.ofNullable(customersById.get(customerId,
+                id -> customerRepository.findById(id).map(this::snapshot).orElse(null)));
+    }
+
+    public Optional<CachedCustomer> findByApiKey(UUID apiKey) {
+        if (!enabled) {
+            return customerRepository.findByApiKey(apiKey).map(this::snapshot);
+        }
+        UUID customerId = customerIdsByApiKey.getIfPresent(apiKey);
+        if (customerId != null) {
+            // the key may have been moved to another customer since
+            Optional<CachedCustomer> customer = findById(customerId).filter(cached -> apiKey.equals(cached.getApiKey()));
+            if (customer.isPresent()) {
+                return customer;
+            }
+            customerIdsByApiKey.invalidate(apiKey);
+        }
+
+        return customerRepository.findByApiKey(apiKey).map(found -> {
+            CachedCustomer cached = snapshot(found);
+            customersById.put(cached.getId(), cached);
+            return cached;
+        });
+    }
+
+    public void invalidate(UUID customerId) {
+        CachedCustomer cached = customersById.asMap().remove(customerId);
+        if (cached != null && cached.getApiKey() != null) {
+            customerIdsByApiKey.invalidate(cached.getApiKey());
+        }
+        log.debug("Invalidated cached customer|CustomerId:{}", customerId);
+    }
+
+    private CachedCustomer snapshot(Customer customer) {
+        CachedCustomer cached = new CachedCustomer(customer.getId(), customer.getApiKey(), customer.getCustomerName());
+        if (enabled && cached.getApiKey() != null) {
+            customerIdsByApiKey.put(cached.getApiKey(), cached.getId());
+        }
+        return cached;
+    }
+
+    @lombok.Value
+    public static class CachedCustomer {
+        UUID id;
+        UUID apiKey;
+        String customerName;
+    }
+}
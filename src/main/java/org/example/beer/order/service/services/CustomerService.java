@@ -6,4 +6,9 @@ import org.springframework.data.domain.Pageable;
 public interface CustomerService {
 
     CustomerPagedList listCustomers(Pageable pageable);
+
+    /**
+     * Entity tag of the page {@link #listCustomers} would return.
+     */
+    String listCustomersETag(Pageable pageable);
 }
@@ -2,6 +2,7 @@ package org.example.beer.order.service.services;
 
 import org.example.beer.order.service.domain.Customer;
 import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.repositories.VersionView;
 import org.example.beer.order.service.web.mappers.CustomerMapper;
 import org.example.brewery.model.CustomerPagedList;
 import lombok.RequiredArgsConstructor;
@@ -33,4 +34,10 @@ public class CustomerServiceImpl implements CustomerService {
                         customerPage.getPageable().getPageSize()),
                 customerPage.getTotalElements());
     }
+
+    @Override
+    public String listCustomersETag(Pageable pageable) {
+        Page<VersionView> versionPage = customerRepository.findVersionViews(pageable);
+        return ETags.ofVersions(versionPage.getContent(), versionPage.getTotalElements());
+    }
 }
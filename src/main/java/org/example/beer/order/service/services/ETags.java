@@ -0,0 +1,52 @@
+package org.example.beer.order.service.services;
+
+import org.example.beer.order.service.repositories.VersionView;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Strong entity tags made from JPA versions. An entity's own tag is its version; a page's is a digest of the id and
+ * version of each entity on it, in page order, and the total the page reports. Tags made from version-only queries
+ * and from the mapped DTOs of the same state are equal.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Number version) {
+        return "\"" + version + "\"";
+    }
+
+    public static String ofVersions(List<? extends VersionView> versions, long totalElements) {
+        return ofPage(versions, VersionView::getId, VersionView::getVersion, totalElements);
+    }
+
+    public static <T> String ofPage(List<T> content, Function<T, UUID> id, Function<T, ? extends Number> version,
+                                    long totalElements) {
+        StringBuilder digested = new StringBuilder().append(totalElements);
+        for (T element : content) {
+            digested.append(';').append(id.apply(element)).append(':').append(version.apply(element));
+        }
+        return "\"" + DigestUtils.md5DigestAsHex(digested.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Whether the copy named by the request's {@code If-None-Match} is still current, looking up {@code eTag} only
+     * if there is one. A null tag, for something that does not exist, leaves the request to be answered as usual.
+     */
+    public static boolean notModified(WebRequest webRequest, Supplier<String> eTag) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        String current = eTag.get();
+        return current != null && webRequest.checkNotModified(current);
+    }
+}
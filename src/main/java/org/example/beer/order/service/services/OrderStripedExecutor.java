@@ -0,0 +1,197 @@
+package org.example.beer.order.service.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs work for an order on one of a fixed set of single-threaded stripes chosen by the order id, so work for the
+ * same order is strictly serialized while different orders run in parallel. Callers block until their task has run
+ * and get its result or exception back, and block while the stripe's bounded queue is full. Neither wait is longer
+ * than {@code sfg.beer-order.striped-executor.timeout}; a caller that gives up gets an exception and its task is
+ * cancelled unless it has already started.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sfg.beer-order.striped-executor.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderStripedExecutor {
+
+    private final Stripe[] stripes;
+    private final Timer waitTimer;
+    private final Duration timeout;
+
+    public OrderStripedExecutor(MeterRegistry meterRegistry,
+                                @Value("${sfg.beer-order.striped-executor.stripes:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int stripeCount,
+                                @Value("${sfg.beer-order.striped-executor.queue-capacity:256}") int queueCapacity,
+                                @Value("${sfg.beer-order.striped-executor.timeout:30s}") Duration timeout) {
+        this.stripes = new Stripe[stripeCount];
+        this.timeout = timeout;
+        this.waitTimer = Timer.builder("beer.order.striped.executor.wait")
+                .description("Time order tasks spent queued behind earlier tasks on their stripe")
+                .register(meterRegistry);
+
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(i, queueCapacity);
+            Gauge.builder("beer.order.striped.executor.queue.depth", stripes[i].queue, BlockingQueue::size)
+                    .tag("stripe", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+
+        log.debug("Started order stripes|Stripes:{}|QueueCapacity:{}", stripeCount, queueCapacity);
+    }
+
+    public void execute(UUID orderId, Runnable task) {
+        execute(orderId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public <T> T execute(UUID orderId, Supplier<T> task) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        return await(orderId, submit(orderId, task, deadline), deadline);
+    }
+
+    /**
+     * Runs each order's task on its stripe, all of them at once, and waits for every one. Tasks for different orders
+     * don't wait on each other's failures: every task runs, and the ones that failed are returned with their
+     * exceptions, keyed like {@code tasks}.
+     */
+    public Map<UUID, RuntimeException> executeAll(Map<UUID, Runnable> tasks) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Map<UUID, FutureTask<Object>> futures = new LinkedHashMap<>();
+        Map<UUID, RuntimeException> failures = new LinkedHashMap<>();
+
+        for (Map.Entry<UUID, Runnable> task : tasks.entrySet()) {
+            try {
+                futures.put(task.getKey(), submit(task.getKey(), () -> {
+                    task.getValue().run();
+                    return null;
+                }, deadline));
+            } catch (RuntimeException e) {
+                failures.put(task.getKey(), e);
+            }
+        }
+        for (Map.Entry<UUID, FutureTask<Object>> future : futures.entrySet()) {
+            try {
+                await(future.getKey(), future.getValue(), deadline);
+            } catch (RuntimeException e) {
+                failures.put(future.getKey(), e);
+            }
+        }
+        return failures;
+    }
+
+    private <T> FutureTask<T> submit(UUID orderId, Supplier<T> task, long deadline) {
+        Stripe stripe = stripeFor(orderId);
+
+        // already on this order's stripe, queueing would wait on ourselves
+        if (Thread.currentThread() == stripe.thread) {
+            FutureTask<T> future = new FutureTask<>(task::get);
+            future.run();
+            return future;
+        }
+
+        long queuedAt = System.nanoTime();
+        FutureTask<T> future = new FutureTask<>(() -> {
+            waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            return task.get();
+        });
+
+        try {
+            if (!stripe.queue.offer(future, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Order stripe queue full|OrderId:" + orderId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for order task|OrderId:" + orderId, e);
+        }
+        return future;
+    }
+
+    private static <T> T await(UUID orderId, FutureTask<T> future, long deadline) {
+        try {
+            return future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted waiting for order task|OrderId:" + orderId, e);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new IllegalStateException("Timed out waiting for order task|OrderId:" + orderId, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    int stripeIndex(UUID orderId) {
+        int hash = orderId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    private Stripe stripeFor(UUID orderId) {
+        return stripes[stripeIndex(orderId)];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Stripe stripe : stripes) {
+            stripe.stopped = true;
+            stripe.thread.interrupt();
+
+            List<Runnable> pending = new ArrayList<>();
+            stripe.queue.drainTo(pending);
+            pending.forEach(task -> ((FutureTask<?>) task).cancel(false));
+        }
+    }
+
+    private static class Stripe {
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+        private volatile boolean stopped;
+
+        private Stripe(int index, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this::run, "order-stripe-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void run() {
+            while (!stopped) {
+                try {
+                    queue.take().run();
+                } catch (InterruptedException e) {
+                    // only shutdown stops the stripe
+                    continue;
+                }
+                // a task that left its thread interrupted must not stop the stripe or fail the next task
+                Thread.interrupted();
+            }
+        }
+    }
+}
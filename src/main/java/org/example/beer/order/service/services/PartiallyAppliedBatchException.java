@@ -0,0 +1,21 @@
+package org.example.beer.order.service.services;
+
+import java.util.List;
+
+/**
+ * Thrown by {@link StripedBeerOrderManager} when some of a batch's stripes failed after others had committed. Only
+ * {@link #getUnapplied()} were rolled back; retrying the whole batch would apply the rest a second time.
+ */
+public class PartiallyAppliedBatchException extends RuntimeException {
+
+    private final List<?> unapplied;
+
+    public PartiallyAppliedBatchException(List<?> unapplied, RuntimeException cause) {
+        super(unapplied.size() + " results of the batch were not applied", cause);
+        this.unapplied = List.copyOf(unapplied);
+    }
+
+    public List<?> getUnapplied() {
+        return unapplied;
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.beer.order.service.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Re-submits allocation for orders waiting in {@code PENDING_INVENTORY}, either all of them on a slow sweep or only
+ * those with a line for a UPC the inventory service reports as restocked. Restocks and sweeps only queue the work; a
+ * single scheduled task drains it every {@code drain-interval-millis}, submitting at most {@code rate-per-second}
+ * worth of orders per run so a large backlog doesn't flood the allocation queue, and never sleeping or holding a lock
+ * on the shared scheduler. Pending orders are paged through by id (keyset), reading only ids, so the backlog is never
+ * loaded at once. Each order is re-submitted through {@link BeerOrderManager}, so it is serialized with any other
+ * event for the same order.
+ */
+@Slf4j
+@Component
+public class PendingInventoryReallocator {
+
+    private final BeerOrderRepository repository;
+    private final BeerOrderManager manager;
+    private final int batchSize;
+    private final int ordersPerDrain;
+    private final Counter submittedCounter;
+    private final Counter skippedCounter;
+    private final Timer sweepTimer;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<String> restockedUpcs = ConcurrentHashMap.newKeySet();
+    private volatile boolean sweepRequested;
+    private volatile double backlog = Double.NaN;
+
+    // only touched by drain(), which the scheduler never runs twice at once
+    private Collection<String> sweepUpcs;
+    private List<UUID> batch = Collections.emptyList();
+    private int next;
+    private int sweepSubmitted;
+    private Timer.Sample sweepSample;
+
+    public PendingInventoryReallocator(BeerOrderRepository repository, BeerOrderManager manager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${sfg.beer-order.reallocation.batch-size:100}") int batchSize,
+                                       @Value("${sfg.beer-order.reallocation.rate-per-second:50}") double ratePerSecond,
+                                       @Value("${sfg.beer-order.reallocation.drain-interval-millis:1000}") long drainIntervalMillis) {
+        if (batchSize <= 0 || ratePerSecond <= 0 || drainIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Re-allocation batch size, rate and drain interval must be positive");
+        }
+        this.repository = repository;
+        this.manager = manager;
+        this.batchSize = batchSize;
+        this.ordersPerDrain = (int) Math.max(1, Math.round(ratePerSecond * drainIntervalMillis / 1000d));
+        this.meterRegistry = meterRegistry;
+        this.submittedCounter = Counter.builder("beer.order.reallocation.submitted")
+                .description("Pending inventory orders re-submitted for allocation")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("beer.order.reallocation.skipped")
+                .description("Pending inventory orders that had moved on before they were re-submitted")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("beer.order.reallocation.sweep")
+                .description("Time taken to page through the pending inventory backlog")
+                .register(meterRegistry);
+
+        Gauge.builder("beer.order.pending.inventory.backlog", this, r -> r.backlog)
+                .description("Orders waiting in PENDING_INVENTORY, counted when a sweep finishes; NaN before the first one")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${sfg.beer-order.reallocation.sweep-interval-millis:300000}",
+            fixedDelayString = "${sfg.beer-order.reallocation.sweep-interval-millis:300000}")
+    public void reallocateAll() {
+        sweepRequested = true;
+    }
+
+    /**
+     * Queues the pending inventory orders with a line for one of {@code upcs} for re-submission and returns straight
+     * away. UPCs restocked while a sweep is running are picked up by the next one.
+     */
+    public void restocked(Collection<String> upcs) {
+        restockedUpcs.addAll(upcs);
+    }
+
+    /**
+     * Re-submits up to {@code rate-per-second} worth of queued orders, carrying on where the previous run stopped.
+     *
+     * @return the number of orders re-submitted
+     */
+    @Scheduled(fixedDelayString = "${sfg.beer-order.reallocation.drain-interval-millis:1000}")
+    public int drain() {
+        int submitted = 0;
+        int budget = ordersPerDrain;
+
+        while (budget > 0) {
+            if (next == batch.size()) {
+                boolean lastBatch = batch.size() < batchSize;
+                if (sweepUpcs != null && !lastBatch) {
+                    batch = nextBatch(sweepUpcs, batch.get(batch.size() - 1));
+                } else {
+                    if (sweepUpcs != null) {
+                        finishSweep();
+                    }
+                    if (!startSweep()) {
+                        break;
+                    }
+                    batch = nextBatch(sweepUpcs, null);
+                }
+                next = 0;
+                continue;
+            }
+
+            budget--;
+            if (resubmit(batch.get(next++))) {
+                submitted++;
+            }
+        }
+
+        sweepSubmitted += submitted;
+        return submitted;
+    }
+
+    private boolean startSweep() {
+        if (sweepRequested) {
+            // a full sweep covers every UPC restocked so far
+            sweepRequested = false;
+            restockedUpcs.clear();
+            sweepUpcs = Collections.emptySet();
+        } else if (!restockedUpcs.isEmpty()) {
+            Set<String> upcs = new HashSet<>();
+            for (Iterator<String> it = restockedUpcs.iterator(); it.hasNext(); ) {
+                upcs.add(it.next());
+                it.remove();
+            }
+            sweepUpcs = upcs;
+        } else {
+            return false;
+        }
+        sweepSample = Timer.start(meterRegistry);
+        sweepSubmitted = 0;
+        return true;
+    }
+
+    private void finishSweep() {
+        sweepSample.stop(sweepTimer);
+        backlog = repository.countByOrderStatus(BeerOrderStatusEnum.PENDING_INVENTORY);
+        log.debug("Re-submitted pending inventory orders|Count:{}|Upcs:{}", sweepSubmitted, sweepUpcs);
+
+        sweepUpcs = null;
+        batch = Collections.emptyList();
+        next = 0;
+    }
+
+    private List<UUID> nextBatch(Collection<String> upcs, UUID after) {
+        Pageable page = PageRequest.of(0, batchSize);
+        BeerOrderStatusEnum status = BeerOrderStatusEnum.PENDING_INVENTORY;
+
+        if (upcs.isEmpty()) {
+            return after == null ? repository.findIdsByOrderStatus(status, page)
+                    : repository.findIdsByOrderStatusAfter(status, after, page);
+        }
+        return after == null ? repository.findIdsByOrderStatusAndUpcIn(status, upcs, page)
+                : repository.findIdsByOrderStatusAndUpcInAfter(status, upcs, after, page);
+    }
+
+    private boolean resubmit(UUID orderId) {
+        try {
+            if (manager.reallocateOrder(orderId)) {
+                submittedCounter.increment();
+                return true;
+            }
+            skippedCounter.increment();
+        } catch (RuntimeException e) {
+            // leave it for the next restock or sweep
+            skippedCounter.increment();
+            log.warn("Re-allocation failed|OrderId:{}", orderId, e);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.beer.order.service.services;
+
+import lombok.RequiredArgsConstructor;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.events.AllocateOrderResult;
+import org.example.brewery.model.events.ValidateOrderResult;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Serializes everything done to one order through {@link OrderStripedExecutor} before it reaches
+ * {@link BeerOrderManagerImpl}, so results for the same order arriving on different listener threads can't interleave.
+ * New orders have no id yet and nothing else can reference them, so they run on the caller's thread.
+ */
+@Primary
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "sfg.beer-order.striped-executor.enabled", havingValue = "true", matchIfMissing = true)
+public class StripedBeerOrderManager implements BeerOrderManager {
+
+    private final BeerOrderManagerImpl delegate;
+    private final OrderStripedExecutor executor;
+
+    @Override
+    public BeerOrder newBeerOrder(BeerOrder beerOrder) {
+        return delegate.newBeerOrder(beerOrder);
+    }
+
+    @Override
+    public void processValidationResult(UUID beerOrderId, Boolean isValid) {
+        executor.execute(beerOrderId, () -> delegate.processValidationResult(beerOrderId, isValid));
+    }
+
+    @Override
+    public void beerOrderAllocationPassed(BeerOrderDto beerOrder) {
+        executor.execute(beerOrder.getId(), () -> delegate.beerOrderAllocationPassed(beerOrder));
+    }
+
+    @Override
+    public void beerOrderAllocationPendingInventory(BeerOrderDto beerOrder) {
+        executor.execute(beerOrder.getId(), () -> delegate.beerOrderAllocationPendingInventory(beerOrder));
+    }
+
+    @Override
+    public void beerOrderAllocationFailed(BeerOrderDto beerOrder) {
+        executor.execute(beerOrder.getId(), () -> delegate.beerOrderAllocationFailed(beerOrder));
+    }
+
+    /**
+     * Batches are split by stripe and each stripe's results are applied on that stripe as one batch, in one
+     * transaction, in parallel across stripes, so a transaction never touches an order outside its stripe. Each
+     * stripe's results commit or roll back together; if one stripe fails, the others have still been applied and a
+     * {@link PartiallyAppliedBatchException} names the results that weren't.
+     */
+    @Override
+    public void processValidationResults(List<ValidateOrderResult> results) {
+        executeByStripe(results, ValidateOrderResult::getOrderId, delegate::processValidationResults);
+    }
+
+    @Override
+    public void processAllocationResults(List<AllocateOrderResult> results) {
+        executeByStripe(results, result -> result.getBeerOrderDto().getId(), delegate::processAllocationResults);
+    }
+
+    @Override
+    public boolean reallocateOrder(UUID id) {
+        return executor.execute(id, () -> delegate.reallocateOrder(id));
+    }
+
+    @Override
+    public void sagaStepTimedOut(UUID id, BeerOrderStatusEnum pendingStatus) {
+        executor.execute(id, () -> delegate.sagaStepTimedOut(id, pendingStatus));
+    }
+
+    @Override
+    public void beerOrderPickedUp(UUID id) {
+        executor.execute(id, () -> delegate.beerOrderPickedUp(id));
+    }
+
+    @Override
+    public void cancelOrder(UUID id) {
+        executor.execute(id, () -> delegate.cancelOrder(id));
+    }
+
+    /**
+     * One task per stripe the results fall on, keyed by the first of its orders, which routes it to that stripe.
+     */
+    private <T> void executeByStripe(List<T> results, Function<T, UUID> orderId, Consumer<List<T>> process) {
+        Map<UUID, List<T>> byStripe = byStripe(results, orderId);
+        Map<UUID, Runnable> tasks = new LinkedHashMap<>();
+        byStripe.forEach((firstOrder, stripeResults) -> tasks.put(firstOrder, () -> process.accept(stripeResults)));
+
+        Map<UUID, RuntimeException> failures = executor.executeAll(tasks);
+        if (failures.isEmpty()) {
+            return;
+        }
+        if (failures.size() == byStripe.size()) {
+            // nothing was applied, the batch can be retried as a whole
+            throw failures.values().iterator().next();
+        }
+
+        List<T> unapplied = new ArrayList<>();
+        failures.keySet().forEach(firstOrder -> unapplied.addAll(byStripe.get(firstOrder)));
+        throw new PartiallyAppliedBatchException(unapplied, failures.values().iterator().next());
+    }
+
+    private <T> Map<UUID, List<T>> byStripe(List<T> results, Function<T, UUID> orderId) {
+        Map<Integer, UUID> firstOrders = new LinkedHashMap<>();
+        Map<UUID, List<T>> grouped = new LinkedHashMap<>();
+        for (T result : results) {
+            UUID id = orderId.apply(result);
+            UUID firstOrder = firstOrders.computeIfAbsent(executor.stripeIndex(id), stripe -> id);
+            grouped.computeIfAbsent(firstOrder, order -> new ArrayList<>()).add(result);
+        }
+        return grouped;
+    }
+}
@@ -13,8 +13,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @Slf4j
@@ -38,38 +39,41 @@ public class TastingRoomService {
     @Transactional
     @Scheduled(fixedRate = 2000) //runs every 2 seconds
     public void placeTastingRoomOrder(){
+        findTastingRoomCustomer().ifPresent(customer -> placeOrder(customer, UUID.randomUUID().toString(),
+                List.of(orderLine(getRandomBeerUpc(), ThreadLocalRandom.current().nextInt(6)))));
+    }
+
+    public Optional<Customer> findTastingRoomCustomer() {
         List<Customer> customerList = customerRepository.findAllByCustomerNameLike(BeerOrderBootStrap.TASTING_ROOM);
 
         if(customerList.size() == 1){
-            doPlaceOrder(customerList.get(0));
+            return Optional.of(customerList.get(0));
         } else {
             log.error("Too many or too few testing room customers found");
 
             customerList.forEach(customer -> log.debug(customer.toString()));
+            return Optional.empty();
         }
     }
 
-    private void doPlaceOrder(Customer customer) {
-        String beerToOrder = getRandomBeerUpc();
-
-        BeerOrderLineDto beerOrderLine = BeerOrderLineDto.builder()
-                .upc(beerToOrder)
-                .orderQuantity(new Random().nextInt(6))
-                .build();
-
-        List<BeerOrderLineDto> beerOrderLines = new ArrayList<>();
-        beerOrderLines.add(beerOrderLine);
-
+    public BeerOrderDto placeOrder(Customer customer, String customerRef, List<BeerOrderLineDto> beerOrderLines) {
         BeerOrderDto beerOrder = BeerOrderDto.builder()
                 .customerId(customer.getId())
-                .customerRef(UUID.randomUUID().toString())
-                .beerOrderLines(beerOrderLines)
+                .customerRef(customerRef)
+                .beerOrderLines(new ArrayList<>(beerOrderLines))
                 .build();
 
-        BeerOrderDto savedOrder = beerOrderService.placeOrder(customer.getId(), beerOrder);
+        return beerOrderService.placeOrder(customer.getId(), beerOrder);
+    }
+
+    public static BeerOrderLineDto orderLine(String upc, int orderQuantity) {
+        return BeerOrderLineDto.builder()
+                .upc(upc)
+                .orderQuantity(orderQuantity)
+                .build();
     }
 
     private String getRandomBeerUpc() {
-        return beerUpcs.get(new Random().nextInt(beerUpcs.size()));
+        return beerUpcs.get(ThreadLocalRandom.current().nextInt(beerUpcs.size()));
     }
 }
@@ -0,0 +1,170 @@
+package org.example.beer.order.service.services.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.repositories.ArchivedBeerOrderRepository;
+import org.example.beer.order.service.repositories.BeerOrderLineRepository;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.sm.BeerOrderStateMachineConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Moves orders that reached an end state longer than {@code min-age} ago, with their lines, from the tables the saga
+ * works on into {@code beer_order_archive} and {@code beer_order_line_archive}, so the hot tables and their indexes
+ * only hold orders still in play. Each chunk of {@code batch-size} orders is copied with one insert-select per table
+ * and deleted in its own transaction, oldest first, so a run can stop anywhere without losing or duplicating an order.
+ * Order reads fall back to the archive, see {@link org.example.beer.order.service.services.BeerOrderServiceImpl}.
+ * <p>
+ * The hot and archived order gauges are counted on first read and again at the end of every run, and follow each
+ * archived chunk in between, so a scrape never runs a count.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sfg.beer-order.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderArchiver {
+
+    private final BeerOrderRepository beerOrderRepository;
+    private final BeerOrderLineRepository beerOrderLineRepository;
+    private final ArchivedBeerOrderRepository archivedBeerOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration minAge;
+    private final int batchSize;
+    private final Counter ordersCounter;
+    private final Counter linesCounter;
+    private final Timer chunkTimer;
+    private volatile double hotOrders = Double.NaN;
+    private volatile double archivedOrders = Double.NaN;
+
+    public OrderArchiver(BeerOrderRepository beerOrderRepository, BeerOrderLineRepository beerOrderLineRepository,
+                         ArchivedBeerOrderRepository archivedBeerOrderRepository,
+                         PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                         @Value("${sfg.beer-order.archive.min-age:30d}") Duration minAge,
+                         @Value("${sfg.beer-order.archive.batch-size:500}") int batchSize) {
+        this.beerOrderRepository = beerOrderRepository;
+        this.beerOrderLineRepository = beerOrderLineRepository;
+        this.archivedBeerOrderRepository = archivedBeerOrderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.ordersCounter = Counter.builder("beer.order.archive.rows")
+                .description("Rows moved from the hot tables to the archive")
+                .tag("table", "beer_order")
+                .register(meterRegistry);
+        this.linesCounter = Counter.builder("beer.order.archive.rows")
+                .description("Rows moved from the hot tables to the archive")
+                .tag("table", "beer_order_line")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("beer.order.archive.chunk")
+                .description("Time taken to move one chunk of orders to the archive")
+                .register(meterRegistry);
+
+        Gauge.builder("beer.order.hot.orders", this, OrderArchiver::hotOrders)
+                .description("Orders in the beer_order table, as of the last archiving run")
+                .register(meterRegistry);
+        Gauge.builder("beer.order.archived.orders", this, OrderArchiver::archivedOrders)
+                .description("Orders in the beer_order_archive table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${sfg.beer-order.archive.interval-millis:3600000}",
+            fixedDelayString = "${sfg.beer-order.archive.interval-millis:3600000}")
+    public void archive() {
+        archiveOlderThan(Timestamp.from(Instant.now().minus(minAge)));
+    }
+
+    /**
+     * Archives every end state order last changed before {@code cutoff}, one chunk at a time.
+     *
+     * @return the number of orders archived
+     */
+    public long archiveOlderThan(Timestamp cutoff) {
+        long start = System.nanoTime();
+        long orders = 0;
+        long rows = 0;
+
+        ArchivedChunk chunk;
+        do {
+            chunk = chunkTimer.record(() -> transactionTemplate.execute(status -> archiveChunk(cutoff)));
+            orders += chunk.orders;
+            rows += chunk.orders + chunk.lines;
+            // the chunk has committed; a gauge not counted yet stays NaN
+            hotOrders -= chunk.orders;
+            archivedOrders += chunk.orders;
+        } while (chunk.orders == batchSize);
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        countOrders();
+        log.info("Archived orders|Orders:{}|Rows:{}|RowsPerSecond:{}|HotOrders:{}", orders, rows,
+                String.format("%.0f", seconds > 0 ? rows / seconds : 0), (long) hotOrders);
+        return orders;
+    }
+
+    private double hotOrders() {
+        if (Double.isNaN(hotOrders)) {
+            countOrders();
+        }
+        return hotOrders;
+    }
+
+    private double archivedOrders() {
+        if (Double.isNaN(archivedOrders)) {
+            countOrders();
+        }
+        return archivedOrders;
+    }
+
+    private void countOrders() {
+        hotOrders = beerOrderRepository.count();
+        archivedOrders = archivedBeerOrderRepository.count();
+    }
+
+    private ArchivedChunk archiveChunk(Timestamp cutoff) {
+        List<UUID> ids = beerOrderRepository.findIdsByOrderStatusInAndLastModifiedDateBefore(
+                BeerOrderStateMachineConfig.END_STATES, cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return new ArchivedChunk(0, 0);
+        }
+        List<String> storedIds = ids.stream().map(UUID::toString).collect(Collectors.toList());
+
+        int orders = archivedBeerOrderRepository.copyOrders(storedIds);
+        int lines = archivedBeerOrderRepository.copyOrderLines(storedIds);
+        int deletedLines = beerOrderLineRepository.deleteAllByBeerOrderIdIn(ids);
+        int deletedOrders = beerOrderRepository.deleteAllByIdIn(ids);
+
+        if (orders != deletedOrders || lines != deletedLines) {
+            throw new IllegalStateException("Archived rows don't match deleted rows|Orders:" + orders + "/"
+                    + deletedOrders + "|Lines:" + lines + "/" + deletedLines);
+        }
+
+        ordersCounter.increment(orders);
+        linesCounter.increment(lines);
+        log.debug("Archived chunk|Orders:{}|Lines:{}", orders, lines);
+        return new ArchivedChunk(orders, lines);
+    }
+
+    private static class ArchivedChunk {
+        private final int orders;
+        private final int lines;
+
+        private ArchivedChunk(int orders, int lines) {
+            this.orders = orders;
+            this.lines = lines;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.beer.order.service.services.beer;
+
+import org.example.brewery.model.BeerDto;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncBeerService {
+    CompletableFuture<Optional<BeerDto>> getBeerByIdAsync(UUID uuid);
+
+    CompletableFuture<Optional<BeerDto>> getBeerByUpcAsync(String upc);
+}
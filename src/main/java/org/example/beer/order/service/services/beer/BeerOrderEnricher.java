@@ -0,0 +1,94 @@
+package org.example.beer.order.service.services.beer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.web.mappers.BeerDetails;
+import org.example.brewery.model.BeerDto;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Fills beer name, style, price and id on the lines of already mapped orders. The distinct UPCs across all the
+ * given orders are looked up once each, in parallel on a fixed pool so a large page can't open more than
+ * {@code sfg.beer-order.beer-enrichment.parallelism} concurrent calls to the beer service.
+ */
+@Slf4j
+@Component
+public class BeerOrderEnricher {
+
+    private final BeerService beerService;
+    private final ExecutorService executor;
+
+    public BeerOrderEnricher(BeerService beerService,
+                             @Value("${sfg.beer-order.beer-enrichment.parallelism:8}") int parallelism) {
+        this.beerService = beerService;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("beer-enrichment-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(parallelism, threadFactory);
+    }
+
+    public BeerOrderDto enrich(BeerOrderDto beerOrder) {
+        enrich(List.of(beerOrder));
+        return beerOrder;
+    }
+
+    public void enrich(Collection<BeerOrderDto> beerOrders) {
+        List<BeerOrderLineDto> lines = beerOrders.stream()
+                .filter(beerOrder -> beerOrder.getBeerOrderLines() != null)
+                .flatMap(beerOrder -> beerOrder.getBeerOrderLines().stream())
+                .collect(Collectors.toList());
+
+        Map<String, Optional<BeerDto>> beersByUpc = lookup(lines.stream()
+                .map(BeerOrderLineDto::getUpc)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+
+        lines.forEach(line -> beersByUpc.getOrDefault(line.getUpc(), Optional.empty())
+                .ifPresent(beerDto -> BeerDetails.apply(line, beerDto)));
+    }
+
+    private Map<String, Optional<BeerDto>> lookup(Set<String> upcs) {
+        Map<String, Optional<BeerDto>> beersByUpc = new HashMap<>();
+
+        if (upcs.size() == 1) {
+            String upc = upcs.iterator().next();
+            beersByUpc.put(upc, beerService.getBeerByUpc(upc));
+            return beersByUpc;
+        }
+
+        Map<String, CompletableFuture<Optional<BeerDto>>> lookups = new HashMap<>();
+        upcs.forEach(upc -> lookups.put(upc, CompletableFuture.supplyAsync(() -> beerService.getBeerByUpc(upc), executor)));
+
+        try {
+            lookups.forEach((upc, lookup) -> beersByUpc.put(upc, lookup.join()));
+        } catch (CompletionException e) {
+            lookups.values().forEach(lookup -> lookup.cancel(false));
+            log.error("Beer lookup failed|Upcs:{}", upcs.size(), e.getCause());
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+
+        return beersByUpc;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
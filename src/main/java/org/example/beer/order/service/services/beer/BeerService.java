@@ -6,6 +6,12 @@ import java.util.Optional;
 import java.util.UUID;
 
 public interface BeerService {
+    /**
+     * Qualifier of the implementation that calls the beer service over HTTP, selected with
+     * {@code sfg.beer-order.beer-client.type}.
+     */
+    String REMOTE = "remoteBeerService";
+
     Optional<BeerDto> getBeerById(UUID uuid);
 
     Optional<BeerDto> getBeerByUpc(String upc);
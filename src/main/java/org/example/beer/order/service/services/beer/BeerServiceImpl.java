@@ -1,6 +1,8 @@
 package org.example.beer.order.service.services.beer;
 
 import org.example.brewery.model.BeerDto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.stereotype.Service;
@@ -10,6 +12,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 @ConfigurationProperties(prefix = "sfg.brewery", ignoreUnknownFields = false)
+@Qualifier(BeerService.REMOTE)
+@ConditionalOnProperty(name = "sfg.beer-order.beer-client.type", havingValue = "rest-template", matchIfMissing = true)
 @Service
 public class BeerServiceImpl implements BeerService {
     public final static String BEER_PATH_V1 = "/api/v1/beer/";
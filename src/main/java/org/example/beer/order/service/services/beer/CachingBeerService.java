@@ -0,0 +1,146 @@
+package org.example.beer.order.service.services.beer;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.example.brewery.model.BeerDto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Caches beer lookups by UPC and by id in front of the {@link BeerService#REMOTE} client. A beer loaded through one
+ * key is also stored under the other. Entries older than the refresh interval are reloaded in the background on their
+ * next read and served as-is until the reload completes. Beers the beer service doesn't know (404) are cached as empty
+ * for a shorter time so a bad UPC isn't looked up remotely on every call.
+ */
+@Slf4j
+@Primary
+@Service
+@ConditionalOnProperty(name = "sfg.beer-order.beer-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingBeerService implements BeerService {
+
+    private final LoadingCache<String, Optional<BeerDto>> beersByUpc;
+    private final LoadingCache<UUID, Optional<BeerDto>> beersById;
+
+    public CachingBeerService(@Qualifier(BeerService.REMOTE) BeerService delegate, MeterRegistry meterRegistry,
+                              @Value("${sfg.beer-order.beer-cache.max-size:10000}") long maxSize,
+                              @Value("${sfg.beer-order.beer-cache.expire-after-write:10m}") Duration expireAfterWrite,
+                              @Value("${sfg.beer-order.beer-cache.refresh-after-write:5m}") Duration refreshAfterWrite,
+                              @Value("${sfg.beer-order.beer-cache.not-found-expire-after-write:30s}") Duration notFoundExpireAfterWrite) {
+        Expiry<Object, Optional<BeerDto>> expiry = new FoundOrNotFoundExpiry(expireAfterWrite, notFoundExpireAfterWrite);
+        Timer upcLoadTimer = loadTimer(meterRegistry, "upc");
+        Timer idLoadTimer = loadTimer(meterRegistry, "id");
+
+        this.beersByUpc = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(expiry)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .build(upc -> load(upcLoadTimer, upc, delegate::getBeerByUpc, this::storeById));
+        this.beersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(expiry)
+                .refreshAfterWrite(refreshAfterWrite)
+                .recordStats()
+                .build(id -> load(idLoadTimer, id, delegate::getBeerById, this::storeByUpc));
+
+        monitor(meterRegistry, beersByUpc, "beersByUpc");
+        monitor(meterRegistry, beersById, "beersById");
+    }
+
+    @Override
+    public Optional<BeerDto> getBeerById(UUID uuid) {
+        return beersById.get(uuid);
+    }
+
+    @Override
+    public Optional<BeerDto> getBeerByUpc(String upc) {
+        return beersByUpc.get(upc);
+    }
+
+    /**
+     * Calls the beer service and stores a found beer in the other cache. Never writes to the cache being loaded,
+     * Caffeine doesn't allow that from inside a load.
+     */
+    private <K> Optional<BeerDto> load(Timer timer, K key, Function<K, Optional<BeerDto>> lookup,
+                                       Consumer<BeerDto> storeUnderOtherKey) {
+        Timer.Sample sample = Timer.start();
+        Optional<BeerDto> beerDto;
+
+        try {
+            beerDto = lookup.apply(key);
+        } catch (HttpClientErrorException.NotFound e) {
+            log.debug("Beer not found|Key:{}", key);
+            beerDto = Optional.empty();
+        } finally {
+            sample.stop(timer);
+        }
+
+        beerDto.filter(dto -> dto.getId() != null && dto.getUpc() != null).ifPresent(storeUnderOtherKey);
+
+        return beerDto;
+    }
+
+    private void storeById(BeerDto beerDto) {
+        beersById.put(beerDto.getId(), Optional.of(beerDto));
+    }
+
+    private void storeByUpc(BeerDto beerDto) {
+        beersByUpc.put(beerDto.getUpc(), Optional.of(beerDto));
+    }
+
+    private static Timer loadTimer(MeterRegistry meterRegistry, String lookup) {
+        return Timer.builder("beer.order.beer.cache.load")
+                .description("Beer service calls made on a cache miss or refresh")
+                .tag("lookup", lookup)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static void monitor(MeterRegistry meterRegistry, LoadingCache<?, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("beer.order.beer.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private static class FoundOrNotFoundExpiry implements Expiry<Object, Optional<BeerDto>> {
+        private final long foundNanos;
+        private final long notFoundNanos;
+
+        private FoundOrNotFoundExpiry(Duration found, Duration notFound) {
+            this.foundNanos = found.toNanos();
+            this.notFoundNanos = notFound.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Optional<BeerDto> value, long currentTime) {
+            return value.isPresent() ? foundNanos : notFoundNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Optional<BeerDto> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Optional<BeerDto> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.example.beer.order.service.services.beer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.brewery.model.BeerDto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Beer service client on the JDK {@link HttpClient}, which keeps a pool of keep-alive connections per host. Calls are
+ * asynchronous; the {@link BeerService} methods block on them for existing callers. Every request has a connect and a
+ * response timeout and at most {@code max-concurrent-requests} may be in flight, further calls fail immediately
+ * instead of queueing behind a slow beer service. Errors are reported with the same Spring exceptions
+ * {@code RestTemplate} throws so callers can't tell the two clients apart, except that a 404 is an empty result.
+ */
+@Qualifier(BeerService.REMOTE)
+@ConditionalOnProperty(name = "sfg.beer-order.beer-client.type", havingValue = "http-client")
+@Service
+public class HttpClientBeerService implements BeerService, AsyncBeerService {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String beerServiceHost;
+    private final Duration requestTimeout;
+    private final Semaphore bulkhead;
+    private final Counter rejected;
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+
+    public HttpClientBeerService(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 @Value("${sfg.brewery.beer-service-host}") String beerServiceHost,
+                                 @Value("${sfg.beer-order.beer-client.connect-timeout:1s}") Duration connectTimeout,
+                                 @Value("${sfg.beer-order.beer-client.request-timeout:2s}") Duration requestTimeout,
+                                 @Value("${sfg.beer-order.beer-client.max-concurrent-requests:64}") int maxConcurrentRequests) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.beerServiceHost = beerServiceHost;
+        this.requestTimeout = requestTimeout;
+        this.bulkhead = new Semaphore(maxConcurrentRequests);
+        this.rejected = Counter.builder("beer.order.beer.client.rejected")
+                .description("Beer service calls refused because max-concurrent-requests were already in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<BeerDto> getBeerById(UUID uuid) {
+        return join(getBeerByIdAsync(uuid));
+    }
+
+    @Override
+    public Optional<BeerDto> getBeerByUpc(String upc) {
+        return join(getBeerByUpcAsync(upc));
+    }
+
+    @Override
+    public CompletableFuture<Optional<BeerDto>> getBeerByIdAsync(UUID uuid) {
+        return get("id", BeerServiceImpl.BEER_PATH_V1 + uuid);
+    }
+
+    @Override
+    public CompletableFuture<Optional<BeerDto>> getBeerByUpcAsync(String upc) {
+        return get("upc", BeerServiceImpl.BEER_UPC_PATH_V1 + upc);
+    }
+
+    private CompletableFuture<Optional<BeerDto>> get(String lookup, String path) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(beerServiceHost + path))
+                    .timeout(requestTimeout)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            // the UPC comes from the order, so a malformed one is the caller's problem and takes no permit
+            return CompletableFuture.failedFuture(e);
+        }
+
+        if (!bulkhead.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new ResourceAccessException("Too many concurrent beer service requests"));
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<HttpResponse<byte[]>> response;
+        try {
+            response = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            sample.stop(requestTimer(lookup, "error"));
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return response.handle((result, error) -> {
+            bulkhead.release();
+
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                sample.stop(requestTimer(lookup, cause instanceof HttpTimeoutException ? "timeout" : "error"));
+                throw new ResourceAccessException("I/O error on GET request for \"" + request.uri() + "\": "
+                        + cause.getMessage(), cause instanceof IOException ? (IOException) cause : new IOException(cause));
+            }
+
+            sample.stop(requestTimer(lookup, String.valueOf(result.statusCode())));
+            return toBeer(result);
+        });
+    }
+
+    private Optional<BeerDto> toBeer(HttpResponse<byte[]> response) {
+        HttpStatus status = HttpStatus.resolve(response.statusCode());
+
+        if (status == null) {
+            // a status Spring doesn't know, treated like the beer service failing
+            throw new UnknownHttpStatusCodeException(response.statusCode(), "", null, response.body(), null);
+        } else if (status == HttpStatus.NOT_FOUND) {
+            return Optional.empty();
+        } else if (status.is4xxClientError()) {
+            throw HttpClientErrorException.create(status, status.getReasonPhrase(), null, response.body(), null);
+        } else if (status.is5xxServerError()) {
+            throw HttpServerErrorException.create(status, status.getReasonPhrase(), null, response.body(), null);
+        }
+
+        try {
+            return Optional.ofNullable(objectMapper.readValue(response.body(), BeerDto.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Timer requestTimer(String lookup, String outcome) {
+        return requestTimers.computeIfAbsent(lookup + ':' + outcome, key -> Timer.builder("beer.order.beer.client.requests")
+                .description("Beer service calls made by the HTTP client")
+                .tag("lookup", lookup)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    private static Optional<BeerDto> join(CompletableFuture<Optional<BeerDto>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
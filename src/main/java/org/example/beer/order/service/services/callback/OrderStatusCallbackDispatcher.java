@@ -0,0 +1,352 @@
+package org.example.beer.order.service.services.callback;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.sm.BeerOrderTransitionListener;
+import org.example.brewery.model.OrderStatusUpdate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POSTs an {@link OrderStatusUpdate} to an order's {@code orderStatusCallbackUrl} whenever it changes status, once the
+ * transition has committed. Nothing is sent from the transition thread: each order gets a pending delivery that
+ * waits {@code coalesce-window} before it is queued, and transitions arriving meanwhile, or while an earlier update
+ * for the same order is still in flight, only replace the update it will send, so a client sees the latest status
+ * without a request per intermediate one and never two requests for one order at once.
+ * <p>
+ * Queued deliveries are sent on one JDK {@link HttpClient}, which keeps keep-alive connections per host, with at most
+ * {@code max-concurrent-requests} in flight. A failed delivery is retried with exponential backoff up to
+ * {@code max-attempts} times, unless the callback answered with a client error other than 408 or 429. Deliveries are
+ * best effort: those still pending when the service stops are lost, and clients can always read the order.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sfg.beer-order.status-callback.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderStatusCallbackDispatcher implements BeerOrderTransitionListener {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final TaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+    private final Duration requestTimeout;
+    private final Duration coalesceWindow;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final int maxPending;
+    private final Semaphore permits;
+    private final Map<UUID, Delivery> deliveries = new ConcurrentHashMap<>();
+    private final Queue<UUID> ready = new ConcurrentLinkedQueue<>();
+    private final Map<String, Timer> requestTimers = new ConcurrentHashMap<>();
+    private final Timer latency;
+    private final Counter coalesced;
+    private final Counter retried;
+    private final Counter dropped;
+
+    public OrderStatusCallbackDispatcher(ObjectMapper objectMapper, TaskScheduler taskScheduler,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${sfg.beer-order.status-callback.connect-timeout:1s}") Duration connectTimeout,
+                                         @Value("${sfg.beer-order.status-callback.request-timeout:5s}") Duration requestTimeout,
+                                         @Value("${sfg.beer-order.status-callback.max-concurrent-requests:16}") int maxConcurrentRequests,
+                                         @Value("${sfg.beer-order.status-callback.coalesce-window:200ms}") Duration coalesceWindow,
+                                         @Value("${sfg.beer-order.status-callback.max-attempts:5}") int maxAttempts,
+                                         @Value("${sfg.beer-order.status-callback.initial-backoff:1s}") Duration initialBackoff,
+                                         @Value("${sfg.beer-order.status-callback.max-backoff:1m}") Duration maxBackoff,
+                                         @Value("${sfg.beer-order.status-callback.max-pending:10000}") int maxPending) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.objectMapper = objectMapper;
+        this.taskScheduler = taskScheduler;
+        this.meterRegistry = meterRegistry;
+        this.requestTimeout = requestTimeout;
+        this.coalesceWindow = coalesceWindow;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.maxPending = maxPending;
+        this.permits = new Semaphore(maxConcurrentRequests);
+
+        Gauge.builder("beer.order.status.callback.pending", deliveries, Map::size)
+                .description("Orders with a status update waiting to be delivered or in flight")
+                .register(meterRegistry);
+        Gauge.builder("beer.order.status.callback.ready", ready, Queue::size)
+                .description("Status updates queued for a free request slot")
+                .register(meterRegistry);
+        this.latency = Timer.builder("beer.order.status.callback.latency")
+                .description("Time from a status change committing to its callback being acknowledged")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("beer.order.status.callback.coalesced")
+                .description("Status updates superseded by a later one before they were sent")
+                .register(meterRegistry);
+        this.retried = Counter.builder("beer.order.status.callback.retries")
+                .description("Callback deliveries scheduled again after a failed attempt")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("beer.order.status.callback.dropped")
+                .description("Status updates given up on, after max-attempts or with max-pending orders waiting")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void transitioned(BeerOrder beerOrder, BeerOrderStatusEnum source, BeerOrderEventEnum event,
+                             BeerOrderStatusEnum target, Timestamp sourceEnteredAt) {
+        String callbackUrl = beerOrder.getOrderStatusCallbackUrl();
+        if (callbackUrl == null || callbackUrl.isBlank()) {
+            return;
+        }
+
+        // copied now, the entity keeps changing after this returns
+        OrderStatusUpdate update = OrderStatusUpdate.builder()
+                .id(beerOrder.getId())
+                .orderId(beerOrder.getId())
+                .version(beerOrder.getVersion() == null ? null : beerOrder.getVersion().intValue())
+                .createdDate(toOffsetDateTime(beerOrder.getCreatedDate()))
+                .lastModifiedDate(toOffsetDateTime(beerOrder.getLastModifiedDate()))
+                .customerRef(beerOrder.getCustomerRef())
+                .orderStatus(target.name())
+                .build();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(callbackUrl, update);
+                }
+            });
+        } else {
+            offer(callbackUrl, update);
+        }
+    }
+
+    /**
+     * Orders with an update waiting to be sent or in flight.
+     */
+    int pending() {
+        return deliveries.size();
+    }
+
+    void offer(String callbackUrl, OrderStatusUpdate update) {
+        URI uri;
+        try {
+            uri = URI.create(callbackUrl);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid status callback URL|OrderId:{}|Url:{}", update.getOrderId(), callbackUrl);
+            dropped.increment();
+            return;
+        }
+
+        Update next = new Update(uri, update, System.nanoTime());
+        boolean[] created = new boolean[1];
+        Delivery delivery = deliveries.compute(update.getOrderId(), (orderId, current) -> {
+            if (current == null) {
+                if (deliveries.size() >= maxPending) {
+                    return null;
+                }
+                created[0] = true;
+                current = new Delivery();
+            } else if (current.next != null) {
+                coalesced.increment();
+            }
+            current.next = next;
+            current.attempts = 0;
+            return current;
+        });
+
+        if (delivery == null) {
+            log.warn("Too many status callbacks pending, dropping update|OrderId:{}", update.getOrderId());
+            dropped.increment();
+        } else if (created[0]) {
+            schedule(update.getOrderId(), coalesceWindow);
+        }
+    }
+
+    private void schedule(UUID orderId, Duration delay) {
+        if (delay.isZero()) {
+            enqueue(orderId);
+        } else {
+            taskScheduler.schedule(() -> enqueue(orderId), Instant.now().plus(delay));
+        }
+    }
+
+    private void enqueue(UUID orderId) {
+        ready.add(orderId);
+        drain();
+    }
+
+    private void drain() {
+        // re-checked after every acquire, a completion releasing its permit drains again so nothing is left behind
+        while (!ready.isEmpty() && permits.tryAcquire()) {
+            UUID orderId = ready.poll();
+            if (orderId == null) {
+                permits.release();
+                continue;
+            }
+            send(orderId);
+        }
+    }
+
+    private void send(UUID orderId) {
+        Update[] sending = new Update[1];
+        deliveries.computeIfPresent(orderId, (id, delivery) -> {
+            sending[0] = delivery.next;
+            delivery.inFlight = delivery.next;
+            delivery.next = null;
+            return delivery;
+        });
+        Update update = sending[0];
+        if (update == null) {
+            permits.release();
+            return;
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(update.uri)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(update.body)))
+                    .build();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.error("Could not build status callback|OrderId:{}", orderId, e);
+            completed(orderId, update, Outcome.GIVE_UP);
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    Outcome outcome;
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        sample.stop(requestTimer(cause instanceof HttpTimeoutException ? "timeout" : "error"));
+                        log.debug("Status callback failed|OrderId:{}|Url:{}|Error:{}", orderId, update.uri,
+                                cause.toString());
+                        outcome = Outcome.RETRY;
+                    } else {
+                        sample.stop(requestTimer(String.valueOf(response.statusCode())));
+                        outcome = Outcome.of(response.statusCode());
+                    }
+                    completed(orderId, update, outcome);
+                });
+    }
+
+    private void completed(UUID orderId, Update update, Outcome outcome) {
+        permits.release();
+
+        if (outcome == Outcome.DELIVERED) {
+            latency.record(System.nanoTime() - update.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+
+        Duration[] retryIn = new Duration[1];
+        deliveries.computeIfPresent(orderId, (id, delivery) -> {
+            delivery.inFlight = null;
+            if (delivery.next != null) {
+                // a newer status arrived while this one was in flight, it supersedes any retry
+                retryIn[0] = Duration.ZERO;
+                return delivery;
+            }
+            if (outcome == Outcome.DELIVERED) {
+                return null;
+            }
+            int attempts = ++delivery.attempts;
+            if (outcome == Outcome.GIVE_UP || attempts >= maxAttempts) {
+                log.warn("Giving up on status callback|OrderId:{}|Status:{}|Attempts:{}", orderId,
+                        update.body.getOrderStatus(), attempts);
+                dropped.increment();
+                return null;
+            }
+            delivery.next = update;
+            retryIn[0] = backoff(attempts);
+            retried.increment();
+            return delivery;
+        });
+
+        if (retryIn[0] != null) {
+            schedule(orderId, retryIn[0]);
+        }
+        drain();
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private Timer requestTimer(String outcome) {
+        return requestTimers.computeIfAbsent(outcome, o -> Timer.builder("beer.order.status.callback.requests")
+                .description("Status callback requests made")
+                .tag("outcome", o)
+                .register(meterRegistry));
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : OffsetDateTime.ofInstant(timestamp.toInstant(), ZoneOffset.UTC);
+    }
+
+    private enum Outcome {
+        DELIVERED, RETRY, GIVE_UP;
+
+        static Outcome of(int statusCode) {
+            if (statusCode >= 200 && statusCode < 300) {
+                return DELIVERED;
+            }
+            boolean clientError = statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429;
+            return clientError ? GIVE_UP : RETRY;
+        }
+    }
+
+    private static class Update {
+        private final URI uri;
+        private final OrderStatusUpdate body;
+        private final long enqueuedAt;
+
+        private Update(URI uri, OrderStatusUpdate body, long enqueuedAt) {
+            this.uri = uri;
+            this.body = body;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * Only read and changed inside {@code deliveries.compute*}, which serialises access per order.
+     */
+    private static class Delivery {
+        private Update next;
+        private Update inFlight;
+        private int attempts;
+    }
+}
@@ -0,0 +1,339 @@
+package org.example.beer.order.service.services.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.config.TaskConfig;
+import org.example.beer.order.service.domain.ArchivedBeerOrder;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.ArchivedBeerOrderRepository;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.services.CustomerCache;
+import org.example.beer.order.service.sm.BeerOrderTransitionListener;
+import org.example.brewery.model.OrderStatusUpdate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-sent event streams of order status changes, for one order or for all of a customer's orders. A status
+ * change is pushed once the transition that made it has committed, from the {@code order-events} executor rather
+ * than the committing thread. Each stream has its own queue, written out by at most one task at a time, so a stream
+ * gets its events in commit order. Open streams are async requests, so an idle one holds no request thread, only its
+ * connection and a {@link SseEmitter}; a comment every {@code heartbeat-interval} keeps proxies from closing it and
+ * finds clients that went away, and each stream ends after {@code timeout}, when the client is expected to reconnect.
+ * <p>
+ * An order stream starts with the order's current status and version, read after it is subscribed, so no change
+ * committed in between is missed; a change no newer than what the stream already sent is skipped. Ended orders that
+ * have been archived get their final status and the stream completes.
+ */
+@Slf4j
+@Component
+public class OrderStatusEvents implements BeerOrderTransitionListener {
+
+    public static final String EVENT_NAME = "order-status";
+    private static final int HEARTBEAT_BATCH_SIZE = 256;
+
+    private final BeerOrderRepository beerOrderRepository;
+    private final ArchivedBeerOrderRepository archivedBeerOrderRepository;
+    private final CustomerCache customerCache;
+    private final AsyncTaskExecutor executor;
+    private final Duration timeout;
+    private final int maxSubscribers;
+    private final Map<UUID, Set<Subscriber>> byOrder = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Subscriber>> byCustomer = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter sent;
+    private final Counter dropped;
+
+    public OrderStatusEvents(BeerOrderRepository beerOrderRepository,
+                             ArchivedBeerOrderRepository archivedBeerOrderRepository, CustomerCache customerCache,
+                             MeterRegistry meterRegistry,
+                             @Qualifier(TaskConfig.ORDER_EVENTS_EXECUTOR) AsyncTaskExecutor executor,
+                             @Value("${sfg.beer-order.order-events.timeout:30m}") Duration timeout,
+                             @Value("${sfg.beer-order.order-events.max-subscribers:10000}") int maxSubscribers) {
+        this.beerOrderRepository = beerOrderRepository;
+        this.archivedBeerOrderRepository = archivedBeerOrderRepository;
+        this.customerCache = customerCache;
+        this.executor = executor;
+        this.timeout = timeout;
+        this.maxSubscribers = maxSubscribers;
+
+        Gauge.builder("beer.order.events.subscribers", subscribers, Set::size)
+                .description("Open order status event streams")
+                .register(meterRegistry);
+        this.sent = Counter.builder("beer.order.events.sent")
+                .description("Order status events written to a stream")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("beer.order.events.dropped")
+                .description("Order status changes not pushed because the order-events executor was full")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribeToOrder(UUID customerId, UUID orderId) {
+        checkCustomer(customerId);
+        Subscriber subscriber = subscribe(byOrder, orderId, true);
+
+        try {
+            Optional<BeerOrderRepository.OrderStatusView> current =
+                    beerOrderRepository.findStatusViewByIdAndCustomerId(orderId, customerId);
+            if (current.isPresent()) {
+                BeerOrderRepository.OrderStatusView view = current.get();
+                enqueue(subscriber, update(view.getId(), view.getVersion(), null, view.getLastModifiedDate(),
+                        view.getOrderStatus()));
+                return subscriber.emitter;
+            }
+
+            // an archived order has ended, there is nothing more to wait for
+            BeerOrder archived = archivedBeerOrderRepository.findByIdAndCustomerId(orderId, customerId)
+                    .map(ArchivedBeerOrder::toBeerOrder)
+                    .orElseThrow(() -> new RuntimeException("Beer Order Not Found"));
+            send(subscriber, update(archived, archived.getOrderStatus()));
+            subscriber.emitter.complete();
+            unsubscribe(subscriber);
+        } catch (RuntimeException e) {
+            unsubscribe(subscriber);
+            throw e;
+        }
+        return subscriber.emitter;
+    }
+
+    public SseEmitter subscribeToCustomer(UUID customerId) {
+        checkCustomer(customerId);
+        return subscribe(byCustomer, customerId, false).emitter;
+    }
+
+    @Override
+    public void transitioned(BeerOrder beerOrder, BeerOrderStatusEnum source, BeerOrderEventEnum event,
+                             BeerOrderStatusEnum target, Timestamp sourceEnteredAt) {
+        // subscribers are looked up after commit, one subscribing meanwhile may already have read the old status
+        UUID orderId = beerOrder.getId();
+        UUID customerId = beerOrder.getCustomer() == null ? null : beerOrder.getCustomer().getId();
+        // copied now, the entity keeps changing after this returns
+        OrderStatusUpdate update = update(beerOrder, target);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(orderId, customerId, update);
+                }
+            });
+        } else {
+            publish(orderId, customerId, update);
+        }
+    }
+
+    /**
+     * Sends the heartbeat from one task per {@value #HEARTBEAT_BATCH_SIZE} streams, so a few slow clients only hold up
+     * their own batch.
+     */
+    @Scheduled(fixedDelayString = "${sfg.beer-order.order-events.heartbeat-interval-millis:15000}")
+    public void heartbeat() {
+        List<Subscriber> open = new ArrayList<>(subscribers);
+        for (int from = 0; from < open.size(); from += HEARTBEAT_BATCH_SIZE) {
+            List<Subscriber> batch = open.subList(from, Math.min(open.size(), from + HEARTBEAT_BATCH_SIZE));
+            execute(() -> batch.forEach(subscriber -> {
+                try {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(subscriber);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Open streams.
+     */
+    public int subscribers() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void publish(UUID orderId, UUID customerId, OrderStatusUpdate update) {
+        Set<Subscriber> orderSubscribers = byOrder.get(orderId);
+        Set<Subscriber> customerSubscribers = customerId == null ? null : byCustomer.get(customerId);
+        if (orderSubscribers == null && customerSubscribers == null) {
+            return;
+        }
+
+        if (orderSubscribers != null) {
+            orderSubscribers.forEach(subscriber -> enqueue(subscriber, update));
+        }
+        if (customerSubscribers != null) {
+            customerSubscribers.forEach(subscriber -> enqueue(subscriber, update));
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, OrderStatusUpdate update) {
+        subscriber.pending.add(update);
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> drain(subscriber));
+        } catch (TaskRejectedException e) {
+            while (subscriber.pending.poll() != null) {
+                dropped.increment();
+            }
+            subscriber.draining.set(false);
+        }
+    }
+
+    /**
+     * Writes out a stream's queued events; only one drain runs per stream at a time.
+     */
+    private void drain(Subscriber subscriber) {
+        OrderStatusUpdate update;
+        while ((update = subscriber.pending.poll()) != null) {
+            if (subscriber.closed) {
+                continue;
+            }
+            if (subscriber.singleOrder && update.getVersion() != null) {
+                if (subscriber.lastVersion != null && update.getVersion() <= subscriber.lastVersion) {
+                    continue;
+                }
+                subscriber.lastVersion = update.getVersion();
+            }
+            send(subscriber, update);
+        }
+        subscriber.draining.set(false);
+
+        // an event queued after the last poll but before the flag was cleared found the drain still running
+        if (!subscriber.pending.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (TaskRejectedException e) {
+            dropped.increment();
+        }
+    }
+
+    private void send(Subscriber subscriber, OrderStatusUpdate update) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .name(EVENT_NAME)
+                    .data(update, MediaType.APPLICATION_JSON));
+            sent.increment();
+        } catch (IOException | IllegalStateException e) {
+            // the client went away, the container completes the emitter
+            log.debug("Order status event not sent|OrderId:{}|Error:{}", update.getOrderId(), e.toString());
+            unsubscribe(subscriber);
+        }
+    }
+
+    private void checkCustomer(UUID customerId) {
+        if (customerCache.findById(customerId).isEmpty()) {
+            throw new RuntimeException("Customer Not Found");
+        }
+    }
+
+    private Subscriber subscribe(Map<UUID, Set<Subscriber>> index, UUID key, boolean singleOrder) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many order event subscribers");
+        }
+
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), index, key, singleOrder);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        index.compute(key, (k, current) -> {
+            Set<Subscriber> keySubscribers = current == null ? ConcurrentHashMap.newKeySet() : current;
+            keySubscribers.add(subscriber);
+            return keySubscribers;
+        });
+        return subscriber;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriber.closed = true;
+        subscriber.index.computeIfPresent(subscriber.key, (k, current) -> {
+            current.remove(subscriber);
+            return current.isEmpty() ? null : current;
+        });
+    }
+
+    private static OrderStatusUpdate update(BeerOrder beerOrder, BeerOrderStatusEnum status) {
+        return update(beerOrder.getId(), beerOrder.getVersion(), beerOrder.getCustomerRef(),
+                beerOrder.getLastModifiedDate(), status);
+    }
+
+    private static OrderStatusUpdate update(UUID orderId, Long version, String customerRef, Timestamp lastModifiedDate,
+                                            BeerOrderStatusEnum status) {
+        return OrderStatusUpdate.builder()
+                .id(orderId)
+                .orderId(orderId)
+                .version(version == null ? null : version.intValue())
+                .lastModifiedDate(lastModifiedDate == null ? null
+                        : OffsetDateTime.ofInstant(lastModifiedDate.toInstant(), ZoneOffset.UTC))
+                .customerRef(customerRef)
+                .orderStatus(status.name())
+                .build();
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final Map<UUID, Set<Subscriber>> index;
+        private final UUID key;
+        private final boolean singleOrder;
+        private final Queue<OrderStatusUpdate> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        // only read and written by the stream's drain, which the draining flag hands from task to task
+        private Integer lastVersion;
+
+        private Subscriber(SseEmitter emitter, Map<UUID, Set<Subscriber>> index, UUID key, boolean singleOrder) {
+            this.emitter = emitter;
+            this.index = index;
+            this.key = key;
+            this.singleOrder = singleOrder;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.beer.order.service.services.listeners;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.config.JmsConfig;
+import org.example.beer.order.service.config.TaskConfig;
+import org.example.beer.order.service.metrics.JmsListenerMetrics;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.beer.order.service.sm.BeerOrderStateMachineEngine;
+import org.example.brewery.model.events.AllocateOrderResult;
+import org.example.brewery.model.events.ValidateOrderResult;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.stereotype.Component;
+
+import javax.jms.ConnectionFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Takes over from {@link ValidationResultListener} and {@link BeerOrderAllocationResultListener} when
+ * {@code sfg.beer-order.listener.batch.enabled} is on, consuming each result queue in batches through
+ * {@link BeerOrderManager#processValidationResults} and {@link BeerOrderManager#processAllocationResults}. With the
+ * Spring state machine engine the order stripes must be on: an unserialized batch would hold row locks on several
+ * orders while waiting for a state machine monitor another thread holds under its own row lock.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = BatchResultListeners.ENABLED_PROPERTY, havingValue = "true")
+public class BatchResultListeners implements SmartLifecycle {
+
+    public static final String ENABLED_PROPERTY = "sfg.beer-order.listener.batch.enabled";
+
+    private final AsyncTaskExecutor executor;
+    private final List<Supplier<JmsBatchConsumer<?>>> consumerFactories;
+    private volatile List<JmsBatchConsumer<?>> consumers = List.of();
+
+    public BatchResultListeners(BeerOrderManager manager, ConnectionFactory connectionFactory,
+                                MessageConverter messageConverter, JmsListenerMetrics listenerMetrics,
+                                MeterRegistry meterRegistry,
+                                @Qualifier(TaskConfig.JMS_LISTENER_EXECUTOR) AsyncTaskExecutor executor,
+                                @Value("${sfg.beer-order.listener.batch.max-size:100}") int maxSize,
+                                @Value("${sfg.beer-order.listener.batch.max-wait-millis:50}") long maxWaitMillis,
+                                @Value("${sfg.beer-order.listener.batch.max-attempts:3}") int maxAttempts,
+                                @Value("${sfg.beer-order.listener.batch.retry-backoff-millis:200}") long retryBackoffMillis,
+                                @Value("${" + BeerOrderStateMachineEngine.ENGINE_PROPERTY + ":spring}") String engine,
+                                @Value("${sfg.beer-order.striped-executor.enabled:true}") boolean striped) {
+        if ("spring".equals(engine) && !striped) {
+            throw new IllegalStateException(ENABLED_PROPERTY + "=true with the spring state machine engine needs "
+                    + "sfg.beer-order.striped-executor.enabled=true");
+        }
+        this.executor = executor;
+        this.consumerFactories = List.of(
+                () -> new JmsBatchConsumer<>("validation-result-batch", JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE,
+                        ValidateOrderResult.class, connectionFactory, messageConverter, listenerMetrics, meterRegistry,
+                        manager::processValidationResults, result -> manager.processValidationResults(List.of(result)),
+                        maxSize, maxWaitMillis, maxAttempts, retryBackoffMillis),
+                () -> new JmsBatchConsumer<>("allocation-result-batch", JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE,
+                        AllocateOrderResult.class, connectionFactory, messageConverter, listenerMetrics, meterRegistry,
+                        manager::processAllocationResults, result -> manager.processAllocationResults(List.of(result)),
+                        maxSize, maxWaitMillis, maxAttempts, retryBackoffMillis));
+    }
+
+    @Override
+    public synchronized void start() {
+        if (isRunning()) {
+            return;
+        }
+        // a stopped consumer may still be finishing its last receive, so each start gets new ones
+        List<JmsBatchConsumer<?>> started = new ArrayList<>(consumerFactories.size());
+        consumerFactories.forEach(factory -> started.add(factory.get()));
+        started.forEach(executor::execute);
+        consumers = started;
+        log.info("Consuming results in batches|Consumers:{}", started.size());
+    }
+
+    @Override
+    public synchronized void stop() {
+        consumers.forEach(JmsBatchConsumer::stop);
+        consumers = List.of();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !consumers.isEmpty();
+    }
+}
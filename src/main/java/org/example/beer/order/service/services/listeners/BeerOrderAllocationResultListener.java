@@ -1,27 +1,35 @@
 package org.example.beer.order.service.services.listeners;
 
 import org.example.beer.order.service.config.JmsConfig;
+import org.example.beer.order.service.metrics.JmsListenerMetrics;
 import org.example.beer.order.service.services.BeerOrderManager;
 import org.example.brewery.model.events.AllocateOrderResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.JmsHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @RequiredArgsConstructor
 @Component
+@ConditionalOnProperty(name = BatchResultListeners.ENABLED_PROPERTY, havingValue = "false", matchIfMissing = true)
 public class BeerOrderAllocationResultListener {
     private final BeerOrderManager manager;
+    private final JmsListenerMetrics listenerMetrics;
 
-    @JmsListener(destination = JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE)
-    public void listen(AllocateOrderResult result){
-        if(!result.getAllocationError() && !result.getPendingInventory()){
-            manager.beerOrderAllocationPassed(result.getBeerOrderDto());
-        } else if (!result.getAllocationError() && result.getPendingInventory()){
-            manager.beerOrderAllocationPendingInventory(result.getBeerOrderDto());
-        } else if (result.getAllocationError()){
-            manager.beerOrderAllocationFailed(result.getBeerOrderDto());
-        }
+    @JmsListener(destination = JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE, concurrency = "${sfg.beer-order.listener.concurrency:1}")
+    public void listen(AllocateOrderResult result, @Header(name = JmsHeaders.TIMESTAMP, required = false) Long sentAt){
+        listenerMetrics.record("allocation-result", sentAt, () -> {
+            if(!result.getAllocationError() && !result.getPendingInventory()){
+                manager.beerOrderAllocationPassed(result.getBeerOrderDto());
+            } else if (!result.getAllocationError() && result.getPendingInventory()){
+                manager.beerOrderAllocationPendingInventory(result.getBeerOrderDto());
+            } else if (result.getAllocationError()){
+                manager.beerOrderAllocationFailed(result.getBeerOrderDto());
+            }
+        });
     }
 }
@@ -0,0 +1,33 @@
+package org.example.beer.order.service.services.listeners;
+
+import org.example.beer.order.service.config.JmsConfig;
+import org.example.beer.order.service.metrics.JmsListenerMetrics;
+import org.example.beer.order.service.services.PendingInventoryReallocator;
+import org.example.brewery.model.events.InventoryRestockedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.JmsHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class InventoryRestockedListener {
+
+    private final PendingInventoryReallocator reallocator;
+    private final JmsListenerMetrics listenerMetrics;
+
+    @JmsListener(destination = JmsConfig.INVENTORY_RESTOCKED_QUEUE)
+    public void listen(InventoryRestockedEvent event, @Header(name = JmsHeaders.TIMESTAMP, required = false) Long sentAt) {
+        if (event.getUpcs() == null || event.getUpcs().isEmpty()) {
+            log.warn("Inventory restocked without UPCs, ignoring");
+            return;
+        }
+
+        log.info("Inventory restocked|Upcs:{}", event.getUpcs());
+
+        listenerMetrics.record("inventory-restocked", sentAt, () -> reallocator.restocked(event.getUpcs()));
+    }
+}
@@ -0,0 +1,218 @@
+package org.example.beer.order.service.services.listeners;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.config.JmsConfig;
+import org.example.beer.order.service.metrics.JmsListenerMetrics;
+import org.example.beer.order.service.services.PartiallyAppliedBatchException;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Drains a queue in batches of up to {@code maxSize} messages, or whatever arrived within {@code maxWaitMillis} of
+ * the first one, on a transacted session. Each batch is handed over whole and the session is committed only after
+ * the handler returns, so a crash redelivers the batch. If the batch handler throws, each message it didn't apply is
+ * retried on its own: all of them, or only those a {@link PartiallyAppliedBatchException} names. A message is tried
+ * up to {@code maxAttempts} times, {@code retryBackoffMillis} apart, so a lock timeout or deadlock doesn't lose it,
+ * and only then moved to {@link JmsConfig#DEAD_LETTER_QUEUE} in the same transaction. Results that were applied are
+ * neither applied twice nor redelivered. Messages that can't be read are dead-lettered straight away.
+ */
+@Slf4j
+class JmsBatchConsumer<T> implements Runnable {
+
+    private static final long IDLE_RECEIVE_MILLIS = 1000;
+    private static final long RECOVERY_INTERVAL_MILLIS = 5000;
+
+    private final String name;
+    private final String destination;
+    private final Class<T> type;
+    private final ConnectionFactory connectionFactory;
+    private final MessageConverter messageConverter;
+    private final JmsListenerMetrics listenerMetrics;
+    private final Consumer<List<T>> batchHandler;
+    private final Consumer<T> singleHandler;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final DistributionSummary batchSize;
+    private final Counter fallbacks;
+    private final Counter retries;
+
+    private volatile boolean running = true;
+
+    JmsBatchConsumer(String name, String destination, Class<T> type, ConnectionFactory connectionFactory,
+                     MessageConverter messageConverter, JmsListenerMetrics listenerMetrics, MeterRegistry meterRegistry,
+                     Consumer<List<T>> batchHandler, Consumer<T> singleHandler, int maxSize, long maxWaitMillis,
+                     int maxAttempts, long retryBackoffMillis) {
+        this.name = name;
+        this.destination = destination;
+        this.type = type;
+        this.connectionFactory = connectionFactory;
+        this.messageConverter = messageConverter;
+        this.listenerMetrics = listenerMetrics;
+        this.batchHandler = batchHandler;
+        this.singleHandler = singleHandler;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.batchSize = DistributionSummary.builder("beer.order.listener.batch.size")
+                .description("Messages handled together in one transaction")
+                .tag("listener", name)
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("beer.order.listener.batch.fallbacks")
+                .description("Batches that failed and were retried one message at a time")
+                .tag("listener", name)
+                .register(meterRegistry);
+        this.retries = Counter.builder("beer.order.listener.batch.retries")
+                .description("Messages tried again on their own after failing on their own")
+                .tag("listener", name)
+                .register(meterRegistry);
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try (Connection connection = connectionFactory.createConnection()) {
+                Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+                MessageConsumer consumer = session.createConsumer(session.createQueue(destination));
+                MessageProducer deadLetters = session.createProducer(session.createQueue(JmsConfig.DEAD_LETTER_QUEUE));
+                connection.start();
+                log.debug("Started batch consumer|Listener:{}|MaxSize:{}|MaxWaitMillis:{}", name, maxSize, maxWaitMillis);
+
+                while (running) {
+                    List<Message> messages = receiveBatch(consumer);
+                    if (!messages.isEmpty()) {
+                        consumeBatch(session, deadLetters, messages);
+                    }
+                }
+            } catch (JMSException | RuntimeException e) {
+                if (running) {
+                    log.error("Batch consumer failed, reconnecting|Listener:{}", name, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    private List<Message> receiveBatch(MessageConsumer consumer) throws JMSException {
+        List<Message> messages = new ArrayList<>(maxSize);
+        Message first = consumer.receive(IDLE_RECEIVE_MILLIS);
+        if (first == null) {
+            return messages;
+        }
+        messages.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        while (messages.size() < maxSize) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            Message next = remainingMillis > 0 ? consumer.receive(remainingMillis) : consumer.receiveNoWait();
+            if (next == null) {
+                break;
+            }
+            messages.add(next);
+        }
+        return messages;
+    }
+
+    private void consumeBatch(Session session, MessageProducer deadLetters, List<Message> messages)
+            throws JMSException {
+        List<Message> readable = new ArrayList<>(messages.size());
+        List<T> payloads = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                payloads.add(type.cast(messageConverter.fromMessage(message)));
+                readable.add(message);
+            } catch (JMSException | RuntimeException e) {
+                log.error("Dead-lettering unreadable message|Listener:{}|MessageId:{}", name,
+                        message.getJMSMessageID(), e);
+                deadLetters.send(message);
+            }
+        }
+        batchSize.record(payloads.size());
+
+        if (!payloads.isEmpty()) {
+            try {
+                listenerMetrics.record(name, readable.get(0).getJMSTimestamp(), () -> batchHandler.accept(payloads));
+            } catch (PartiallyAppliedBatchException e) {
+                fallbacks.increment();
+                log.warn("Batch partly failed, retrying the rest one at a time|Listener:{}|Size:{}|Unapplied:{}", name,
+                        payloads.size(), e.getUnapplied().size(), e);
+                consumeOneByOne(deadLetters, readable, payloads, e.getUnapplied());
+            } catch (RuntimeException e) {
+                fallbacks.increment();
+                log.warn("Batch failed, retrying one at a time|Listener:{}|Size:{}", name, payloads.size(), e);
+                consumeOneByOne(deadLetters, readable, payloads, payloads);
+            }
+        }
+        session.commit();
+    }
+
+    private void consumeOneByOne(MessageProducer deadLetters, List<Message> messages, List<T> payloads,
+                                 List<?> unapplied) throws JMSException {
+        // the handler gets our payload instances back, so identity tells which message each one came from
+        Set<Object> retry = Collections.newSetFromMap(new IdentityHashMap<>());
+        retry.addAll(unapplied);
+
+        for (int i = 0; i < payloads.size(); i++) {
+            if (!retry.contains(payloads.get(i))) {
+                continue;
+            }
+            consumeOne(deadLetters, messages.get(i), payloads.get(i));
+        }
+    }
+
+    private void consumeOne(MessageProducer deadLetters, Message message, T payload) throws JMSException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                singleHandler.accept(payload);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Dead-lettering failed message|Listener:{}|MessageId:{}|Attempts:{}", name,
+                            message.getJMSMessageID(), attempt, e);
+                    deadLetters.send(message);
+                    return;
+                }
+                log.warn("Message failed, retrying|Listener:{}|MessageId:{}|Attempt:{}", name,
+                        message.getJMSMessageID(), attempt, e);
+                retries.increment();
+                sleep(retryBackoffMillis);
+            }
+        }
+    }
+
+    private void pause() {
+        sleep(RECOVERY_INTERVAL_MILLIS);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
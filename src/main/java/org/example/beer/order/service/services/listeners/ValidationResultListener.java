@@ -2,10 +2,14 @@ package org.example.beer.order.service.services.listeners;
 
 import org.example.brewery.model.events.ValidateOrderResult;
 import org.example.beer.order.service.config.JmsConfig;
+import org.example.beer.order.service.metrics.JmsListenerMetrics;
 import org.example.beer.order.service.services.BeerOrderManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.support.JmsHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
@@ -13,16 +17,19 @@ import java.util.UUID;
 @Slf4j
 @RequiredArgsConstructor
 @Component
+@ConditionalOnProperty(name = BatchResultListeners.ENABLED_PROPERTY, havingValue = "false", matchIfMissing = true)
 public class ValidationResultListener {
 
     private final BeerOrderManager manager;
+    private final JmsListenerMetrics listenerMetrics;
 
-    @JmsListener(destination = JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE)
-    public void listen(ValidateOrderResult result) {
+    @JmsListener(destination = JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE, concurrency = "${sfg.beer-order.listener.concurrency:1}")
+    public void listen(ValidateOrderResult result, @Header(name = JmsHeaders.TIMESTAMP, required = false) Long sentAt) {
         final UUID beerOrderId = result.getOrderId();
 
         log.info("Validation result|beerId:{}", beerOrderId);
 
-        manager.processValidationResult(beerOrderId, result.getIsValid());
+        listenerMetrics.record("validation-result", sentAt,
+                () -> manager.processValidationResult(beerOrderId, result.getIsValid()));
     }
 }
@@ -0,0 +1,81 @@
+package org.example.beer.order.service.services.loadgen;
+
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.sm.BeerOrderStateMachineConfig;
+import org.example.beer.order.service.sm.BeerOrderTransitionListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Follows the orders {@link TastingRoomLoadGenerator} places through the state machine by their customer reference,
+ * which is known before the order is saved, and records each one's latency when it is allocated or left pending
+ * inventory. Kept apart from the generator so the state machine doesn't depend on the order service through it.
+ */
+@Component
+@ConditionalOnProperty(name = "sfg.beer-order.tasting-room.load.enabled", havingValue = "true")
+public class LoadOrderTracker implements BeerOrderTransitionListener {
+
+    private static final String CUSTOMER_REF_PREFIX = "load-";
+
+    private final Map<String, Long> dueTimes = new ConcurrentHashMap<>();
+    private volatile LoadRun run;
+
+    void begin(LoadRun run) {
+        dueTimes.clear();
+        this.run = run;
+    }
+
+    /**
+     * Stops following orders and returns how many were still in flight.
+     */
+    long end() {
+        run = null;
+        long unfinished = dueTimes.size();
+        dueTimes.clear();
+        return unfinished;
+    }
+
+    /**
+     * Starts following an order due to be placed at {@code dueNanos} and returns the customer reference to place
+     * it with.
+     */
+    String track(long dueNanos) {
+        String customerRef = CUSTOMER_REF_PREFIX + UUID.randomUUID();
+        dueTimes.put(customerRef, dueNanos);
+        return customerRef;
+    }
+
+    void untrack(String customerRef) {
+        dueTimes.remove(customerRef);
+    }
+
+    int inFlight() {
+        return dueTimes.size();
+    }
+
+    @Override
+    public void transitioned(BeerOrder beerOrder, BeerOrderStatusEnum source, BeerOrderEventEnum event,
+                             BeerOrderStatusEnum target, Timestamp sourceEnteredAt) {
+        LoadRun current = run;
+        String customerRef = beerOrder.getCustomerRef();
+        if (current == null || customerRef == null || !customerRef.startsWith(CUSTOMER_REF_PREFIX)) {
+            return;
+        }
+
+        if (target == BeerOrderStatusEnum.ALLOCATED || target == BeerOrderStatusEnum.PENDING_INVENTORY) {
+            Long due = dueTimes.remove(customerRef);
+            if (due != null) {
+                current.completed(target, System.nanoTime() - due);
+            }
+        } else if (BeerOrderStateMachineConfig.END_STATES.contains(target) && dueTimes.remove(customerRef) != null) {
+            current.failed();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.beer.order.service.services.loadgen;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one {@link TastingRoomLoadGenerator} run. {@code elapsed} covers placing the orders, not waiting for
+ * the last ones to finish; orders still on their way when the drain timeout ran out are counted as unfinished.
+ */
+@Value
+@Builder
+public class LoadReport {
+    long ordersPlaced;
+    long allocated;
+    long pendingInventory;
+    long failed;
+    long unfinished;
+    Duration elapsed;
+    Percentiles endToEndMillis;
+    Percentiles placementMillis;
+    String endToEndPercentiles;
+
+    public long completed() {
+        return allocated + pendingInventory;
+    }
+
+    public double achievedOrdersPerSecond() {
+        return ordersPlaced / (elapsed.toNanos() / 1_000_000_000d);
+    }
+
+    public String summary() {
+        return String.format("Placed:%d|Allocated:%d|PendingInventory:%d|Failed:%d|Unfinished:%d|Rate:%.1f/s"
+                        + "|EndToEndMs:%s|PlacementMs:%s", ordersPlaced, allocated, pendingInventory, failed, unfinished,
+                achievedOrdersPerSecond(), endToEndMillis, placementMillis);
+    }
+
+    @Value
+    @Builder
+    public static class Percentiles {
+        double p50;
+        double p90;
+        double p99;
+        double p999;
+        double max;
+
+        @Override
+        public String toString() {
+            return String.format("p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f", p50, p90, p99, p999, max);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.beer.order.service.services.loadgen;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and outcomes of one load run, recorded in microseconds from the threads placing orders and the ones
+ * moving them through the state machine.
+ */
+class LoadRun {
+    private final Histogram endToEnd = new ConcurrentHistogram(3);
+    private final Histogram placement = new ConcurrentHistogram(3);
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong pendingInventory = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    void placed(long latencyNanos) {
+        placement.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    void completed(BeerOrderStatusEnum target, long latencyNanos) {
+        endToEnd.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        (target == BeerOrderStatusEnum.ALLOCATED ? allocated : pendingInventory).incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    LoadReport report(long placed, long elapsedNanos, long unfinished) {
+        return LoadReport.builder()
+                .ordersPlaced(placed)
+                .allocated(allocated.get())
+                .pendingInventory(pendingInventory.get())
+                .failed(failed.get())
+                .unfinished(unfinished)
+                .elapsed(Duration.ofNanos(elapsedNanos))
+                .endToEndMillis(percentiles(endToEnd))
+                .placementMillis(percentiles(placement))
+                .endToEndPercentiles(distribution(endToEnd))
+                .build();
+    }
+
+    private static LoadReport.Percentiles percentiles(Histogram histogram) {
+        return LoadReport.Percentiles.builder()
+                .p50(histogram.getValueAtPercentile(50) / 1000d)
+                .p90(histogram.getValueAtPercentile(90) / 1000d)
+                .p99(histogram.getValueAtPercentile(99) / 1000d)
+                .p999(histogram.getValueAtPercentile(99.9) / 1000d)
+                .max(histogram.getMaxValue() / 1000d)
+                .build();
+    }
+
+    private static String distribution(Histogram histogram) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        histogram.outputPercentileDistribution(new PrintStream(out, true, StandardCharsets.UTF_8), 5, 1000d);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
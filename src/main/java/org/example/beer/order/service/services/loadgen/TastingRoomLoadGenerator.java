@@ -0,0 +1,159 @@
+package org.example.beer.order.service.services.loadgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.bootstrap.BeerOrderBootStrap;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.services.TastingRoomService;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Places tasting room orders at a fixed target rate for a fixed duration and records how long each takes from the
+ * moment it was due to be placed until it is allocated or left pending inventory. Latency is measured from the
+ * scheduled start rather than the actual one, so a backed up service shows up as latency instead of as a lower
+ * rate. Lines per order, the UPC of each line and the quantity ordered are drawn from the configured mixes.
+ * <p>
+ * Enabled with {@code sfg.beer-order.tasting-room.load.enabled}; unless {@code autostart} is off a run starts
+ * once the application is ready and logs its report when it ends.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sfg.beer-order.tasting-room.load.enabled", havingValue = "true")
+public class TastingRoomLoadGenerator {
+
+    private final TastingRoomService tastingRoomService;
+    private final LoadOrderTracker tracker;
+    private final double ordersPerSecond;
+    private final int concurrency;
+    private final Duration duration;
+    private final Duration drainTimeout;
+    private final boolean autostart;
+    private final WeightedChoice<Integer> lineCounts;
+    private final WeightedChoice<String> upcs;
+    private final int maxQuantity;
+
+    public TastingRoomLoadGenerator(TastingRoomService tastingRoomService, LoadOrderTracker tracker,
+                                    @Value("${sfg.beer-order.tasting-room.load.orders-per-second:50}") double ordersPerSecond,
+                                    @Value("${sfg.beer-order.tasting-room.load.concurrency:8}") int concurrency,
+                                    @Value("${sfg.beer-order.tasting-room.load.duration:60s}") Duration duration,
+                                    @Value("${sfg.beer-order.tasting-room.load.drain-timeout:30s}") Duration drainTimeout,
+                                    @Value("${sfg.beer-order.tasting-room.load.autostart:true}") boolean autostart,
+                                    @Value("${sfg.beer-order.tasting-room.load.line-counts:1:60,2:25,5:10,10:5}") String lineCounts,
+                                    @Value("${sfg.beer-order.tasting-room.load.upcs:"
+                                            + BeerOrderBootStrap.BEER_1_UPC + ":50,"
+                                            + BeerOrderBootStrap.BEER_2_UPC + ":30,"
+                                            + BeerOrderBootStrap.BEER_3_UPC + ":20}") String upcs,
+                                    @Value("${sfg.beer-order.tasting-room.load.max-quantity:6}") int maxQuantity) {
+        if (ordersPerSecond <= 0 || concurrency <= 0 || maxQuantity <= 0) {
+            throw new IllegalArgumentException("Load rate, concurrency and max quantity must be positive");
+        }
+        this.tastingRoomService = tastingRoomService;
+        this.tracker = tracker;
+        this.ordersPerSecond = ordersPerSecond;
+        this.concurrency = concurrency;
+        this.duration = duration;
+        this.drainTimeout = drainTimeout;
+        this.autostart = autostart;
+        this.lineCounts = new WeightedChoice<>(lineCounts, Integer::valueOf);
+        this.upcs = new WeightedChoice<>(upcs, upc -> upc);
+        this.maxQuantity = maxQuantity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (autostart) {
+            Thread runner = new Thread(this::run, "tasting-room-load");
+            runner.setDaemon(true);
+            runner.start();
+        }
+    }
+
+    /**
+     * Runs one load test to completion, waiting up to the drain timeout for the last orders to finish, and logs
+     * and returns its report.
+     */
+    public synchronized LoadReport run() {
+        Customer customer = tastingRoomService.findTastingRoomCustomer()
+                .orElseThrow(() -> new IllegalStateException("Tasting room customer not found"));
+
+        long totalOrders = Math.max(1, Math.round(ordersPerSecond * duration.toMillis() / 1000d));
+        long intervalNanos = Math.round(TimeUnit.SECONDS.toNanos(1) / ordersPerSecond);
+        LoadRun current = new LoadRun();
+        tracker.begin(current);
+
+        log.info("Starting tasting room load|OrdersPerSecond:{}|Concurrency:{}|Duration:{}|Orders:{}",
+                ordersPerSecond, concurrency, duration, totalOrders);
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("tasting-room-load-");
+        threadFactory.setDaemon(true);
+        ExecutorService placers = Executors.newFixedThreadPool(concurrency, threadFactory);
+
+        long start = System.nanoTime();
+        long dispatched;
+        try {
+            for (long i = 0; i < totalOrders; i++) {
+                long due = start + i * intervalNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                placers.execute(() -> placeOrder(customer, current, due));
+            }
+
+            dispatched = System.nanoTime();
+
+            placers.shutdown();
+            awaitDrained(placers, dispatched + drainTimeout.toNanos());
+        } finally {
+            placers.shutdownNow();
+        }
+
+        LoadReport report = current.report(totalOrders, dispatched - start, tracker.end());
+        log.info("Tasting room load finished|{}", report.summary());
+        log.info("End to end latency (ms):\n{}", report.getEndToEndPercentiles());
+        return report;
+    }
+
+    private void placeOrder(Customer customer, LoadRun current, long due) {
+        int lineCount = lineCounts.next();
+        List<BeerOrderLineDto> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(TastingRoomService.orderLine(upcs.next(), 1 + ThreadLocalRandom.current().nextInt(maxQuantity)));
+        }
+
+        String customerRef = tracker.track(due);
+        try {
+            tastingRoomService.placeOrder(customer, customerRef, lines);
+            current.placed(System.nanoTime() - due);
+        } catch (RuntimeException e) {
+            tracker.untrack(customerRef);
+            current.failed();
+            log.warn("Load order failed|CustomerRef:{}", customerRef, e);
+        }
+    }
+
+    private void awaitDrained(ExecutorService placers, long deadline) {
+        try {
+            placers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            while (tracker.inFlight() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(50);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
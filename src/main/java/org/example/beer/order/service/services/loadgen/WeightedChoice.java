@@ -0,0 +1,57 @@
+package org.example.beer.order.service.services.loadgen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Picks values at random in proportion to their weights, parsed from a {@code value:weight,value:weight} list
+ * such as {@code 1:60,2:30,10:10}. A value without a weight has weight 1.
+ */
+public class WeightedChoice<T> {
+
+    private final List<T> values = new ArrayList<>();
+    private final long[] cumulativeWeights;
+
+    public WeightedChoice(String spec, Function<String, T> parser) {
+        List<Long> cumulative = new ArrayList<>();
+        long total = 0;
+
+        for (String entry : spec.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            int separator = trimmed.lastIndexOf(':');
+            long weight = separator < 0 ? 1 : Long.parseLong(trimmed.substring(separator + 1).trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight|Entry:" + trimmed);
+            }
+            if (weight == 0) {
+                continue;
+            }
+
+            values.add(parser.apply(separator < 0 ? trimmed : trimmed.substring(0, separator).trim()));
+            total += weight;
+            cumulative.add(total);
+        }
+
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No values with a positive weight|Spec:" + spec);
+        }
+        this.cumulativeWeights = cumulative.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    public T next() {
+        long pick = ThreadLocalRandom.current().nextLong(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = Arrays.binarySearch(cumulativeWeights, pick + 1);
+        return values.get(index >= 0 ? index : -index - 1);
+    }
+
+    public List<T> values() {
+        return values;
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.beer.order.service.services.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.config.NegotiatingMessageConverter;
+import org.example.beer.order.service.domain.OutboxMessage;
+import org.example.beer.order.service.repositories.OutboxMessageRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains the outbox to the JMS queues in batches, oldest first. Each batch is sent and deleted in one transaction;
+ * if a send fails the messages already sent are deleted and the rest wait for the next poll. A crash between send
+ * and commit sends those messages again, so delivery is at least once.
+ * <p>
+ * The pending count and oldest-age gauges report what the last poll saw rather than querying on every scrape. A
+ * poll that reads less than a full batch has seen the whole backlog, so only a failed send in a full batch costs a
+ * count.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private final OutboxMessageRepository repository;
+    private final JmsTemplate jmsTemplate;
+    private final NegotiatingMessageConverter messageConverter;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+    private volatile long pending;
+    private volatile Instant oldestPending;
+
+    public OutboxRelay(OutboxMessageRepository repository, JmsTemplate jmsTemplate,
+                       NegotiatingMessageConverter messageConverter, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                       @Value("${sfg.beer-order.outbox.batch-size:100}") int batchSize) {
+        this.repository = repository;
+        this.jmsTemplate = jmsTemplate;
+        this.messageConverter = messageConverter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sentCounter = Counter.builder("beer.order.outbox.sent")
+                .description("Outbox messages relayed to JMS")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("beer.order.outbox.send.failures")
+                .description("Outbox messages that failed to send and were left for the next poll")
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("beer.order.outbox.lag")
+                .description("Time from an outbox message being written to it being sent")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        Gauge.builder("beer.order.outbox.pending", this, relay -> relay.pending)
+                .description("Outbox messages waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("beer.order.outbox.oldest.age", this, OutboxRelay::oldestAgeSeconds)
+                .description("Age of the oldest outbox message waiting to be sent")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${sfg.beer-order.outbox.poll-interval-millis:100}")
+    public void relay() {
+        Integer sent;
+        do {
+            sent = transactionTemplate.execute(status -> relayBatch());
+        } while (sent != null && sent == batchSize);
+    }
+
+    private int relayBatch() {
+        List<OutboxMessage> batch = repository.findAllByOrderByCreatedDateAsc(PageRequest.of(0, batchSize));
+        List<OutboxMessage> sent = new ArrayList<>(batch.size());
+
+        for (OutboxMessage message : batch) {
+            try {
+                send(message);
+            } catch (JmsException e) {
+                failedCounter.increment();
+                log.error("Outbox send failed|Destination:{}|MessageId:{}", message.getDestination(), message.getId(), e);
+                break;
+            }
+            sent.add(message);
+            lagTimer.record(Duration.between(message.getCreatedDate().toInstant(), Instant.now()));
+        }
+
+        if (!sent.isEmpty()) {
+            repository.deleteAllInBatch(sent);
+            sentCounter.increment(sent.size());
+            log.debug("Relayed outbox messages|Count:{}", sent.size());
+        }
+
+        // a full batch that was all sent is followed by another poll, which updates the gauges
+        if (batch.size() < batchSize || sent.size() < batch.size()) {
+            pending = batch.size() < batchSize ? batch.size() - sent.size() : repository.count();
+            oldestPending = sent.size() < batch.size() ? batch.get(sent.size()).getCreatedDate().toInstant() : null;
+        }
+        return sent.size();
+    }
+
+    private void send(OutboxMessage message) {
+        jmsTemplate.send(message.getDestination(),
+                session -> messageConverter.toMessage(message.getPayload(), message.getPayloadType(), session));
+    }
+
+    private double oldestAgeSeconds() {
+        Instant oldest = oldestPending;
+        return oldest == null ? 0.0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.beer.order.service.services.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.OutboxMessage;
+import org.example.beer.order.service.repositories.OutboxMessageRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Queues a JMS message as part of the caller's transaction; {@link OutboxRelay} sends it once that transaction has
+ * committed, so a message never goes out for an order change that was rolled back, and none is lost for one that
+ * was committed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxMessageRepository repository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String destination, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox message|Destination:" + destination, e);
+        }
+
+        repository.save(OutboxMessage.builder()
+                .destination(destination)
+                .payloadType(payload.getClass().getName())
+                .payload(json)
+                .build());
+
+        log.debug("Queued outbox message|Destination:{}|Type:{}", destination, payload.getClass().getSimpleName());
+    }
+}
@@ -7,6 +7,9 @@ import org.example.beer.order.service.repositories.BeerOrderRepository;
 import org.example.beer.order.service.services.BeerOrderManagerImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.messaging.Message;
 import org.springframework.statemachine.StateMachine;
 import org.springframework.statemachine.state.State;
@@ -15,8 +18,12 @@ import org.springframework.statemachine.transition.Transition;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -24,7 +31,15 @@ import java.util.UUID;
 public class BeerOrderStateChangeInterceptor
         extends StateMachineInterceptorAdapter<BeerOrderStatusEnum, BeerOrderEventEnum> {
 
+    /**
+     * Optional {@link AtomicBoolean} header set when the transition lost a race with a concurrent one.
+     */
+    public static final String STATUS_CONFLICT_HEADER = "STATUS_CONFLICT_HEADER";
+
     private final BeerOrderRepository repository;
+    private final EntityManager entityManager;
+    private final BeerOrderStatusRegistry statusRegistry;
+    private final List<BeerOrderTransitionListener> transitionListeners;
 
     @Transactional
     @Override
@@ -37,12 +52,78 @@ public class BeerOrderStateChangeInterceptor
                 .flatMap(msg ->
                         Optional.ofNullable((String) msg.getHeaders().getOrDefault(BeerOrderManagerImpl.ORDER_ID_HEADER, " ")))
                 .ifPresent(orderId -> {
-                    log.debug("Saving state|order id: {}|status:{}", orderId, state.getId());
+                    UUID id = UUID.fromString(orderId);
+                    BeerOrderStatusEnum expected = transition.getSource().getId();
 
-                    BeerOrder beerOrder = repository.getOne(UUID.fromString(orderId));
-                    beerOrder.setOrderStatus(state.getId());
-                    repository.saveAndFlush(beerOrder);
+                    if (!persistStatus(id, expected, state.getId())) {
+                        // the machine swallows this and stays in the source state, the engine reads the header
+                        Optional.ofNullable(message.getHeaders().get(STATUS_CONFLICT_HEADER, AtomicBoolean.class))
+                                .ifPresent(conflict -> conflict.set(true));
+                        throw statusConflict(id, expected);
+                    }
                 });
     }
 
+    /**
+     * Moves the order's status from {@code expected} to {@code target} with a single conditional update and wakes
+     * anyone waiting on it. Shared with {@link CompiledStateMachineEngine} so both engines persist transitions the
+     * same way.
+     *
+     * @return false if the order was no longer in {@code expected}, i.e. a concurrent transition won
+     */
+    @Transactional
+    public boolean persistStatus(UUID orderId, BeerOrderStatusEnum expected, BeerOrderStatusEnum target) {
+        log.debug("Saving state|order id: {}|status:{}->{}", orderId, expected, target);
+
+        if (repository.compareAndSetStatus(orderId, expected, target) == 0) {
+            log.debug("Lost status race|OrderId:{}|Expected:{}|Target:{}", orderId, expected, target);
+            return false;
+        }
+
+        statusRegistry.statusChanged(orderId, target);
+        return true;
+    }
+
+    /**
+     * Brings the caller's copy of the order in line with a transition {@link #persistStatus} has written and tells
+     * the {@link BeerOrderTransitionListener}s about it. A managed copy is evicted and reattached around the change,
+     * so the persistence context takes the written status and version as loaded state without reading the row
+     * back, and the next flush doesn't write them again against the old version.
+     */
+    void applyTransition(BeerOrder beerOrder, BeerOrderStatusEnum source, BeerOrderEventEnum event,
+                         BeerOrderStatusEnum target) {
+        Timestamp sourceEnteredAt = beerOrder.getLastModifiedDate();
+
+        if (entityManager.contains(beerOrder)) {
+            Session session = entityManager.unwrap(Session.class);
+            session.evict(beerOrder);
+            setTransitioned(beerOrder, target);
+            session.buildLockRequest(LockOptions.NONE).lock(beerOrder);
+        } else {
+            setTransitioned(beerOrder, target);
+        }
+
+        for (BeerOrderTransitionListener listener : transitionListeners) {
+            try {
+                listener.transitioned(beerOrder, source, event, target, sourceEnteredAt);
+            } catch (RuntimeException e) {
+                log.warn("Transition listener failed|OrderId:{}|Listener:{}", beerOrder.getId(),
+                        listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private static void setTransitioned(BeerOrder beerOrder, BeerOrderStatusEnum target) {
+        beerOrder.setOrderStatus(target);
+        beerOrder.setLastModifiedDate(new Timestamp(System.currentTimeMillis()));
+        if (beerOrder.getVersion() != null) {
+            beerOrder.setVersion(beerOrder.getVersion() + 1);
+        }
+    }
+
+    static OptimisticLockingFailureException statusConflict(UUID orderId, BeerOrderStatusEnum expected) {
+        return new OptimisticLockingFailureException("Order status changed concurrently|OrderId:" + orderId
+                + "|Expected:" + expected);
+    }
+
 }
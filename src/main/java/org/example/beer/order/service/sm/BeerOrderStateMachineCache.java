@@ -0,0 +1,175 @@
+package org.example.beer.order.service.sm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of started state machines keyed by order id. The interceptor is registered once when a
+ * machine is created and the machine is only reset when its state no longer matches the persisted status.
+ * Machines are evicted when their order reaches one of {@link BeerOrderStateMachineConfig#END_STATES}.
+ * <p>
+ * A machine is never evicted while a thread is using or waiting for it, so every thread working on an order
+ * locks the same machine. When all cached machines are in use the cache grows past its max size until they
+ * are released.
+ */
+@Slf4j
+@Component
+public class BeerOrderStateMachineCache {
+
+    private final StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory;
+    private final BeerOrderStateChangeInterceptor interceptor;
+    private final int maxSize;
+    private final Map<UUID, Entry> stateMachines = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter resets;
+    private final Counter terminalEvictions;
+    private final Counter sizeEvictions;
+
+    public BeerOrderStateMachineCache(StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory,
+                                      BeerOrderStateChangeInterceptor interceptor,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${sfg.beer-order.state-machine-cache.max-size:1000}") int maxSize) {
+        this.stateMachineFactory = stateMachineFactory;
+        this.interceptor = interceptor;
+        this.maxSize = maxSize;
+
+        this.hits = cacheCounter(meterRegistry, "beer.order.state.machine.cache.requests", "result", "hit");
+        this.misses = cacheCounter(meterRegistry, "beer.order.state.machine.cache.requests", "result", "miss");
+        this.resets = cacheCounter(meterRegistry, "beer.order.state.machine.cache.requests", "result", "reset");
+        this.terminalEvictions = cacheCounter(meterRegistry, "beer.order.state.machine.cache.evictions", "cause", "terminal");
+        this.sizeEvictions = cacheCounter(meterRegistry, "beer.order.state.machine.cache.evictions", "cause", "size");
+        Gauge.builder("beer.order.state.machine.cache.size", this, BeerOrderStateMachineCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the given work against the order's state machine, holding the machine's lock so events for the
+     * same order never interleave. The machine is evicted once released if the order has reached an end state.
+     */
+    public <T> T withStateMachine(BeerOrder beerOrder,
+                                  Function<StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum>, T> work) {
+        Entry entry = acquire(beerOrder.getId());
+        try {
+            return withLock(entry, beerOrder, work);
+        } finally {
+            release(beerOrder.getId(), entry);
+        }
+    }
+
+    private <T> T withLock(Entry entry, BeerOrder beerOrder,
+                           Function<StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum>, T> work) {
+        StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = entry.sm;
+
+        synchronized (sm) {
+            if (sm.getState() == null || sm.getState().getId() != beerOrder.getOrderStatus()) {
+                if (sm.getState() != null) {
+                    log.debug("Resetting state machine|OrderId:{}|Status:{}", beerOrder.getId(), beerOrder.getOrderStatus());
+                    resets.increment();
+                }
+                reset(sm, beerOrder.getOrderStatus());
+            }
+
+            T result = work.apply(sm);
+
+            entry.ended = BeerOrderStateMachineConfig.END_STATES.contains(sm.getState().getId());
+
+            return result;
+        }
+    }
+
+    public synchronized int size() {
+        return stateMachines.size();
+    }
+
+    private synchronized Entry acquire(UUID orderId) {
+        Entry entry = stateMachines.get(orderId);
+
+        if (entry != null) {
+            hits.increment();
+            entry.users++;
+            return entry;
+        }
+
+        misses.increment();
+        StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = stateMachineFactory.getStateMachine(orderId);
+        sm.getStateMachineAccessor().doWithAllRegions(sma -> sma.addStateMachineInterceptor(interceptor));
+        entry = new Entry(sm);
+        entry.users++;
+        stateMachines.put(orderId, entry);
+        evictUnused();
+
+        return entry;
+    }
+
+    private synchronized void release(UUID orderId, Entry entry) {
+        entry.users--;
+        if (entry.users > 0) {
+            return;
+        }
+
+        if (entry.ended && stateMachines.remove(orderId, entry)) {
+            terminalEvictions.increment();
+            entry.sm.stopReactively().block();
+        }
+        evictUnused();
+    }
+
+    /**
+     * Evicts and stops least recently used machines no thread holds until the cache is back to its max size.
+     */
+    private void evictUnused() {
+        Iterator<Entry> entries = stateMachines.values().iterator();
+        while (stateMachines.size() > maxSize && entries.hasNext()) {
+            Entry entry = entries.next();
+            if (entry.users == 0) {
+                entries.remove();
+                sizeEvictions.increment();
+                entry.sm.stopReactively().block();
+            }
+        }
+    }
+
+    private void reset(StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm, BeerOrderStatusEnum status) {
+        sm.stopReactively().block();
+
+        sm.getStateMachineAccessor().doWithAllRegions(sma ->
+                sma.resetStateMachineReactively(new DefaultStateMachineContext<>(status, null, null, null)).block());
+
+        sm.startReactively().block();
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String name, String tag, String value) {
+        return Counter.builder(name).tag(tag, value).register(meterRegistry);
+    }
+
+    /**
+     * A cached machine and the number of threads using or waiting for it, guarded by the cache's lock.
+     */
+    private static class Entry {
+        private final StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm;
+        private int users;
+        private volatile boolean ended;
+
+        private Entry(StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm) {
+            this.sm = sm;
+        }
+    }
+}
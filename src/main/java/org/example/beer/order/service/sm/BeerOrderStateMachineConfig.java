@@ -9,77 +9,86 @@ import org.springframework.statemachine.config.EnableStateMachineFactory;
 import org.springframework.statemachine.config.StateMachineConfigurerAdapter;
 import org.springframework.statemachine.config.builders.StateMachineStateConfigurer;
 import org.springframework.statemachine.config.builders.StateMachineTransitionConfigurer;
+import org.springframework.statemachine.config.configurers.ExternalTransitionConfigurer;
+import org.springframework.statemachine.config.configurers.StateConfigurer;
 
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 @RequiredArgsConstructor
 @Configuration
 @EnableStateMachineFactory
 public class BeerOrderStateMachineConfig extends StateMachineConfigurerAdapter<BeerOrderStatusEnum, BeerOrderEventEnum> {
 
+    public static final Set<BeerOrderStatusEnum> END_STATES = Collections.unmodifiableSet(EnumSet.of(
+            BeerOrderStatusEnum.DELIVERED,
+            BeerOrderStatusEnum.PICKED_UP,
+            BeerOrderStatusEnum.DELIVERY_EXCEPTION,
+            BeerOrderStatusEnum.VALIDATION_EXCEPTION,
+            BeerOrderStatusEnum.ALLOCATION_EXCEPTION,
+            BeerOrderStatusEnum.CANCELLED));
+
     private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateOrderAction;
     private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocateOrderAction;
     private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> deallocateOrderAction;
     private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> validationFailureAction;
     private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocationFailureAction;
 
+    /**
+     * The order lifecycle as a (source, event) -> (target, action) table. Both the Spring StateMachine
+     * configuration below and {@link CompiledStateMachineEngine} are built from it.
+     */
+    public List<BeerOrderTransition> transitions() {
+        return List.of(
+                new BeerOrderTransition(BeerOrderStatusEnum.NEW, BeerOrderEventEnum.VALIDATE_ORDER,
+                        BeerOrderStatusEnum.VALIDATION_PENDING, validateOrderAction),
+                new BeerOrderTransition(BeerOrderStatusEnum.VALIDATION_PENDING, BeerOrderEventEnum.VALIDATION_PASSED,
+                        BeerOrderStatusEnum.VALIDATED, null),
+                new BeerOrderTransition(BeerOrderStatusEnum.VALIDATION_PENDING, BeerOrderEventEnum.CANCEL_ORDER,
+                        BeerOrderStatusEnum.CANCELLED, null),
+                new BeerOrderTransition(BeerOrderStatusEnum.VALIDATION_PENDING, BeerOrderEventEnum.VALIDATION_FAILED,
+                        BeerOrderStatusEnum.VALIDATION_EXCEPTION, validationFailureAction),
+                new BeerOrderTransition(BeerOrderStatusEnum.VALIDATED, BeerOrderEventEnum.ALLOCATE_ORDER,
+                        BeerOrderStatusEnum.ALLOCATION_PENDING, allocateOrderAction),
+                new BeerOrderTransition(BeerOrderStatusEnum.VALIDATED, BeerOrderEventEnum.CANCEL_ORDER,
+                        BeerOrderStatusEnum.CANCELLED, null),
+                new BeerOrderTransition(BeerOrderStatusEnum.ALLOCATION_PENDING, BeerOrderEventEnum.ALLOCATION_SUCCESS,
+                        BeerOrderStatusEnum.ALLOCATED, null),
+                new BeerOrderTransition(BeerOrderStatusEnum.ALLOCATION_PENDING, BeerOrderEventEnum.CANCEL_ORDER,
+                        BeerOrderStatusEnum.CANCELLED, null),
+                new BeerOrderTransition(BeerOrderStatusEnum.ALLOCATION_PENDING, BeerOrderEventEnum.ALLOCATION_FAILED,
+                        BeerOrderStatusEnum.ALLOCATION_EXCEPTION, allocationFailureAction),
+                new BeerOrderTransition(BeerOrderStatusEnum.ALLOCATION_PENDING, BeerOrderEventEnum.ALLOCATION_NO_INVENTORY,
+                        BeerOrderStatusEnum.PENDING_INVENTORY, null),
+                new BeerOrderTransition(BeerOrderStatusEnum.PENDING_INVENTORY, BeerOrderEventEnum.ALLOCATE_ORDER,
+                        BeerOrderStatusEnum.ALLOCATION_PENDING, allocateOrderAction),
+                new BeerOrderTransition(BeerOrderStatusEnum.ALLOCATED, BeerOrderEventEnum.BEER_ORDER_PICKED_UP,
+                        BeerOrderStatusEnum.PICKED_UP, null),
+                new BeerOrderTransition(BeerOrderStatusEnum.ALLOCATED, BeerOrderEventEnum.CANCEL_ORDER,
+                        BeerOrderStatusEnum.CANCELLED, deallocateOrderAction));
+    }
+
     @Override
     public void configure(StateMachineTransitionConfigurer<BeerOrderStatusEnum, BeerOrderEventEnum> transitions) throws Exception {
-        transitions.withExternal()
-                .source(BeerOrderStatusEnum.NEW).target(BeerOrderStatusEnum.VALIDATION_PENDING)
-                .event(BeerOrderEventEnum.VALIDATE_ORDER)
-                .action(validateOrderAction)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.VALIDATION_PENDING).target(BeerOrderStatusEnum.VALIDATED)
-                .event(BeerOrderEventEnum.VALIDATION_PASSED)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.VALIDATION_PENDING).target(BeerOrderStatusEnum.CANCELLED)
-                .event(BeerOrderEventEnum.CANCEL_ORDER)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.VALIDATION_PENDING).target(BeerOrderStatusEnum.VALIDATION_EXCEPTION)
-                .event(BeerOrderEventEnum.VALIDATION_FAILED)
-                .action(validationFailureAction)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.VALIDATED).target(BeerOrderStatusEnum.ALLOCATION_PENDING)
-                .event(BeerOrderEventEnum.ALLOCATE_ORDER)
-                .action(allocateOrderAction)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.VALIDATED).target(BeerOrderStatusEnum.CANCELLED)
-                .event(BeerOrderEventEnum.CANCEL_ORDER)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.ALLOCATION_PENDING).target(BeerOrderStatusEnum.ALLOCATED)
-                .event(BeerOrderEventEnum.ALLOCATION_SUCCESS)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.ALLOCATION_PENDING).target(BeerOrderStatusEnum.CANCELLED)
-                .event(BeerOrderEventEnum.CANCEL_ORDER)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.ALLOCATION_PENDING).target(BeerOrderStatusEnum.ALLOCATION_EXCEPTION)
-                .event(BeerOrderEventEnum.ALLOCATION_FAILED)
-                .action(allocationFailureAction)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.ALLOCATION_PENDING).target(BeerOrderStatusEnum.PENDING_INVENTORY)
-                .event(BeerOrderEventEnum.ALLOCATION_NO_INVENTORY)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.ALLOCATED).target(BeerOrderStatusEnum.PICKED_UP)
-                .event(BeerOrderEventEnum.BEER_ORDER_PICKED_UP)
-            .and().withExternal()
-                .source(BeerOrderStatusEnum.ALLOCATED).target(BeerOrderStatusEnum.CANCELLED)
-                .event(BeerOrderEventEnum.CANCEL_ORDER)
-                .action(deallocateOrderAction);
+        for (BeerOrderTransition transition : transitions()) {
+            ExternalTransitionConfigurer<BeerOrderStatusEnum, BeerOrderEventEnum> external = transitions.withExternal()
+                    .source(transition.getSource()).target(transition.getTarget())
+                    .event(transition.getEvent());
+
+            if (transition.getAction() != null) {
+                external.action(transition.getAction());
+            }
+        }
     }
 
     @Override
     public void configure(StateMachineStateConfigurer<BeerOrderStatusEnum, BeerOrderEventEnum> states) throws Exception {
-        states.withStates()
+        StateConfigurer<BeerOrderStatusEnum, BeerOrderEventEnum> stateConfigurer = states.withStates()
                 .initial(BeerOrderStatusEnum.NEW)
-                .states(EnumSet.allOf(BeerOrderStatusEnum.class))
-                .end(BeerOrderStatusEnum.DELIVERED)
-                .end(BeerOrderStatusEnum.PICKED_UP)
-                .end(BeerOrderStatusEnum.DELIVERY_EXCEPTION)
-                .end(BeerOrderStatusEnum.VALIDATION_EXCEPTION)
-                .end(BeerOrderStatusEnum.ALLOCATION_EXCEPTION)
-                .end(BeerOrderStatusEnum.CANCELLED);
-
+                .states(EnumSet.allOf(BeerOrderStatusEnum.class));
 
+        END_STATES.forEach(stateConfigurer::end);
     }
 }
@@ -0,0 +1,20 @@
+package org.example.beer.order.service.sm;
+
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+
+/**
+ * Applies lifecycle events to orders. The implementation is selected with {@code sfg.beer-order.state-machine.engine}.
+ */
+public interface BeerOrderStateMachineEngine {
+    String ENGINE_PROPERTY = "sfg.beer-order.state-machine.engine";
+
+    /**
+     * Applies the event and, if accepted, updates the given order's status to match what was persisted.
+     *
+     * @return true if the event was accepted in the order's current status
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the order's status changed concurrently,
+     *                                                                   so the caller's transaction must roll back
+     */
+    boolean sendEvent(BeerOrder beerOrder, BeerOrderEventEnum eventEnum);
+}
@@ -0,0 +1,99 @@
+package org.example.beer.order.service.sm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Lets callers wait for an order to reach a given status without polling the database.
+ * Waiters are completed by {@link BeerOrderStateChangeInterceptor} as soon as the new status has been written.
+ */
+@Slf4j
+@Component
+public class BeerOrderStatusRegistry {
+
+    private final ConcurrentMap<WaiterKey, CompletableFuture<BeerOrderStatusEnum>> waiters = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final Timer reachedTimer;
+    private final Timer timedOutTimer;
+
+    public BeerOrderStatusRegistry(MeterRegistry meterRegistry,
+                                   @Value("${sfg.beer-order.status-await-timeout:1s}") Duration timeout) {
+        this.timeout = timeout;
+        this.reachedTimer = Timer.builder("beer.order.status.wait")
+                .description("Time spent waiting for an order to reach an expected status")
+                .tag("outcome", "reached")
+                .register(meterRegistry);
+        this.timedOutTimer = Timer.builder("beer.order.status.wait")
+                .description("Time spent waiting for an order to reach an expected status")
+                .tag("outcome", "timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers interest in the order reaching the given status. Must be called before the event that
+     * causes the transition is sent, otherwise the notification may be missed.
+     */
+    public CompletableFuture<BeerOrderStatusEnum> expect(UUID orderId, BeerOrderStatusEnum status) {
+        return waiters.computeIfAbsent(new WaiterKey(orderId, status), key -> new CompletableFuture<>());
+    }
+
+    /**
+     * Blocks until the expected status is reached or the configured timeout elapses.
+     *
+     * @return true if the status was reached
+     */
+    public boolean await(UUID orderId, BeerOrderStatusEnum status,
+                         CompletableFuture<BeerOrderStatusEnum> waiter) {
+        long start = System.nanoTime();
+
+        try {
+            waiter.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            reachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            log.debug("Timed out waiting for status|OrderId:{}|Expected:{}", orderId, status);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Error waiting for status|OrderId:{}", orderId, e);
+        }
+
+        cancel(orderId, status, waiter);
+        timedOutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return false;
+    }
+
+    public void cancel(UUID orderId, BeerOrderStatusEnum status, CompletableFuture<BeerOrderStatusEnum> waiter) {
+        waiters.remove(new WaiterKey(orderId, status), waiter);
+    }
+
+    public void statusChanged(UUID orderId, BeerOrderStatusEnum status) {
+        CompletableFuture<BeerOrderStatusEnum> waiter = waiters.remove(new WaiterKey(orderId, status));
+
+        if (waiter != null) {
+            waiter.complete(status);
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class WaiterKey {
+        private final UUID orderId;
+        private final BeerOrderStatusEnum status;
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.beer.order.service.sm;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.springframework.statemachine.action.Action;
+
+/**
+ * One row of the order lifecycle transition table declared in {@link BeerOrderStateMachineConfig}.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BeerOrderTransition {
+    private final BeerOrderStatusEnum source;
+    private final BeerOrderEventEnum event;
+    private final BeerOrderStatusEnum target;
+    private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> action;
+}
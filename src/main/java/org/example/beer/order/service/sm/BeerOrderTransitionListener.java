@@ -0,0 +1,21 @@
+package org.example.beer.order.service.sm;
+
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+
+import java.sql.Timestamp;
+
+/**
+ * Told about every transition either engine has persisted, on the thread and inside the transaction that made it,
+ * so the transition can still roll back afterwards. Called on the event hot path: implementations must not block.
+ */
+public interface BeerOrderTransitionListener {
+
+    /**
+     * @param beerOrder       the order, already moved to {@code target}
+     * @param sourceEnteredAt when the order entered {@code source}, taken from its last modified date; may be null
+     */
+    void transitioned(BeerOrder beerOrder, BeerOrderStatusEnum source, BeerOrderEventEnum event,
+                      BeerOrderStatusEnum target, Timestamp sourceEnteredAt);
+}
@@ -0,0 +1,109 @@
+package org.example.beer.order.service.sm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.services.BeerOrderManagerImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateContext;
+import org.springframework.statemachine.action.Action;
+import org.springframework.statemachine.state.ObjectState;
+import org.springframework.statemachine.state.State;
+import org.springframework.statemachine.support.DefaultStateContext;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatches events through a transition table compiled once from {@link BeerOrderStateMachineConfig#transitions()}.
+ * Lookups are two enum indexed array reads and the transition runs synchronously on the caller's thread: the action
+ * executes first, a failing action rejects the event, otherwise the new status is persisted through
+ * {@link BeerOrderStateChangeInterceptor#persistStatus} and a lost race is thrown. For this flat, guard-free
+ * configuration that is what the Spring engine does, without any reactive plumbing or per-order machine instances.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = BeerOrderStateMachineEngine.ENGINE_PROPERTY, havingValue = "compiled")
+public class CompiledStateMachineEngine implements BeerOrderStateMachineEngine {
+
+    private final Map<BeerOrderStatusEnum, EnumMap<BeerOrderEventEnum, CompiledTransition>> table;
+    private final BeerOrderStateChangeInterceptor interceptor;
+
+    public CompiledStateMachineEngine(BeerOrderStateMachineConfig config, BeerOrderStateChangeInterceptor interceptor) {
+        this.table = compile(config.transitions());
+        this.interceptor = interceptor;
+    }
+
+    @Override
+    public boolean sendEvent(BeerOrder beerOrder, BeerOrderEventEnum eventEnum) {
+        EnumMap<BeerOrderEventEnum, CompiledTransition> byEvent = table.get(beerOrder.getOrderStatus());
+        CompiledTransition transition = byEvent == null ? null : byEvent.get(eventEnum);
+
+        if (transition == null) {
+            log.debug("No transition|OrderId:{}|Status:{}|Event:{}", beerOrder.getId(), beerOrder.getOrderStatus(), eventEnum);
+            return false;
+        }
+
+        if (transition.action != null) {
+            Message<BeerOrderEventEnum> message = MessageBuilder.withPayload(eventEnum)
+                    .setHeader(BeerOrderManagerImpl.ORDER_ID_HEADER, beerOrder.getId().toString()).build();
+            StateContext<BeerOrderStatusEnum, BeerOrderEventEnum> context = new DefaultStateContext<>(
+                    StateContext.Stage.TRANSITION, message, message.getHeaders(), null, null, null,
+                    transition.source, transition.target, null);
+
+            try {
+                transition.action.execute(context);
+            } catch (Exception e) {
+                log.error("Action failed|OrderId:{}|Event:{}", beerOrder.getId(), eventEnum, e);
+                return false;
+            }
+        }
+
+        if (!interceptor.persistStatus(beerOrder.getId(), transition.source.getId(), transition.target.getId())) {
+            throw BeerOrderStateChangeInterceptor.statusConflict(beerOrder.getId(), transition.source.getId());
+        }
+
+        interceptor.applyTransition(beerOrder, transition.source.getId(), eventEnum, transition.target.getId());
+        return true;
+    }
+
+    private static Map<BeerOrderStatusEnum, EnumMap<BeerOrderEventEnum, CompiledTransition>> compile(
+            List<BeerOrderTransition> transitions) {
+        Map<BeerOrderStatusEnum, State<BeerOrderStatusEnum, BeerOrderEventEnum>> states = new EnumMap<>(BeerOrderStatusEnum.class);
+        for (BeerOrderStatusEnum status : BeerOrderStatusEnum.values()) {
+            states.put(status, new ObjectState<>(status));
+        }
+
+        Map<BeerOrderStatusEnum, EnumMap<BeerOrderEventEnum, CompiledTransition>> table = new EnumMap<>(BeerOrderStatusEnum.class);
+        for (BeerOrderTransition transition : transitions) {
+            CompiledTransition previous = table.computeIfAbsent(transition.getSource(), s -> new EnumMap<>(BeerOrderEventEnum.class))
+                    .put(transition.getEvent(), new CompiledTransition(states.get(transition.getSource()),
+                            states.get(transition.getTarget()), transition));
+
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate transition for " + transition.getSource() + "/" + transition.getEvent());
+            }
+        }
+
+        return table;
+    }
+
+    private static class CompiledTransition {
+        private final State<BeerOrderStatusEnum, BeerOrderEventEnum> source;
+        private final State<BeerOrderStatusEnum, BeerOrderEventEnum> target;
+        private final Action<BeerOrderStatusEnum, BeerOrderEventEnum> action;
+
+        private CompiledTransition(State<BeerOrderStatusEnum, BeerOrderEventEnum> source,
+                                   State<BeerOrderStatusEnum, BeerOrderEventEnum> target,
+                                   BeerOrderTransition transition) {
+            this.source = source;
+            this.target = target;
+            this.action = transition.getAction();
+        }
+    }
+}
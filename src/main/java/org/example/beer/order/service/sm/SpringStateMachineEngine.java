@@ -0,0 +1,52 @@
+package org.example.beer.order.service.sm;
+
+import lombok.RequiredArgsConstructor;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.services.BeerOrderManagerImpl;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateMachineEventResult;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs events through Spring StateMachine instances kept in {@link BeerOrderStateMachineCache}. The machine can't
+ * be told a transition was vetoed by the interceptor, so a lost status race comes back through a header instead.
+ */
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = BeerOrderStateMachineEngine.ENGINE_PROPERTY, havingValue = "spring", matchIfMissing = true)
+public class SpringStateMachineEngine implements BeerOrderStateMachineEngine {
+
+    private final BeerOrderStateMachineCache stateMachineCache;
+    private final BeerOrderStateChangeInterceptor interceptor;
+
+    @Override
+    public boolean sendEvent(BeerOrder beerOrder, BeerOrderEventEnum eventEnum) {
+        AtomicBoolean conflict = new AtomicBoolean();
+        Message<BeerOrderEventEnum> message = MessageBuilder.withPayload(eventEnum)
+                .setHeader(BeerOrderManagerImpl.ORDER_ID_HEADER, beerOrder.getId().toString())
+                .setHeader(BeerOrderStateChangeInterceptor.STATUS_CONFLICT_HEADER, conflict).build();
+        BeerOrderStatusEnum expected = beerOrder.getOrderStatus();
+
+        boolean accepted = stateMachineCache.withStateMachine(beerOrder, sm -> {
+            StateMachineEventResult<BeerOrderStatusEnum, BeerOrderEventEnum> result = sm.sendEvent(Mono.just(message)).blockLast();
+
+            if (result == null || result.getResultType() != StateMachineEventResult.ResultType.ACCEPTED || conflict.get()) {
+                return false;
+            }
+            interceptor.applyTransition(beerOrder, expected, eventEnum, sm.getState().getId());
+            return true;
+        });
+
+        if (conflict.get()) {
+            throw BeerOrderStateChangeInterceptor.statusConflict(beerOrder.getId(), expected);
+        }
+        return accepted;
+    }
+}
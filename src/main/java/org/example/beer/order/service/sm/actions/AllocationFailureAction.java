@@ -4,10 +4,10 @@ import org.example.beer.order.service.config.JmsConfig;
 import org.example.beer.order.service.domain.BeerOrderEventEnum;
 import org.example.beer.order.service.domain.BeerOrderStatusEnum;
 import org.example.beer.order.service.services.BeerOrderManagerImpl;
+import org.example.beer.order.service.services.outbox.OutboxService;
 import org.example.brewery.model.events.AllocationFailureEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jms.core.JmsTemplate;
 import org.springframework.statemachine.StateContext;
 import org.springframework.statemachine.action.Action;
 import org.springframework.stereotype.Component;
@@ -19,13 +19,13 @@ import java.util.UUID;
 @Component
 public class AllocationFailureAction implements Action<BeerOrderStatusEnum, BeerOrderEventEnum> {
 
-    private final JmsTemplate jmsTemplate;
+    private final OutboxService outboxService;
 
     @Override
     public void execute(StateContext<BeerOrderStatusEnum, BeerOrderEventEnum> context) {
         String beerOrderId = (String) context.getMessage().getHeaders().get(BeerOrderManagerImpl.ORDER_ID_HEADER);
 
-        jmsTemplate.convertAndSend(JmsConfig.ALLOCATION_FAILURE_QUEUE, AllocationFailureEvent.builder()
+        outboxService.enqueue(JmsConfig.ALLOCATION_FAILURE_QUEUE, AllocationFailureEvent.builder()
                 .orderId(UUID.fromString(beerOrderId))
                 .build());
 
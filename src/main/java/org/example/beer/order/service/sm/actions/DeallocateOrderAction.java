@@ -6,11 +6,11 @@ import org.example.beer.order.service.domain.BeerOrderEventEnum;
 import org.example.beer.order.service.domain.BeerOrderStatusEnum;
 import org.example.beer.order.service.repositories.BeerOrderRepository;
 import org.example.beer.order.service.services.BeerOrderManagerImpl;
-import org.example.beer.order.service.web.mappers.BeerOrderMapper;
+import org.example.beer.order.service.services.outbox.OutboxService;
+import org.example.beer.order.service.web.mappers.UnenrichedBeerOrderMapper;
 import org.example.brewery.model.events.DeallocateOrderRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jms.core.JmsTemplate;
 import org.springframework.statemachine.StateContext;
 import org.springframework.statemachine.action.Action;
 import org.springframework.stereotype.Component;
@@ -24,8 +24,8 @@ import java.util.UUID;
 public class DeallocateOrderAction implements Action<BeerOrderStatusEnum, BeerOrderEventEnum> {
 
     private final BeerOrderRepository repository;
-    private final JmsTemplate jmsTemplate;
-    private final BeerOrderMapper mapper;
+    private final OutboxService outboxService;
+    private final UnenrichedBeerOrderMapper mapper;
 
     @Override
     public void execute(StateContext<BeerOrderStatusEnum, BeerOrderEventEnum> context) {
@@ -33,7 +33,7 @@ public class DeallocateOrderAction implements Action<BeerOrderStatusEnum, BeerOr
         Optional<BeerOrder> beerOrderOptional = repository.findById(UUID.fromString(beerOrderId));
 
         beerOrderOptional.ifPresentOrElse(beerOrder -> {
-            jmsTemplate.convertAndSend(JmsConfig.DEALLOCATE_ORDER_QUEUE,
+            outboxService.enqueue(JmsConfig.DEALLOCATE_ORDER_QUEUE,
                     DeallocateOrderRequest.builder()
                             .beerOrderDto(mapper.beerOrderToDto(beerOrder))
                             .build());
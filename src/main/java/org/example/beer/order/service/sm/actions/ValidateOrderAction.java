@@ -7,10 +7,10 @@ import org.example.beer.order.service.domain.BeerOrderEventEnum;
 import org.example.beer.order.service.domain.BeerOrderStatusEnum;
 import org.example.beer.order.service.repositories.BeerOrderRepository;
 import org.example.beer.order.service.services.BeerOrderManagerImpl;
-import org.example.beer.order.service.web.mappers.BeerOrderMapper;
+import org.example.beer.order.service.services.outbox.OutboxService;
+import org.example.beer.order.service.web.mappers.UnenrichedBeerOrderMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.jms.core.JmsTemplate;
 import org.springframework.statemachine.StateContext;
 import org.springframework.statemachine.action.Action;
 import org.springframework.stereotype.Component;
@@ -24,20 +24,26 @@ import java.util.UUID;
 public class ValidateOrderAction implements Action<BeerOrderStatusEnum, BeerOrderEventEnum> {
 
     private final BeerOrderRepository repository;
-    private final BeerOrderMapper mapper;
-    private final JmsTemplate jmsTemplate;
+    private final UnenrichedBeerOrderMapper mapper;
+    private final OutboxService outboxService;
 
     @Override
     public void execute(StateContext<BeerOrderStatusEnum, BeerOrderEventEnum> context) {
         String beerOrderId = (String) context.getMessage().getHeaders().get(BeerOrderManagerImpl.ORDER_ID_HEADER);
         Optional<BeerOrder> beerOrderOptional = repository.findById(UUID.fromString(beerOrderId));
 
-        beerOrderOptional.ifPresentOrElse(beerOrder -> {
-            jmsTemplate.convertAndSend(JmsConfig.VALIDATE_ORDER_QUEUE, ValidateOrderRequest.builder()
-                    .beerOrder(mapper.beerOrderToDto(beerOrder))
-                    .build());
-        },() ->log.error("Order Not Found|OrderId:{}", beerOrderId));
+        beerOrderOptional.ifPresentOrElse(this::sendValidationRequest,
+                () -> log.error("Order Not Found|OrderId:{}", beerOrderId));
+    }
+
+    /**
+     * Queues a validation request for the order in the caller's transaction; also used to retry one that timed out.
+     */
+    public void sendValidationRequest(BeerOrder beerOrder) {
+        outboxService.enqueue(JmsConfig.VALIDATE_ORDER_QUEUE, ValidateOrderRequest.builder()
+                .beerOrder(mapper.beerOrderToDto(beerOrder))
+                .build());
 
-        log.debug("Sent validation request to queue| order_id:{}", beerOrderId);
+        log.debug("Sent validation request to queue| order_id:{}", beerOrder.getId());
     }
 }
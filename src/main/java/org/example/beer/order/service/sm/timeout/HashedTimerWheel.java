@@ -0,0 +1,166 @@
+package org.example.beer.order.service.sm.timeout;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timer wheel: a ring of buckets, one per tick, where a timeout due in {@code n} ticks goes in bucket
+ * {@code (now + n) % size} with {@code n / size} full turns left to wait. Scheduling and cancelling are O(1) and
+ * only the current bucket is looked at on each tick, so thousands of timeouts that are nearly always cancelled cost
+ * almost nothing. Timeouts fire up to one tick late.
+ * <p>
+ * One daemon thread owns the buckets. New timeouts are handed to it through a queue and cancelled ones are only
+ * flagged and dropped when their bucket comes round. Expired tasks run on the given executor, not the wheel thread.
+ */
+@Slf4j
+public class HashedTimerWheel {
+
+    private final long tickNanos;
+    private final Queue<Timeout>[] buckets;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Executor executor;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean stopped;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(String name, Duration tick, int wheelSize, Executor executor) {
+        if (tick.toNanos() <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Timer wheel tick and size must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickNanos = tick.toNanos();
+        this.buckets = new Queue[Math.max(size, 1)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.mask = buckets.length - 1;
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, Duration delay) {
+        if (stopped) {
+            throw new IllegalStateException("Timer wheel stopped");
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() - startNanos + Math.max(delay.toNanos(), 0));
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Timeouts scheduled and neither expired nor cancelled.
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            long sleepNanos = (tick + 1) * tickNanos - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            transferAdded(tick);
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferAdded(long currentTick) {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                continue;
+            }
+            // already due ones go in the current bucket rather than one that has gone by
+            long dueTick = Math.max(timeout.deadlineNanos / tickNanos, currentTick);
+            timeout.remainingRounds = (dueTick - currentTick) / buckets.length;
+            buckets[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket) {
+        Iterator<Timeout> timeouts = bucket.iterator();
+        while (timeouts.hasNext()) {
+            Timeout timeout = timeouts.next();
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                timeouts.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                timeouts.remove();
+                if (timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+                    pending.decrementAndGet();
+                    run(timeout.task);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    private void run(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            log.error("Timeout task failed", e);
+        }
+    }
+
+    public final class Timeout {
+        private static final int WAITING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        // only touched by the wheel thread
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * @return false if the timeout had already expired or been cancelled
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+}
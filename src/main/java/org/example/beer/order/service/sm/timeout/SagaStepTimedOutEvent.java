@@ -0,0 +1,19 @@
+package org.example.beer.order.service.sm.timeout;
+
+import lombok.Value;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link SagaTimeoutTracker} when an order has waited too long in {@code pendingStatus} for a reply.
+ */
+@Value
+public class SagaStepTimedOutEvent {
+    UUID orderId;
+    BeerOrderStatusEnum pendingStatus;
+    /**
+     * Requests already re-sent for this step, 0 for the original one.
+     */
+    int retries;
+}
@@ -0,0 +1,86 @@
+package org.example.beer.order.service.sm.timeout;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.beer.order.service.sm.actions.AllocateOrderAction;
+import org.example.beer.order.service.sm.actions.ValidateOrderAction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Acts on {@link SagaStepTimedOutEvent}s: re-sends the unanswered request up to {@code max-retries} times, each with
+ * a longer timeout, and then fails the order through {@link BeerOrderManager#sagaStepTimedOut}. Kept apart from
+ * {@link SagaTimeoutTracker} so the state machine doesn't depend on the order manager through it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sfg.beer-order.saga-timeout.enabled", havingValue = "true", matchIfMissing = true)
+public class SagaTimeoutHandler {
+
+    private final SagaTimeoutTracker tracker;
+    private final BeerOrderRepository repository;
+    private final BeerOrderManager manager;
+    private final ValidateOrderAction validateOrderAction;
+    private final AllocateOrderAction allocateOrderAction;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxRetries;
+
+    public SagaTimeoutHandler(SagaTimeoutTracker tracker, BeerOrderRepository repository, BeerOrderManager manager,
+                              ValidateOrderAction validateOrderAction, AllocateOrderAction allocateOrderAction,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${sfg.beer-order.saga-timeout.max-retries:2}") int maxRetries) {
+        this.tracker = tracker;
+        this.repository = repository;
+        this.manager = manager;
+        this.validateOrderAction = validateOrderAction;
+        this.allocateOrderAction = allocateOrderAction;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxRetries = maxRetries;
+    }
+
+    @EventListener
+    public void onTimeout(SagaStepTimedOutEvent event) {
+        BeerOrderStatusEnum pendingStatus = event.getPendingStatus();
+
+        if (event.getRetries() < maxRetries) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> resend(event)))) {
+                tracker.rearm(event.getOrderId(), pendingStatus, event.getRetries() + 1);
+                count(pendingStatus, "retried");
+                log.info("Re-sent unanswered request|OrderId:{}|Status:{}|Retry:{}", event.getOrderId(),
+                        pendingStatus, event.getRetries() + 1);
+            }
+            return;
+        }
+
+        manager.sagaStepTimedOut(event.getOrderId(), pendingStatus);
+        count(pendingStatus, "expired");
+    }
+
+    private boolean resend(SagaStepTimedOutEvent event) {
+        return repository.findById(event.getOrderId())
+                .filter(beerOrder -> beerOrder.getOrderStatus() == event.getPendingStatus())
+                .map(beerOrder -> {
+                    if (event.getPendingStatus() == BeerOrderStatusEnum.VALIDATION_PENDING) {
+                        validateOrderAction.sendValidationRequest(beerOrder);
+                    } else {
+                        allocateOrderAction.sendAllocationRequest(beerOrder);
+                    }
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private void count(BeerOrderStatusEnum pendingStatus, String outcome) {
+        meterRegistry.counter("beer.order.saga.timeouts", "status", pendingStatus.name(), "outcome", outcome)
+                .increment();
+    }
+}
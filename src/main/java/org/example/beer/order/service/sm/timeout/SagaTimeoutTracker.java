@@ -0,0 +1,160 @@
+package org.example.beer.order.service.sm.timeout;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.sm.BeerOrderTransitionListener;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arms a timeout on a {@link HashedTimerWheel} whenever an order enters a status in which it waits for a reply to the
+ * request its transition's action has just sent ({@code VALIDATION_PENDING}, {@code ALLOCATION_PENDING}), and disarms
+ * it when the order leaves that status, so unanswered requests are noticed without scanning the order table. Both
+ * happen once the transition has committed. An expired timeout publishes a {@link SagaStepTimedOutEvent}. On startup
+ * the wheel is rebuilt from one query of the orders already waiting, counting the time they have waited so far.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sfg.beer-order.saga-timeout.enabled", havingValue = "true", matchIfMissing = true)
+public class SagaTimeoutTracker implements BeerOrderTransitionListener {
+
+    private final BeerOrderRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<BeerOrderStatusEnum, Duration> timeouts = new EnumMap<>(BeerOrderStatusEnum.class);
+    private final double backoffMultiplier;
+    private final HashedTimerWheel wheel;
+    private final Map<UUID, Armed> armed = new ConcurrentHashMap<>();
+
+    public SagaTimeoutTracker(BeerOrderRepository repository, ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry, @Qualifier("taskExecutor") TaskExecutor taskExecutor,
+                              @Value("${sfg.beer-order.saga-timeout.validation:30s}") Duration validationTimeout,
+                              @Value("${sfg.beer-order.saga-timeout.allocation:30s}") Duration allocationTimeout,
+                              @Value("${sfg.beer-order.saga-timeout.backoff-multiplier:2}") double backoffMultiplier,
+                              @Value("${sfg.beer-order.saga-timeout.tick:100ms}") Duration tick,
+                              @Value("${sfg.beer-order.saga-timeout.wheel-size:512}") int wheelSize) {
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.timeouts.put(BeerOrderStatusEnum.VALIDATION_PENDING, validationTimeout);
+        this.timeouts.put(BeerOrderStatusEnum.ALLOCATION_PENDING, allocationTimeout);
+        this.backoffMultiplier = backoffMultiplier;
+        this.wheel = new HashedTimerWheel("saga-timeouts", tick, wheelSize, taskExecutor);
+
+        Gauge.builder("beer.order.saga.timeouts.armed", wheel, HashedTimerWheel::pending)
+                .description("Orders waiting on a reply with a timeout armed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void transitioned(BeerOrder beerOrder, BeerOrderStatusEnum source, BeerOrderEventEnum event,
+                             BeerOrderStatusEnum target, Timestamp sourceEnteredAt) {
+        UUID orderId = beerOrder.getId();
+        Runnable change;
+        if (timeouts.containsKey(target)) {
+            change = () -> arm(orderId, target, 0, timeout(target, 0));
+        } else if (timeouts.containsKey(source)) {
+            change = () -> disarm(orderId);
+        } else {
+            return;
+        }
+
+        // a rolled back transition leaves the order waiting in its old status, so its timeout must stay armed
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * Arms the timeout for a request re-sent after {@code retries} earlier ones timed out, backing off each time.
+     */
+    public void rearm(UUID orderId, BeerOrderStatusEnum pendingStatus, int retries) {
+        arm(orderId, pendingStatus, retries, timeout(pendingStatus, retries));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<BeerOrderRepository.OrderStatusView> waiting = repository.findStatusViewsByOrderStatusIn(timeouts.keySet());
+        Instant now = Instant.now();
+
+        for (BeerOrderRepository.OrderStatusView order : waiting) {
+            Duration waited = order.getLastModifiedDate() == null ? Duration.ZERO
+                    : Duration.between(order.getLastModifiedDate().toInstant(), now);
+            arm(order.getId(), order.getOrderStatus(), 0, timeout(order.getOrderStatus(), 0).minus(waited));
+        }
+
+        log.info("Rebuilt saga timeouts|Orders:{}", waiting.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+    }
+
+    private void arm(UUID orderId, BeerOrderStatusEnum pendingStatus, int retries, Duration delay) {
+        SagaStepTimedOutEvent timedOut = new SagaStepTimedOutEvent(orderId, pendingStatus, retries);
+        Armed current = new Armed();
+
+        // in the map before it is scheduled, so even a zero delay finds it there
+        Armed previous = armed.put(orderId, current);
+        if (previous != null) {
+            previous.cancel();
+        }
+        current.timeout = wheel.schedule(() -> {
+            // a later arm or disarm may already have replaced this one
+            if (armed.remove(orderId, current)) {
+                eventPublisher.publishEvent(timedOut);
+            }
+        }, delay);
+    }
+
+    private void disarm(UUID orderId) {
+        Armed current = armed.remove(orderId);
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private Duration timeout(BeerOrderStatusEnum pendingStatus, int retries) {
+        return Duration.ofNanos((long) (timeouts.get(pendingStatus).toNanos() * Math.pow(backoffMultiplier, retries)));
+    }
+
+    private static class Armed {
+        private volatile HashedTimerWheel.Timeout timeout;
+
+        private void cancel() {
+            HashedTimerWheel.Timeout scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package org.example.beer.order.service.web.controllers;
 
 import org.example.beer.order.service.services.BeerOrderService;
+import org.example.beer.order.service.services.ETags;
+import org.example.beer.order.service.services.events.OrderStatusEvents;
 import org.example.brewery.model.BeerOrderDto;
 import org.example.brewery.model.BeerOrderPagedList;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.UUID;
 
+/**
+ * Orders and order lists carry a strong {@code ETag} made from order versions (see {@link ETags}). A request with
+ * {@code If-None-Match} is first checked against a version-only query and, while that still matches, gets a 304
+ * before any order is loaded, mapped or enriched. Otherwise the tag is made from the body that is sent, so a request
+ * without {@code If-None-Match} costs no extra query.
+ */
 @RequestMapping("/api/v1/customers/{customerId}")
 @RestController
 public class BeerOrderController {
@@ -16,15 +27,18 @@ public class BeerOrderController {
     private static final Integer DEFAULT_PAGE_SIZE = 25;
 
     private final BeerOrderService beerOrderService;
+    private final OrderStatusEvents orderStatusEvents;
 
-    public BeerOrderController(BeerOrderService beerOrderService) {
+    public BeerOrderController(BeerOrderService beerOrderService, OrderStatusEvents orderStatusEvents) {
         this.beerOrderService = beerOrderService;
+        this.orderStatusEvents = orderStatusEvents;
     }
 
     @GetMapping("orders")
     public BeerOrderPagedList listOrders(@PathVariable("customerId") UUID customerId,
                                          @RequestParam(value = "pageNumber", required = false) Integer pageNumber,
-                                         @RequestParam(value = "pageSize", required = false) Integer pageSize){
+                                         @RequestParam(value = "pageSize", required = false) Integer pageSize,
+                                         WebRequest webRequest){
         if(pageNumber == null || pageNumber < 0){
             pageNumber = DEFAULT_PAGE_NUMBER;
         }
@@ -33,7 +47,17 @@ public class BeerOrderController {
             pageSize = DEFAULT_PAGE_SIZE;
         }
 
-        return beerOrderService.listOrders(customerId, PageRequest.of(pageNumber, pageSize));
+        PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
+        if (ETags.notModified(webRequest, () -> beerOrderService.listOrdersETag(customerId, pageRequest))) {
+            return null;
+        }
+
+        BeerOrderPagedList beerOrders = beerOrderService.listOrders(customerId, pageRequest);
+        if (beerOrders != null && webRequest.checkNotModified(ETags.ofPage(beerOrders.getContent(),
+                BeerOrderDto::getId, BeerOrderDto::getVersion, beerOrders.getTotalElements()))) {
+            return null;
+        }
+        return beerOrders;
     }
 
     @PostMapping("orders")
@@ -43,8 +67,24 @@ public class BeerOrderController {
     }
 
     @GetMapping("orders/{orderId}")
-    public BeerOrderDto getOrder(@PathVariable("customerId") UUID customerId, @PathVariable("orderId") UUID orderId){
-        return beerOrderService.getOrderById(customerId, orderId);
+    public BeerOrderDto getOrder(@PathVariable("customerId") UUID customerId, @PathVariable("orderId") UUID orderId,
+                                 WebRequest webRequest){
+        if (ETags.notModified(webRequest, () -> beerOrderService.getOrderETag(customerId, orderId))) {
+            return null;
+        }
+
+        BeerOrderDto beerOrder = beerOrderService.getOrderById(customerId, orderId);
+        return webRequest.checkNotModified(ETags.of(beerOrder.getVersion())) ? null : beerOrder;
+    }
+
+    @GetMapping(value = "orders/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter orderEvents(@PathVariable("customerId") UUID customerId){
+        return orderStatusEvents.subscribeToCustomer(customerId);
+    }
+
+    @GetMapping(value = "orders/{orderId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter orderEvents(@PathVariable("customerId") UUID customerId, @PathVariable("orderId") UUID orderId){
+        return orderStatusEvents.subscribeToOrder(customerId, orderId);
     }
 
     @PutMapping("/orders/{orderId}/pickup")
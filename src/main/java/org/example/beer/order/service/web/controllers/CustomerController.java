@@ -1,6 +1,8 @@
 package org.example.beer.order.service.web.controllers;
 
 import org.example.beer.order.service.services.CustomerService;
+import org.example.beer.order.service.services.ETags;
+import org.example.brewery.model.CustomerDto;
 import org.example.brewery.model.CustomerPagedList;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +11,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -23,7 +26,8 @@ public class CustomerController {
 
     @GetMapping
     public CustomerPagedList listCustomers(@RequestParam(value = "pageNumber", required = false) Integer pageNumber,
-                                           @RequestParam(value = "pageSize", required = false) Integer pageSize){
+                                           @RequestParam(value = "pageSize", required = false) Integer pageSize,
+                                           WebRequest webRequest){
         if(pageNumber == null || pageNumber <0 ){
             pageNumber = DEFAULT_PAGE_NUMBER;
         }
@@ -32,8 +36,14 @@ public class CustomerController {
             pageSize = DEFAULT_PAGE_SIZE;
         }
 
+        PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
+        if (ETags.notModified(webRequest, () -> customerService.listCustomersETag(pageRequest))) {
+            return null;
+        }
 
-        return customerService.listCustomers(PageRequest.of(pageNumber, pageSize));
+        CustomerPagedList customers = customerService.listCustomers(pageRequest);
+        return webRequest.checkNotModified(ETags.ofPage(customers.getContent(), CustomerDto::getId,
+                CustomerDto::getVersion, customers.getTotalElements())) ? null : customers;
     }
 
 }
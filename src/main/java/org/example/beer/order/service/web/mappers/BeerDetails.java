@@ -0,0 +1,21 @@
+package org.example.beer.order.service.web.mappers;
+
+import org.example.brewery.model.BeerDto;
+import org.example.brewery.model.BeerOrderLineDto;
+
+/**
+ * Copies the beer service's details onto a mapped order line, shared by the per-line decorator and the page
+ * enricher.
+ */
+public final class BeerDetails {
+
+    private BeerDetails() {
+    }
+
+    public static void apply(BeerOrderLineDto line, BeerDto beerDto) {
+        line.setBeerName(beerDto.getBeerName());
+        line.setBeerStyle(beerDto.getBeerStyle());
+        line.setPrice(beerDto.getPrice());
+        line.setBeerId(beerDto.getId());
+    }
+}
@@ -29,12 +29,7 @@ public abstract class BeerOrderLineMapperDecorator implements BeerOrderLineMappe
         BeerOrderLineDto orderLineDto = beerOrderLineMapper.beerOrderLineToDto(line);
         Optional<BeerDto> beerDtoOptional = beerService.getBeerByUpc(line.getUpc());
 
-        beerDtoOptional.ifPresent( beerDto -> {
-            orderLineDto.setBeerName(beerDto.getBeerName());
-            orderLineDto.setBeerStyle(beerDto.getBeerStyle());
-            orderLineDto.setPrice(beerDto.getPrice());
-            orderLineDto.setBeerId(beerDto.getId());
-        });
+        beerDtoOptional.ifPresent(beerDto -> BeerDetails.apply(orderLineDto, beerDto));
 
         return orderLineDto;
     }
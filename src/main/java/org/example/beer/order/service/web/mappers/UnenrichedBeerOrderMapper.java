@@ -0,0 +1,25 @@
+package org.example.beer.order.service.web.mappers;
+
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+/**
+ * Maps orders without looking up beer details, for callers that enrich whole pages at once with
+ * {@link org.example.beer.order.service.services.beer.BeerOrderEnricher}, and for the saga's own messages, which only
+ * need the persisted beer id and UPC, so a state transition never waits on the beer service.
+ */
+@Mapper(uses = {DateMapper.class})
+public interface UnenrichedBeerOrderMapper {
+
+    @Mapping(source = "customer.id", target = "customerId")
+    BeerOrderDto beerOrderToDto(BeerOrder beerOrder);
+
+    @Mapping(target = "beerName", ignore = true)
+    @Mapping(target = "beerStyle", ignore = true)
+    @Mapping(target = "price", ignore = true)
+    BeerOrderLineDto beerOrderLineToDto(BeerOrderLine line);
+}
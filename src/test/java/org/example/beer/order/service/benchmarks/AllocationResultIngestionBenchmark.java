@@ -0,0 +1,160 @@
+package org.example.beer.order.service.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.example.brewery.model.events.AllocateOrderResult;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ingests allocation results for 500 orders of 1, 10 and 50 lines, once the way {@code BeerOrderAllocationResultListener}
+ * does, one message per transaction from a pool sized like the listener container, and once the way
+ * {@code BatchResultListeners} does, a single consumer handing {@link BeerOrderManager#processAllocationResults} up to
+ * 100 results at a time. Both runs check every line's allocated quantity was written.
+ * <p>
+ * Run with {@code mvn test -Dtest=AllocationResultIngestionBenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+class AllocationResultIngestionBenchmark {
+    private static final int ORDERS = 500;
+    private static final int LISTENER_THREADS = 8;
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    BeerOrderManager manager;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void allocationResultIngestion(int lines) throws Exception {
+        // one untimed pass of each so neither run pays for warming up the other's code
+        perMessage(allocationResults(50, lines));
+        batched(allocationResults(50, lines));
+
+        List<AllocateOrderResult> perMessageResults = allocationResults(ORDERS, lines);
+        report("per-message", lines, perMessage(perMessageResults));
+        assertAllocated(perMessageResults);
+
+        List<AllocateOrderResult> batchedResults = allocationResults(ORDERS, lines);
+        report("batched", lines, batched(batchedResults));
+        assertAllocated(batchedResults);
+    }
+
+    private long perMessage(List<AllocateOrderResult> results) throws Exception {
+        ExecutorService listenerThreads = Executors.newFixedThreadPool(LISTENER_THREADS);
+        List<Future<?>> futures = new ArrayList<>(results.size());
+
+        long start = System.nanoTime();
+        results.forEach(result ->
+                futures.add(listenerThreads.submit(() -> manager.beerOrderAllocationPassed(result.getBeerOrderDto()))));
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        listenerThreads.shutdown();
+        return elapsedNanos;
+    }
+
+    private long batched(List<AllocateOrderResult> results) {
+        long start = System.nanoTime();
+        for (int from = 0; from < results.size(); from += BATCH_SIZE) {
+            manager.processAllocationResults(results.subList(from, Math.min(from + BATCH_SIZE, results.size())));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void report(String mode, int lines, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000d;
+        log.info("Allocation results ingested|Mode:{}|Lines:{}|Messages:{}|Seconds:{}|Msg/s:{}", mode, lines, ORDERS,
+                String.format("%.2f", seconds), String.format("%.1f", ORDERS / seconds));
+    }
+
+    private void assertAllocated(List<AllocateOrderResult> results) {
+        String customerId = results.get(0).getBeerOrderDto().getCustomerId().toString();
+        int expectedLines = results.stream().mapToInt(result -> result.getBeerOrderDto().getBeerOrderLines().size()).sum();
+
+        assertEquals(results.size(), jdbcTemplate.queryForObject("select count(*) from beer_order"
+                + " where customer_id = ? and order_status = ?", Integer.class,
+                customerId, BeerOrderStatusEnum.ALLOCATED.ordinal()));
+        assertEquals(expectedLines, jdbcTemplate.queryForObject("select count(*) from beer_order_line l"
+                + " join beer_order o on o.id = l.beer_order_id"
+                + " where o.customer_id = ? and l.quantity_allocated = l.order_quantity", Integer.class, customerId));
+    }
+
+    private List<AllocateOrderResult> allocationResults(int orders, int lines) {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Benchmark Customer").build());
+        List<AllocateOrderResult> results = new ArrayList<>(orders);
+
+        for (int i = 0; i < orders; i++) {
+            BeerOrder beerOrder = BeerOrder.builder()
+                    .customer(customer)
+                    .customerRef("dont-allocate")
+                    .orderStatus(BeerOrderStatusEnum.ALLOCATION_PENDING)
+                    .build();
+            Set<BeerOrderLine> orderLines = new HashSet<>();
+            for (int j = 0; j < lines; j++) {
+                orderLines.add(BeerOrderLine.builder()
+                        .beerId(UUID.randomUUID())
+                        .upc(String.valueOf(631234200000L + j))
+                        .orderQuantity(j + 1)
+                        .beerOrder(beerOrder)
+                        .build());
+            }
+            beerOrder.setBeerOrderLines(orderLines);
+            BeerOrder saved = beerOrderRepository.save(beerOrder);
+
+            List<BeerOrderLineDto> lineDtos = new ArrayList<>(lines);
+            saved.getBeerOrderLines().forEach(line -> lineDtos.add(BeerOrderLineDto.builder()
+                    .id(line.getId())
+                    .upc(line.getUpc())
+                    .beerId(line.getBeerId())
+                    .orderQuantity(line.getOrderQuantity())
+                    .quantityAllocated(line.getOrderQuantity())
+                    .build()));
+            results.add(AllocateOrderResult.builder()
+                    .beerOrderDto(BeerOrderDto.builder().id(saved.getId()).customerId(customer.getId())
+                            .beerOrderLines(lineDtos).build())
+                    .allocationError(false)
+                    .pendingInventory(false)
+                    .build());
+        }
+
+        return results;
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.beer.order.service.benchmarks;
+
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.services.beer.BeerService;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.beer.order.service.services.beer.HttpClientBeerService;
+import org.example.brewery.model.BeerDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+/**
+ * Per-call latency distribution of the two beer service clients from 16 threads against a WireMock beer service
+ * whose response times are log-normal (median 20 ms, long tail). The HTTP client runs with a 100 ms request timeout
+ * and a bulkhead larger than the thread count, so its tail is cut off by the timeout; timed out calls are still
+ * included in the samples.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile} and then this class' {@code main}; compare the p0.99 and p0.999 rows.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class BeerClientTailLatencyBenchmark {
+    private static final String UPC = "0631234200036";
+
+    @Param({"rest-template", "http-client"})
+    public String client;
+
+    private WireMockServer wireMockServer;
+    private BeerService beerService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        wireMockServer = new WireMockServer(new WireMockConfiguration().dynamicPort().containerThreads(64));
+        wireMockServer.start();
+        wireMockServer.stubFor(get(urlPathMatching(BeerServiceImpl.BEER_UPC_PATH_V1 + ".*"))
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder().id(UUID.randomUUID()).upc(UPC).build()))
+                        .withLogNormalRandomDelay(20, 0.8)));
+
+        String host = "http://localhost:" + wireMockServer.port();
+        if ("http-client".equals(client)) {
+            beerService = new HttpClientBeerService(objectMapper, new SimpleMeterRegistry(), host,
+                    Duration.ofSeconds(1), Duration.ofMillis(100), 32);
+        } else {
+            BeerServiceImpl beerServiceImpl = new BeerServiceImpl(new RestTemplateBuilder());
+            beerServiceImpl.setBeerServiceHost(host);
+            beerService = beerServiceImpl;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Benchmark
+    public Optional<BeerDto> getBeerByUpc() {
+        try {
+            return beerService.getBeerByUpc(UPC);
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BeerClientTailLatencyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.beer.order.service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.brewery.model.BeerDto;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+
+/**
+ * A client polling one order and the page of its customer's orders, with one of the orders changing every
+ * {@value #CHANGE_EVERY} polls. Run once sending back the last {@code ETag} in {@code If-None-Match} and once without,
+ * reporting the response bytes, the JDBC statements run on request threads and the beer service calls each costs.
+ * The beer cache is off so every enrichment reaches the beer service, as it would after the cache has expired.
+ * <p>
+ * Run with {@code mvn test -Dtest=ConditionalPollingBenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@TestPropertySource(properties = {
+        "sfg.beer-order.beer-cache.enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "org.example.beer.order.service.benchmarks.ConditionalPollingBenchmark$RequestStatementCounter",
+        "logging.level.org.example=info"})
+class ConditionalPollingBenchmark {
+    private static final int ORDERS = 25;
+    private static final int LINES_PER_ORDER = 3;
+    private static final int POLLS = 400;
+    private static final int CHANGE_EVERY = 20;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void pollingWithAndWithoutIfNoneMatch() throws Exception {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Polling Customer").build());
+        List<BeerOrder> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(allocatedOrder(customer, i));
+        }
+        String ordersUrl = "http://localhost:" + port + "/api/v1/customers/" + customer.getId() + "/orders/";
+
+        poll("warm-up", ordersUrl + orders.get(0).getId(), orders, true);
+        for (boolean conditional : new boolean[]{false, true}) {
+            poll(conditional ? "getOrder, If-None-Match" : "getOrder", ordersUrl + orders.get(0).getId(), orders,
+                    conditional);
+            poll(conditional ? "listOrders, If-None-Match" : "listOrders", ordersUrl + "?pageSize=" + ORDERS, orders,
+                    conditional);
+        }
+    }
+
+    private void poll(String workload, String url, List<BeerOrder> orders, boolean conditional) throws Exception {
+        RequestStatementCounter.COUNT.set(0);
+        wireMockServer.resetRequests();
+        long bytes = 0;
+        int notModified = 0;
+        String eTag = null;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < POLLS; i++) {
+            if (i % CHANGE_EVERY == CHANGE_EVERY - 1) {
+                // the change the client is polling for, made outside of the measured requests
+                BeerOrder changed = orders.get(0);
+                changed.setCustomerRef("poll-" + i);
+                orders.set(0, beerOrderRepository.save(changed));
+            }
+
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+            if (conditional && eTag != null) {
+                request.header("If-None-Match", eTag);
+            }
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            bytes += response.body().length;
+            if (response.statusCode() == 304) {
+                notModified++;
+            } else {
+                eTag = response.headers().firstValue("ETag").orElse(null);
+            }
+        }
+        double micros = (System.nanoTime() - start) / 1_000d / POLLS;
+
+        log.info("{}: {} polls|304s:{}|Body bytes/poll:{}|Statements/poll:{}|Beer service calls/poll:{}|{} us/poll",
+                workload, POLLS, notModified, bytes / POLLS,
+                String.format("%.2f", RequestStatementCounter.COUNT.get() / (double) POLLS),
+                String.format("%.2f", wireMockServer.getAllServeEvents().size() / (double) POLLS),
+                String.format("%.0f", micros));
+    }
+
+    private BeerOrder allocatedOrder(Customer customer, int index) throws Exception {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .customer(customer)
+                .customerRef("poll")
+                .orderStatus(BeerOrderStatusEnum.ALLOCATED)
+                .build();
+        Set<BeerOrderLine> lines = new HashSet<>();
+        for (int line = 0; line < LINES_PER_ORDER; line++) {
+            String upc = String.format("90000%03d%05d", index, line);
+            wireMockServer.stubFor(get(urlPathEqualTo(BeerServiceImpl.BEER_UPC_PATH_V1 + upc))
+                    .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder()
+                            .id(UUID.randomUUID()).upc(upc).beerName("Beer " + upc).build()))));
+            lines.add(BeerOrderLine.builder()
+                    .beerId(UUID.randomUUID()).upc(upc).orderQuantity(6).quantityAllocated(6).beerOrder(beerOrder)
+                    .build());
+        }
+        beerOrder.setBeerOrderLines(lines);
+        return beerOrderRepository.save(beerOrder);
+    }
+
+    /**
+     * Counts the statements Hibernate prepares on request threads, leaving out the scheduled jobs and the saves
+     * made from the test thread.
+     */
+    public static class RequestStatementCounter implements StatementInspector {
+        static final AtomicLong COUNT = new AtomicLong();
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread().getName().contains("-exec-")) {
+                COUNT.incrementAndGet();
+            }
+            return sql;
+        }
+    }
+}
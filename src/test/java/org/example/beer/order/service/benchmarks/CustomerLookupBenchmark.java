@@ -0,0 +1,130 @@
+package org.example.beer.order.service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderService;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.brewery.model.BeerDto;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+/**
+ * JDBC statements each order request runs on the calling thread, counted by a statement inspector so the scheduled
+ * jobs and listeners running meanwhile don't show up. Beer lookups are cached, so what is left is the customer check,
+ * the order queries and, for placing an order, the writes.
+ * <p>
+ * Only the public order service API is used so the same class can be run against an older revision for a
+ * before/after comparison: {@code mvn test -Dtest=CustomerLookupBenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "org.example.beer.order.service.benchmarks.CustomerLookupBenchmark$ThreadStatementCounter",
+        "logging.level.org.example=info"})
+class CustomerLookupBenchmark {
+    private static final int REQUESTS = 200;
+    private static final String UPC = "0631234200036";
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void statementsPerRequest() throws Exception {
+        wireMockServer.stubFor(get(urlPathMatching(BeerServiceImpl.BEER_UPC_PATH_V1 + ".*"))
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder()
+                        .id(UUID.randomUUID()).upc(UPC).beerName("Mango Bobs").build()))));
+
+        Customer customer = customerRepository.save(Customer.builder().customerName("Lookup Customer").build());
+        List<UUID> orderIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            BeerOrder beerOrder = BeerOrder.builder().customer(customer).orderStatus(BeerOrderStatusEnum.ALLOCATED).build();
+            beerOrder.setBeerOrderLines(Set.of(BeerOrderLine.builder()
+                    .beerId(UUID.randomUUID()).upc(UPC).orderQuantity(1).beerOrder(beerOrder).build()));
+            orderIds.add(beerOrderRepository.save(beerOrder).getId());
+        }
+        // warm the caches
+        beerOrderService.listOrders(customer.getId(), PageRequest.of(0, 10));
+        beerOrderService.getOrderById(customer.getId(), orderIds.get(0));
+
+        measure("getOrderById", i -> beerOrderService.getOrderById(customer.getId(), orderIds.get(i % orderIds.size())));
+        measure("listOrders", i -> beerOrderService.listOrders(customer.getId(), PageRequest.of(i % 2, 10)));
+        measure("placeOrder", i -> beerOrderService.placeOrder(customer.getId(), BeerOrderDto.builder()
+                .customerId(customer.getId())
+                .customerRef("dont-validate")
+                .beerOrderLines(List.of(BeerOrderLineDto.builder().upc(UPC).orderQuantity(1).build()))
+                .build()));
+    }
+
+    private void measure(String request, java.util.function.IntConsumer call) {
+        ThreadStatementCounter.reset();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            call.accept(i);
+        }
+        double micros = (System.nanoTime() - start) / 1_000d / REQUESTS;
+
+        log.info("{}: {} statements/request|{} us/request", request,
+                String.format("%.2f", ThreadStatementCounter.count() / (double) REQUESTS), String.format("%.0f", micros));
+    }
+
+    /**
+     * Counts the statements Hibernate prepares on the current thread.
+     */
+    public static class ThreadStatementCounter implements StatementInspector {
+        private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+        static void reset() {
+            COUNT.get()[0] = 0;
+        }
+
+        static long count() {
+            return COUNT.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.get()[0]++;
+            return sql;
+        }
+    }
+}
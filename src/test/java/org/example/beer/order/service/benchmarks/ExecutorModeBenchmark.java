@@ -0,0 +1,86 @@
+package org.example.beer.order.service.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.config.ExecutorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to drain a burst of listener deliveries that each block for a few milliseconds (a database round trip or a
+ * call to the beer service) through the executors {@link ExecutorFactory} builds: the bounded pool sized like the
+ * JMS listener pool, and a virtual thread per task. Virtual threads need JDK 21+; on older JDKs the virtual run fails
+ * in its setup.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile} and then this class' {@code main}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorModeBenchmark {
+
+    @Param({"bounded", "virtual"})
+    public String mode;
+
+    @Param({"1000"})
+    public int deliveries;
+
+    @Param({"5"})
+    public long blockMillis;
+
+    private AsyncTaskExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ExecutorFactory factory = new ExecutorFactory(new SimpleMeterRegistry(), "virtual".equals(mode));
+        executor = factory.taskExecutor("listener", 32, 32, Integer.MAX_VALUE, ExecutorFactory.RejectionPolicy.ABORT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) executor).shutdown();
+        }
+    }
+
+    @Benchmark
+    public void blockingDeliveries() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(deliveries);
+        for (int i = 0; i < deliveries; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(blockMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ExecutorModeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.beer.order.service.benchmarks;
+
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.metrics.BeerOrderTransitionMetrics;
+import org.example.beer.order.service.sm.BeerOrderStateChangeInterceptor;
+import org.example.beer.order.service.sm.BeerOrderStateMachineConfig;
+import org.example.beer.order.service.sm.BeerOrderStateMachineEngine;
+import org.example.beer.order.service.sm.CompiledStateMachineEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the lifecycle metrics on the transition hot path: events/sec through the compiled engine, the cheapest
+ * one, with {@link BeerOrderTransitionMetrics} registered as a transition listener or not. Each operation takes one
+ * order through its full happy-path lifecycle (five events), with no-op actions and an in-memory repository.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile} and then this class' {@code main}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class LifecycleMetricsOverheadBenchmark {
+
+    private static final BeerOrderEventEnum[] LIFECYCLE = {
+            BeerOrderEventEnum.VALIDATE_ORDER,
+            BeerOrderEventEnum.VALIDATION_PASSED,
+            BeerOrderEventEnum.ALLOCATE_ORDER,
+            BeerOrderEventEnum.ALLOCATION_SUCCESS,
+            BeerOrderEventEnum.BEER_ORDER_PICKED_UP};
+
+    @Param({"off", "on"})
+    public String metrics;
+
+    private AnnotationConfigApplicationContext context;
+    private BeerOrderStateMachineEngine engine;
+    private Map<UUID, BeerOrder> orders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        context = new AnnotationConfigApplicationContext(StateMachineCacheBenchmark.BenchmarkConfig.class);
+        StateMachineCacheBenchmark.BenchmarkConfig config = context.getBean(StateMachineCacheBenchmark.BenchmarkConfig.class);
+        orders = config.orders;
+
+        BeerOrderStateMachineConfig stateMachineConfig = context.getBean(BeerOrderStateMachineConfig.class);
+        if ("on".equals(metrics)) {
+            config.transitionListeners.add(new BeerOrderTransitionMetrics(new SimpleMeterRegistry(), stateMachineConfig));
+        }
+        engine = new CompiledStateMachineEngine(stateMachineConfig, context.getBean(BeerOrderStateChangeInterceptor.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(5)
+    public BeerOrderStatusEnum orderLifecycle() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        BeerOrder beerOrder = BeerOrder.builder()
+                .id(UUID.randomUUID())
+                .createdDate(now)
+                .lastModifiedDate(now)
+                .orderStatus(BeerOrderStatusEnum.NEW)
+                .build();
+        orders.put(beerOrder.getId(), beerOrder);
+
+        for (BeerOrderEventEnum event : LIFECYCLE) {
+            engine.sendEvent(beerOrder, event);
+        }
+
+        orders.remove(beerOrder.getId());
+        return beerOrder.getOrderStatus();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LifecycleMetricsOverheadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
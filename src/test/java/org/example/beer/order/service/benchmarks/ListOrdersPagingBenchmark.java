@@ -0,0 +1,139 @@
+package org.example.beer.order.service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderService;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.beer.order.service.services.testcomponents.ThreadStatementCounter;
+import org.example.brewery.model.BeerDto;
+import org.example.brewery.model.BeerOrderPagedList;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Time and JDBC statements per {@code listOrders} page for a customer holding {@value #ORDERS} orders of
+ * {@value #LINES_PER_ORDER} lines, at the first, a middle and the last page, for a few page sizes. A second customer
+ * holds as many orders again so the customer filter has something to filter. Beer lookups are cached, so what is
+ * measured is the database work. Orders are inserted with JDBC, which is far quicker than saving entities.
+ * <p>
+ * Only the public order service API is used so the same class can be run against an older revision for a
+ * before/after comparison: {@code mvn test -Dtest=ListOrdersPagingBenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@TestPropertySource(properties = {
+        ThreadStatementCounter.PROPERTY,
+        "sfg.beer-order.archive.enabled=false",
+        "logging.level.org.example=info"})
+class ListOrdersPagingBenchmark {
+    private static final int ORDERS = 100_000;
+    private static final int LINES_PER_ORDER = 2;
+    private static final int REQUESTS = 20;
+    private static final int BATCH = 5_000;
+    private static final String UPC = "0631234200036";
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void pagesOfALargeCustomer() throws Exception {
+        wireMockServer.stubFor(get(urlPathMatching(BeerServiceImpl.BEER_UPC_PATH_V1 + ".*"))
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder()
+                        .id(UUID.randomUUID()).upc(UPC).beerName("Mango Bobs").build()))));
+
+        Customer customer = customerRepository.save(Customer.builder().customerName("Large Customer").build());
+        Customer other = customerRepository.save(Customer.builder().customerName("Other Customer").build());
+        long start = System.nanoTime();
+        insertOrders(customer);
+        insertOrders(other);
+        log.info("Inserted orders|Orders:{}|Millis:{}", 2 * ORDERS, (System.nanoTime() - start) / 1_000_000);
+
+        // warm up the caches and the query plans
+        for (int i = 0; i < 5; i++) {
+            beerOrderService.listOrders(customer.getId(), PageRequest.of(i, 25));
+        }
+
+        for (int pageSize : new int[]{10, 25, 100}) {
+            int lastPage = (ORDERS - 1) / pageSize;
+            for (int page : new int[]{0, lastPage / 2, lastPage}) {
+                measure(customer, pageSize, page);
+            }
+        }
+    }
+
+    private void measure(Customer customer, int pageSize, int page) {
+        ThreadStatementCounter.reset();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            // neighbouring pages rather than the same one, which the database could answer from its query cache
+            int requested = page == 0 ? i : page - i;
+            BeerOrderPagedList orders = beerOrderService.listOrders(customer.getId(),
+                    PageRequest.of(requested, pageSize));
+
+            assertEquals(ORDERS, orders.getTotalElements());
+            assertEquals(Math.min(pageSize, ORDERS - requested * pageSize), orders.getContent().size());
+            orders.forEach(order -> assertEquals(LINES_PER_ORDER, order.getBeerOrderLines().size()));
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000d / REQUESTS;
+
+        log.info("listOrders|Page size:{}|Page:{}|{} statements/page|{} ms/page", pageSize, page,
+                String.format("%.2f", ThreadStatementCounter.count() / (double) REQUESTS),
+                String.format("%.2f", millis));
+    }
+
+    private void insertOrders(Customer customer) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int from = 0; from < ORDERS; from += BATCH) {
+            List<Object[]> orders = new ArrayList<>(BATCH);
+            List<Object[]> lines = new ArrayList<>(BATCH * LINES_PER_ORDER);
+            for (int i = from; i < from + BATCH; i++) {
+                String orderId = UUID.randomUUID().toString();
+                orders.add(new Object[]{orderId, now, now, "ref-" + i, customer.getId().toString(),
+                        BeerOrderStatusEnum.PICKED_UP.ordinal()});
+                for (int j = 0; j < LINES_PER_ORDER; j++) {
+                    lines.add(new Object[]{UUID.randomUUID().toString(), now, now, orderId, UUID.randomUUID(), UPC});
+                }
+            }
+            jdbcTemplate.batchUpdate("insert into beer_order (id, version, created_date, last_modified_date, "
+                    + "customer_ref, customer_id, order_status) values (?, 0, ?, ?, ?, ?, ?)", orders);
+            jdbcTemplate.batchUpdate("insert into beer_order_line (id, version, created_date, last_modified_date, "
+                    + "beer_order_id, beer_id, upc, order_quantity, quantity_allocated) "
+                    + "values (?, 0, ?, ?, ?, ?, ?, 1, 1)", lines);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.beer.order.service.benchmarks;
+
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.beer.order.service.config.JmsConfig;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.services.beer.BeerService;
+import org.example.beer.order.service.web.mappers.BeerOrderMapper;
+import org.example.beer.order.service.web.mappers.CustomerMapper;
+import org.example.beer.order.service.web.mappers.DateMapper;
+import org.example.brewery.model.BeerDto;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.CustomerDto;
+import org.example.brewery.model.events.ValidateOrderRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jms.support.converter.MessageConverter;
+
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of the entity/DTO mappers and of the JMS message converter, for orders of a given
+ * number of lines. Beer details come from an in-memory {@link BeerService} that builds each beer once, so only
+ * mapping and serialization are measured.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile} and then this class' {@code main}, which adds the GC profiler;
+ * compare the {@code gc.alloc.rate.norm} rows for bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int lines;
+
+    private AnnotationConfigApplicationContext context;
+    private BeerOrderMapper beerOrderMapper;
+    private CustomerMapper customerMapper;
+    private MessageConverter messageConverter;
+    private Session session;
+
+    private BeerOrder beerOrder;
+    private BeerOrderDto beerOrderDto;
+    private Customer customer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        context = new AnnotationConfigApplicationContext(MapperConfig.class);
+        beerOrderMapper = context.getBean(BeerOrderMapper.class);
+        customerMapper = context.getBean(CustomerMapper.class);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        messageConverter = new JmsConfig().jacksonJmsMessageConverter(objectMapper, Jackson2ObjectMapperBuilder.json(),
+                "json", false);
+        session = discardingSession();
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        customer = Customer.builder().id(UUID.randomUUID()).version(1L).createdDate(now).lastModifiedDate(now)
+                .customerName("Benchmark Customer").apiKey(UUID.randomUUID()).build();
+        beerOrder = BeerOrder.builder().id(UUID.randomUUID()).version(3L).createdDate(now).lastModifiedDate(now)
+                .customer(customer).customerRef("benchmark").orderStatus(BeerOrderStatusEnum.ALLOCATED).build();
+
+        Set<BeerOrderLine> orderLines = new HashSet<>();
+        for (int i = 0; i < lines; i++) {
+            orderLines.add(BeerOrderLine.builder().id(UUID.randomUUID()).version(1L).createdDate(now)
+                    .lastModifiedDate(now).beerOrder(beerOrder).beerId(UUID.randomUUID())
+                    .upc(String.valueOf(631234200000L + i)).orderQuantity(12).quantityAllocated(12).build());
+        }
+        beerOrder.setBeerOrderLines(orderLines);
+        beerOrderDto = beerOrderMapper.beerOrderToDto(beerOrder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BeerOrderDto beerOrderToDto() {
+        return beerOrderMapper.beerOrderToDto(beerOrder);
+    }
+
+    @Benchmark
+    public BeerOrder dtoToBeerOrder() {
+        return beerOrderMapper.dtoToBeerOrder(beerOrderDto);
+    }
+
+    @Benchmark
+    public CustomerDto customerToDto() {
+        return customerMapper.customerToDto(customer);
+    }
+
+    @Benchmark
+    public Message beerOrderDtoToMessage() throws Exception {
+        return messageConverter.toMessage(new ValidateOrderRequest(beerOrderDto), session);
+    }
+
+    /**
+     * A session whose text messages drop whatever is set on them, so serializing is all that's measured.
+     */
+    private static Session discardingSession() {
+        TextMessage message = (TextMessage) Proxy.newProxyInstance(TextMessage.class.getClassLoader(),
+                new Class<?>[]{TextMessage.class}, (proxy, method, args) -> null);
+
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> {
+                    if ("createTextMessage".equals(method.getName())) {
+                        return message;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+
+    /**
+     * Not a {@code @Configuration} so component scanning in the Spring Boot tests doesn't pick it up.
+     */
+    @ComponentScan(basePackageClasses = DateMapper.class)
+    static class MapperConfig {
+
+        @Bean
+        BeerService beerService() {
+            // looked up once per UPC, so what a lookup allocates doesn't show up in the mapping figures
+            Map<String, Optional<BeerDto>> beers = new ConcurrentHashMap<>();
+            return new BeerService() {
+                @Override
+                public Optional<BeerDto> getBeerById(UUID uuid) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public Optional<BeerDto> getBeerByUpc(String upc) {
+                    return beers.computeIfAbsent(upc, u -> Optional.of(BeerDto.builder().id(UUID.randomUUID()).upc(u)
+                            .beerName("Beer " + u).beerStyle("IPA").price(new BigDecimal("12.95")).build()));
+                }
+            };
+        }
+    }
+}
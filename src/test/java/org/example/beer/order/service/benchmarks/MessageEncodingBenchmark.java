@@ -0,0 +1,128 @@
+package org.example.beer.order.service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.beer.order.service.config.InMemoryMessages;
+import org.example.beer.order.service.config.JmsConfig;
+import org.example.beer.order.service.config.NegotiatingMessageConverter;
+import org.example.beer.order.service.config.NegotiatingMessageConverter.Encoding;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.example.brewery.model.events.AllocateOrderRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import javax.jms.Message;
+import javax.jms.Session;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing and reading an {@link AllocateOrderRequest} with {@link NegotiatingMessageConverter} as JSON text
+ * and as Smile bytes, for orders of 1, 10 and 100 lines. {@code relayOutboxMessage} is the outbox path, which starts
+ * from the JSON stored with the order change and transcodes it when Smile is on.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile} and then this class' {@code main}, which prints the payload size of
+ * each combination before running the benchmarks with the GC profiler.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class MessageEncodingBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int lines;
+
+    @Param({"JSON", "SMILE"})
+    public Encoding encoding;
+
+    private NegotiatingMessageConverter converter;
+    private Session session;
+    private AllocateOrderRequest request;
+    private String outboxJson;
+    private Message encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        converter = converter(encoding);
+        session = InMemoryMessages.session();
+        request = new AllocateOrderRequest(beerOrder(lines));
+        outboxJson = jsonMapper.writeValueAsString(request);
+        encoded = converter.toMessage(request, session);
+    }
+
+    @Benchmark
+    public Message encode() throws Exception {
+        return converter.toMessage(request, session);
+    }
+
+    @Benchmark
+    public Object decode() throws Exception {
+        return converter.fromMessage(encoded);
+    }
+
+    @Benchmark
+    public Message relayOutboxMessage() throws Exception {
+        return converter.toMessage(outboxJson, AllocateOrderRequest.class.getName(), session);
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int lines : new int[]{1, 10, 100}) {
+            AllocateOrderRequest request = new AllocateOrderRequest(beerOrder(lines));
+            int json = InMemoryMessages.bodySize(converter(Encoding.JSON).toMessage(request, InMemoryMessages.session()));
+            int smile = InMemoryMessages.bodySize(converter(Encoding.SMILE).toMessage(request, InMemoryMessages.session()));
+            System.out.printf("Payload size|Lines:%d|JSON:%d bytes|Smile:%d bytes|Ratio:%.2f%n",
+                    lines, json, smile, smile / (double) json);
+        }
+        run();
+    }
+
+    private static void run() throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageEncodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+
+    private static NegotiatingMessageConverter converter(Encoding encoding) {
+        return new NegotiatingMessageConverter(Jackson2ObjectMapperBuilder.json().build(),
+                Jackson2ObjectMapperBuilder.smile().build(), encoding, true, JmsConfig.MESSAGE_TYPES);
+    }
+
+    private static BeerOrderDto beerOrder(int lines) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        List<BeerOrderLineDto> orderLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            orderLines.add(BeerOrderLineDto.builder().id(UUID.randomUUID()).version(1).createdDate(now)
+                    .lastModifiedDate(now).upc(String.valueOf(631234200000L + i)).beerName("Beer " + i)
+                    .beerStyle("IPA").beerId(UUID.randomUUID()).orderQuantity(12).quantityAllocated(0)
+                    .price(new BigDecimal("12.95")).build());
+        }
+        return BeerOrderDto.builder().id(UUID.randomUUID()).version(1).createdDate(now).lastModifiedDate(now)
+                .customerId(UUID.randomUUID()).customerRef("benchmark").beerOrderLines(orderLines)
+                .orderStatus("ALLOCATION_PENDING").build();
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.beer.order.service.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.ArchivedBeerOrderRepository;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.archive.OrderArchiver;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Archives a backlog of ended orders, with a few in-flight ones mixed in, and logs the rows moved per second and the
+ * size of the hot {@code beer_order} table sampled every 100 ms while the archiver runs.
+ * <p>
+ * Backlog size, lines per order and chunk size are properties, e.g. {@code mvn test -Dtest=OrderArchiveBenchmark
+ * -Darchive.orders=50000 -Dsfg.beer-order.archive.batch-size=1000}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@TestPropertySource(properties = {
+        "sfg.beer-order.archive.batch-size=${archive.batch-size:500}",
+        "logging.level.org.example=info"})
+class OrderArchiveBenchmark {
+    private static final int IN_FLIGHT_EVERY = 10;
+
+    @Value("${archive.orders:10000}")
+    int orders;
+
+    @Value("${archive.lines-per-order:3}")
+    int linesPerOrder;
+
+    @Autowired
+    OrderArchiver archiver;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    ArchivedBeerOrderRepository archivedBeerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    void archiveBacklog() throws Exception {
+        int inFlight = seed();
+        long hotBefore = beerOrderRepository.count();
+
+        List<String> samples = new ArrayList<>();
+        long start = System.nanoTime();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> samples.add(String.format("%dms:%d",
+                        (System.nanoTime() - start) / 1_000_000, beerOrderRepository.count())),
+                0, 100, TimeUnit.MILLISECONDS);
+
+        long archived = archiver.archiveOlderThan(Timestamp.from(Instant.now().plusSeconds(60)));
+        double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+        sampler.shutdown();
+        sampler.awaitTermination(5, TimeUnit.SECONDS);
+
+        long rows = archived * (1 + linesPerOrder);
+        log.info("Archived {} orders ({} rows) in {} s|{} rows/s|hot orders {} -> {}", archived, rows,
+                String.format("%.2f", seconds), String.format("%.0f", rows / seconds), hotBefore,
+                beerOrderRepository.count());
+        log.info("Hot table size over time: {}", String.join(" ", samples));
+
+        // the tasting room keeps placing orders meanwhile, but none of them end during the run
+        assertEquals(orders - inFlight, archived);
+        assertEquals(archived, archivedBeerOrderRepository.count());
+    }
+
+    /**
+     * @return the number of orders left in flight
+     */
+    private int seed() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Customer customer = customerRepository.save(Customer.builder().customerName("Archive Benchmark").build());
+        int inFlight = 0;
+
+        for (int saved = 0; saved < orders; ) {
+            List<BeerOrder> chunk = new ArrayList<>();
+            for (int i = 0; i < 1000 && saved < orders; i++, saved++) {
+                BeerOrderStatusEnum status = saved % IN_FLIGHT_EVERY == 0 ? BeerOrderStatusEnum.ALLOCATED
+                        : BeerOrderStatusEnum.PICKED_UP;
+                if (status == BeerOrderStatusEnum.ALLOCATED) {
+                    inFlight++;
+                }
+                chunk.add(order(customer, status));
+            }
+            transactionTemplate.executeWithoutResult(status -> beerOrderRepository.saveAll(chunk));
+        }
+        return inFlight;
+    }
+
+    private BeerOrder order(Customer customer, BeerOrderStatusEnum status) {
+        BeerOrder beerOrder = BeerOrder.builder().customer(customer).orderStatus(status).build();
+        Set<BeerOrderLine> lines = new HashSet<>();
+        for (int i = 0; i < linesPerOrder; i++) {
+            lines.add(BeerOrderLine.builder()
+                    .beerId(UUID.randomUUID())
+                    .upc("0631234200036")
+                    .orderQuantity(1)
+                    .quantityAllocated(1)
+                    .beerOrder(beerOrder)
+                    .build());
+        }
+        beerOrder.setBeerOrderLines(lines);
+        return beerOrder;
+    }
+}
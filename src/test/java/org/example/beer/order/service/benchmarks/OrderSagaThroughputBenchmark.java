@@ -0,0 +1,342 @@
+package org.example.beer.order.service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.beer.order.service.services.testcomponents.BeerOrderAllocationResponder;
+import org.example.beer.order.service.sm.BeerOrderStateMachineConfig;
+import org.example.beer.order.service.sm.BeerOrderTransitionListener;
+import org.example.brewery.model.BeerDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Orders/sec the whole order saga sustains, path by path: the app runs with the embedded Artemis broker, a WireMock
+ * beer service and the stub validation and allocation responders from {@code services.testcomponents}, which pick
+ * the outcome from the order's customer reference. Each path pushes {@code saga.orders} orders through with at most
+ * {@code saga.in-flight} unfinished at a time and reports throughput, latency from placing an order to its final
+ * status, and JDBC statements prepared per order.
+ * <p>
+ * Results are appended as JSON to {@code target/benchmark-results/order-saga-<timestamp>.json} (or
+ * {@code -Dsaga.results-dir}) with the current commit, so runs can be compared across commits:
+ * {@code mvn test -Dtest=OrderSagaThroughputBenchmark -Dsaga.orders=5000}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@Import(BeerOrderAllocationResponder.Config.class)
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "logging.level.org.example=info"})
+class OrderSagaThroughputBenchmark {
+
+    private static final List<PathResult> RESULTS = Collections.synchronizedList(new ArrayList<>());
+    private static final int PLACING_THREADS = 8;
+
+    enum SagaPath {
+        HAPPY("saga-happy", BeerOrderStatusEnum.ALLOCATED),
+        PENDING_INVENTORY("partial-allocation", BeerOrderStatusEnum.PENDING_INVENTORY),
+        VALIDATION_FAILURE("fail-validation", BeerOrderStatusEnum.VALIDATION_EXCEPTION),
+        ALLOCATION_FAILURE("fail-allocation", BeerOrderStatusEnum.ALLOCATION_EXCEPTION),
+        CANCEL("dont-validate", BeerOrderStatusEnum.CANCELLED);
+
+        private final String customerRef;
+        private final BeerOrderStatusEnum finalStatus;
+
+        SagaPath(String customerRef, BeerOrderStatusEnum finalStatus) {
+            this.customerRef = customerRef;
+            this.finalStatus = finalStatus;
+        }
+    }
+
+    @Value("${saga.orders:2000}")
+    int orders;
+
+    @Value("${saga.in-flight:200}")
+    int inFlight;
+
+    @Autowired
+    BeerOrderManager manager;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    SagaRecorder recorder;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    Customer customer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        wireMockServer.stubFor(get(urlPathMatching(BeerServiceImpl.BEER_UPC_PATH_V1 + ".*"))
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder()
+                        .id(UUID.randomUUID()).upc("12345").build()))));
+        customer = customerRepository.save(Customer.builder().customerName("Saga Benchmark Customer").build());
+    }
+
+    @ParameterizedTest
+    @EnumSource(SagaPath.class)
+    void sagaPath(SagaPath path) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Semaphore window = new Semaphore(inFlight);
+        CountDownLatch finished = new CountDownLatch(orders);
+        ExecutorService placers = Executors.newFixedThreadPool(PLACING_THREADS);
+        recorder.begin(path, window, finished);
+        statistics.clear();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            window.acquire();
+            placers.execute(() -> placeOrder(path));
+        }
+        boolean completed = finished.await(5, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - start;
+        placers.shutdown();
+
+        PathResult result = recorder.end(elapsedNanos, statistics.getPrepareStatementCount());
+        RESULTS.add(result);
+        log.info("Saga path {}|{} orders in {} ms|{} orders/s|p50:{} ms|p99:{} ms|p999:{} ms|statements/order:{}"
+                        + "|unexpected:{}", path, result.orders, result.elapsedMillis,
+                String.format("%.1f", result.ordersPerSecond), result.latencyMillis.get("p50"),
+                result.latencyMillis.get("p99"), result.latencyMillis.get("p999"),
+                String.format("%.1f", result.statementsPerOrder), result.unexpectedOutcomes);
+
+        assertTrue(completed, "Orders still unfinished: " + finished.getCount());
+        assertEquals(0, result.unexpectedOutcomes);
+    }
+
+    @AfterAll
+    static void writeResults(@Value("${saga.results-dir:target/benchmark-results}") String resultsDir,
+                             @Value("${sfg.beer-order.state-machine.engine}") String engine,
+                             @Value("${saga.orders:2000}") int orders,
+                             @Autowired ObjectMapper objectMapper) throws IOException {
+        Path file = Paths.get(resultsDir, "order-saga-" + Instant.now().toEpochMilli() + ".json");
+        Files.createDirectories(file.getParent());
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("benchmark", OrderSagaThroughputBenchmark.class.getSimpleName());
+        run.put("commit", currentCommit());
+        run.put("timestamp", Instant.now().toString());
+        run.put("engine", engine);
+        run.put("processors", Runtime.getRuntime().availableProcessors());
+        run.put("ordersPerPath", orders);
+        run.put("paths", new ArrayList<>(RESULTS));
+
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), run);
+        log.info("Saga benchmark results written to {}", file.toAbsolutePath());
+    }
+
+    private void placeOrder(SagaPath path) {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .customer(customer)
+                .customerRef(path.customerRef)
+                .build();
+        beerOrder.setBeerOrderLines(Collections.singleton(BeerOrderLine.builder()
+                .beerId(UUID.randomUUID())
+                .upc("12345")
+                .orderQuantity(2)
+                .beerOrder(beerOrder)
+                .build()));
+
+        long placedAt = System.nanoTime();
+        try {
+            BeerOrder saved = manager.newBeerOrder(beerOrder);
+            recorder.placed(saved.getId(), placedAt);
+            if (path == SagaPath.CANCEL) {
+                manager.cancelOrder(saved.getId());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Placing saga order failed|Path:{}", path, e);
+            recorder.failedToPlace();
+        }
+    }
+
+    private static String currentCommit() {
+        try {
+            Path head = Paths.get(".git", "HEAD");
+            String ref = Files.readString(head).trim();
+            if (ref.startsWith("ref: ")) {
+                Path refFile = Paths.get(".git", ref.substring(5));
+                return refFile.toFile().exists() ? Files.readString(refFile).trim() : ref.substring(5);
+            }
+            return ref;
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    @lombok.Value
+    @Builder
+    static class PathResult {
+        String path;
+        int orders;
+        long elapsedMillis;
+        double ordersPerSecond;
+        Map<String, Double> latencyMillis;
+        double statementsPerOrder;
+        long unexpectedOutcomes;
+    }
+
+    @TestConfiguration
+    static class SagaRecorderConfig {
+        @Bean
+        SagaRecorder sagaRecorder() {
+            return new SagaRecorder();
+        }
+    }
+
+    /**
+     * Matches the final transition of each benchmark order with the time it was placed. Either can come first, as the
+     * stub responders may finish an order before {@code newBeerOrder} has returned its id to the placing thread.
+     */
+    static class SagaRecorder implements BeerOrderTransitionListener {
+        private final Map<UUID, long[]> pending = new ConcurrentHashMap<>();
+        private volatile SagaPath path;
+        private Semaphore window;
+        private CountDownLatch finished;
+        private Histogram latency;
+        private AtomicLong unexpected;
+
+        void begin(SagaPath path, Semaphore window, CountDownLatch finished) {
+            this.window = window;
+            this.finished = finished;
+            this.latency = new ConcurrentHistogram(3);
+            this.unexpected = new AtomicLong();
+            this.pending.clear();
+            this.path = path;
+        }
+
+        PathResult end(long elapsedNanos, long statements) {
+            SagaPath current = path;
+            path = null;
+            int orders = (int) (latency.getTotalCount() + unexpected.get());
+
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            percentiles.put("p50", latency.getValueAtPercentile(50) / 1000d);
+            percentiles.put("p99", latency.getValueAtPercentile(99) / 1000d);
+            percentiles.put("p999", latency.getValueAtPercentile(99.9) / 1000d);
+            percentiles.put("max", latency.getMaxValue() / 1000d);
+
+            return PathResult.builder()
+                    .path(current.name())
+                    .orders(orders)
+                    .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                    .ordersPerSecond(orders / (elapsedNanos / 1_000_000_000d))
+                    .latencyMillis(percentiles)
+                    .statementsPerOrder(statements / (double) Math.max(1, orders))
+                    .unexpectedOutcomes(unexpected.get())
+                    .build();
+        }
+
+        void placed(UUID orderId, long placedAt) {
+            pending.compute(orderId, (id, entry) -> {
+                if (entry == null) {
+                    return new long[]{placedAt, -1, -1};
+                }
+                finish(placedAt, entry[1], (int) entry[2]);
+                return null;
+            });
+        }
+
+        void failedToPlace() {
+            unexpected.incrementAndGet();
+            window.release();
+            finished.countDown();
+        }
+
+        @Override
+        public void transitioned(BeerOrder beerOrder, BeerOrderStatusEnum source, BeerOrderEventEnum event,
+                                 BeerOrderStatusEnum target, Timestamp sourceEnteredAt) {
+            SagaPath current = path;
+            boolean isFinal = BeerOrderStateMachineConfig.END_STATES.contains(target)
+                    || target == BeerOrderStatusEnum.ALLOCATED || target == BeerOrderStatusEnum.PENDING_INVENTORY;
+            if (current == null || !isFinal || !current.customerRef.equals(beerOrder.getCustomerRef())) {
+                return;
+            }
+
+            long finishedAt = System.nanoTime();
+            pending.compute(beerOrder.getId(), (id, entry) -> {
+                if (entry == null) {
+                    return new long[]{-1, finishedAt, target.ordinal()};
+                }
+                finish(entry[0], finishedAt, target.ordinal());
+                return null;
+            });
+        }
+
+        private void finish(long placedAt, long finishedAt, int target) {
+            if (target == path.finalStatus.ordinal()) {
+                latency.recordValue(TimeUnit.NANOSECONDS.toMicros(finishedAt - placedAt));
+            } else {
+                unexpected.incrementAndGet();
+            }
+            window.release();
+            finished.countDown();
+        }
+    }
+}
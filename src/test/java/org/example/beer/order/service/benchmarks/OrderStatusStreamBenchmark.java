@@ -0,0 +1,163 @@
+package org.example.beer.order.service.benchmarks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.beer.order.service.services.events.OrderStatusEvents;
+import org.example.beer.order.service.services.testcomponents.BeerOrderAllocationResponder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Holds 2000 idle order status streams open and reports the heap and threads they cost, then times one status
+ * change reaching all of them. Clients are plain sockets read from this thread, so client-side cost is a socket and
+ * a reader each and nearly all of the heap growth is the server's.
+ * <p>
+ * Run with {@code mvn test -Dtest=OrderStatusStreamBenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "sfg.beer-order.order-events.max-subscribers=20000")
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@Import(BeerOrderAllocationResponder.Config.class)
+class OrderStatusStreamBenchmark {
+    private static final int CONNECTIONS = 2000;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BeerOrderManager manager;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    OrderStatusEvents orderStatusEvents;
+
+    @Test
+    void idleStreamCost() throws Exception {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Stream Customer").build());
+        BeerOrder beerOrder = validationPendingOrder(customer);
+        String path = "/api/v1/customers/" + customer.getId() + "/orders/" + beerOrder.getId() + "/events";
+
+        // one stream first so the endpoint's classes and pools are warm before measuring
+        try (Stream warmUp = open(path)) {
+            warmUp.readUntil("VALIDATION_PENDING");
+        }
+
+        // the closed warm-up stream is only noticed at its next write
+        int subscribersBefore = orderStatusEvents.subscribers();
+        long heapBefore = usedHeapAfterGc();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        List<Stream> streams = new ArrayList<>(CONNECTIONS);
+        for (int i = 0; i < CONNECTIONS; i++) {
+            Stream stream = open(path);
+            stream.readUntil("VALIDATION_PENDING");
+            streams.add(stream);
+        }
+        assertEquals(CONNECTIONS, orderStatusEvents.subscribers() - subscribersBefore);
+
+        long heapAfter = usedHeapAfterGc();
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+        log.info("Idle order status streams|Connections:{}|Heap:{} KB|Heap per connection:{} bytes|Threads added:{}",
+                CONNECTIONS, (heapAfter - heapBefore) / 1024, (heapAfter - heapBefore) / CONNECTIONS,
+                threadsAfter - threadsBefore);
+
+        long start = System.nanoTime();
+        manager.processValidationResult(beerOrder.getId(), true);
+        for (Stream stream : streams) {
+            stream.readUntil("\"ALLOCATED\"");
+        }
+        log.info("Status change fanned out|Connections:{}|Millis:{}", CONNECTIONS,
+                (System.nanoTime() - start) / 1_000_000);
+
+        for (Stream stream : streams) {
+            stream.close();
+        }
+    }
+
+    private Stream open(String path) throws IOException {
+        Socket socket = new Socket("localhost", port);
+        socket.getOutputStream().write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n"
+                + "Accept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+        return new Stream(socket);
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private BeerOrder validationPendingOrder(Customer customer) {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .customer(customer)
+                .orderStatus(BeerOrderStatusEnum.VALIDATION_PENDING)
+                .build();
+        beerOrder.setBeerOrderLines(Set.of(BeerOrderLine.builder()
+                .beerId(UUID.randomUUID())
+                .upc("12345")
+                .orderQuantity(1)
+                .beerOrder(beerOrder)
+                .build()));
+        return beerOrderRepository.save(beerOrder);
+    }
+
+    private static class Stream implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader reader;
+
+        private Stream(Socket socket) throws IOException {
+            this.socket = socket;
+            this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8), 256);
+        }
+
+        private void readUntil(String text) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.contains(text)) {
+                    return;
+                }
+            }
+            throw new IOException("Stream ended before " + text);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
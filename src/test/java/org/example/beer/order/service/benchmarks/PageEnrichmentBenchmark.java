@@ -0,0 +1,114 @@
+package org.example.beer.order.service.benchmarks;
+
+import org.example.beer.order.service.services.beer.BeerOrderEnricher;
+import org.example.beer.order.service.web.mappers.BeerDetails;
+import org.example.beer.order.service.services.beer.BeerService;
+import org.example.brewery.model.BeerDto;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency of enriching one page of 25 orders against a beer service with a fixed round trip time, comparing a
+ * lookup per line (what {@code BeerOrderLineMapperDecorator} does) with {@link BeerOrderEnricher}.
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile} and then this class' {@code main}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageEnrichmentBenchmark {
+    private static final int ORDERS_PER_PAGE = 25;
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"perLine", "enricher"})
+    public String mode;
+
+    @Param({"4", "20"})
+    public int linesPerOrder;
+
+    @Param({"3", "50"})
+    public int distinctUpcs;
+
+    private BeerService beerService;
+    private BeerOrderEnricher enricher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        beerService = new BeerService() {
+            @Override
+            public Optional<BeerDto> getBeerById(UUID uuid) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Optional<BeerDto> getBeerByUpc(String upc) {
+                LockSupport.parkNanos(ROUND_TRIP_NANOS);
+                return Optional.of(BeerDto.builder().id(UUID.randomUUID()).upc(upc).beerName("Beer " + upc).build());
+            }
+        };
+        enricher = new BeerOrderEnricher(beerService, 8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        enricher.shutdown();
+    }
+
+    @Benchmark
+    public List<BeerOrderDto> enrichPage() {
+        List<BeerOrderDto> page = page();
+
+        if ("enricher".equals(mode)) {
+            enricher.enrich(page);
+        } else {
+            page.forEach(beerOrder -> beerOrder.getBeerOrderLines().forEach(line ->
+                    beerService.getBeerByUpc(line.getUpc()).ifPresent(beerDto -> BeerDetails.apply(line, beerDto))));
+        }
+
+        return page;
+    }
+
+    private List<BeerOrderDto> page() {
+        List<BeerOrderDto> page = new ArrayList<>(ORDERS_PER_PAGE);
+
+        for (int i = 0; i < ORDERS_PER_PAGE; i++) {
+            List<BeerOrderLineDto> lines = new ArrayList<>(linesPerOrder);
+            for (int j = 0; j < linesPerOrder; j++) {
+                lines.add(BeerOrderLineDto.builder().upc("upc-" + (i * linesPerOrder + j) % distinctUpcs).build());
+            }
+            page.add(BeerOrderDto.builder().id(UUID.randomUUID()).beerOrderLines(lines).build());
+        }
+
+        return page;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PageEnrichmentBenchmark.class.getSimpleName()).build()).run();
+    }
+}
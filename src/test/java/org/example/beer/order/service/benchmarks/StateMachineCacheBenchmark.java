@@ -0,0 +1,217 @@
+package org.example.beer.order.service.benchmarks;
+
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.services.BeerOrderManagerImpl;
+import org.example.beer.order.service.sm.BeerOrderStateChangeInterceptor;
+import org.example.beer.order.service.sm.BeerOrderStateMachineCache;
+import org.example.beer.order.service.sm.BeerOrderStateMachineConfig;
+import org.example.beer.order.service.sm.BeerOrderStatusRegistry;
+import org.example.beer.order.service.sm.BeerOrderTransitionListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.action.Action;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.statemachine.support.DefaultStateMachineContext;
+import reactor.core.publisher.Mono;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events/sec through the order state machine on a single thread, comparing the per-order
+ * {@link BeerOrderStateMachineCache} with building, stopping, resetting and restarting a machine for every event.
+ * Each operation takes one order through its full happy-path lifecycle (five events).
+ * <p>
+ * Run with {@code mvn -Pbenchmark test-compile} and then this class' {@code main}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class StateMachineCacheBenchmark {
+
+    private static final BeerOrderEventEnum[] LIFECYCLE = {
+            BeerOrderEventEnum.VALIDATE_ORDER,
+            BeerOrderEventEnum.VALIDATION_PASSED,
+            BeerOrderEventEnum.ALLOCATE_ORDER,
+            BeerOrderEventEnum.ALLOCATION_SUCCESS,
+            BeerOrderEventEnum.BEER_ORDER_PICKED_UP};
+
+    @Param({"cached", "rebuild"})
+    public String mode;
+
+    private AnnotationConfigApplicationContext context;
+    private StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory;
+    private BeerOrderStateChangeInterceptor interceptor;
+    private BeerOrderStateMachineCache cache;
+    private Map<UUID, BeerOrder> orders;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        context = new AnnotationConfigApplicationContext(BenchmarkConfig.class);
+        stateMachineFactory = context.getBean(StateMachineFactory.class);
+        interceptor = context.getBean(BeerOrderStateChangeInterceptor.class);
+        cache = context.getBean(BeerOrderStateMachineCache.class);
+        orders = context.getBean(BenchmarkConfig.class).orders;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(5)
+    public BeerOrderStatusEnum orderLifecycle() {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .id(UUID.randomUUID())
+                .orderStatus(BeerOrderStatusEnum.NEW)
+                .build();
+        orders.put(beerOrder.getId(), beerOrder);
+
+        for (BeerOrderEventEnum event : LIFECYCLE) {
+            Message<BeerOrderEventEnum> message = MessageBuilder.withPayload(event)
+                    .setHeader(BeerOrderManagerImpl.ORDER_ID_HEADER, beerOrder.getId().toString()).build();
+
+            if ("cached".equals(mode)) {
+                cache.withStateMachine(beerOrder, sm -> sm.sendEvent(Mono.just(message)).blockLast());
+            } else {
+                rebuild(beerOrder).sendEvent(Mono.just(message)).blockLast();
+            }
+        }
+
+        orders.remove(beerOrder.getId());
+        return beerOrder.getOrderStatus();
+    }
+
+    /**
+     * The per-event path the cache replaced.
+     */
+    private StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> rebuild(BeerOrder beerOrder) {
+        StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> sm = stateMachineFactory.getStateMachine(beerOrder.getId());
+
+        sm.stopReactively().subscribe();
+
+        sm.getStateMachineAccessor().doWithAllRegions(sma -> {
+            sma.addStateMachineInterceptor(interceptor);
+            sma.resetStateMachineReactively(new DefaultStateMachineContext<>(beerOrder.getOrderStatus(), null, null, null)).subscribe();
+        });
+
+        sm.startReactively().subscribe();
+
+        return sm;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StateMachineCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    /**
+     * Not a {@code @Configuration} so component scanning in the Spring Boot tests doesn't pick it up.
+     */
+    @Import(BeerOrderStateMachineConfig.class)
+    static class BenchmarkConfig {
+        final Map<UUID, BeerOrder> orders = new ConcurrentHashMap<>();
+        final List<BeerOrderTransitionListener> transitionListeners = new CopyOnWriteArrayList<>();
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateOrderAction() {
+            return context -> { };
+        }
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocateOrderAction() {
+            return context -> { };
+        }
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> deallocateOrderAction() {
+            return context -> { };
+        }
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> validationFailureAction() {
+            return context -> { };
+        }
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocationFailureAction() {
+            return context -> { };
+        }
+
+        @Bean
+        BeerOrderStateChangeInterceptor beerOrderStateChangeInterceptor() {
+            BeerOrderRepository repository = (BeerOrderRepository) Proxy.newProxyInstance(
+                    BeerOrderRepository.class.getClassLoader(), new Class<?>[]{BeerOrderRepository.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "compareAndSetStatus":
+                                BeerOrder beerOrder = orders.get((UUID) args[0]);
+                                if (beerOrder.getOrderStatus() != args[1]) {
+                                    return 0;
+                                }
+                                beerOrder.setOrderStatus((BeerOrderStatusEnum) args[2]);
+                                return 1;
+                            default:
+                                return null;
+                        }
+                    });
+
+            // orders here are plain objects, never managed
+            EntityManager entityManager = (EntityManager) Proxy.newProxyInstance(
+                    EntityManager.class.getClassLoader(), new Class<?>[]{EntityManager.class},
+                    (proxy, method, args) -> "contains".equals(method.getName()) ? false : null);
+
+            return new BeerOrderStateChangeInterceptor(repository, entityManager,
+                    new BeerOrderStatusRegistry(new SimpleMeterRegistry(), Duration.ofSeconds(1)), transitionListeners);
+        }
+
+        @Bean
+        BeerOrderStateMachineCache beerOrderStateMachineCache(
+                StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory,
+                BeerOrderStateChangeInterceptor interceptor) {
+            return new BeerOrderStateMachineCache(stateMachineFactory, interceptor, new SimpleMeterRegistry(), 1000);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.beer.order.service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.brewery.model.BeerDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Fires conflicting validation results (half pass, half fail) at a small set of orders from many threads with the
+ * striped executor off, so transitions for the same order really race in the database. It uses the compiled engine:
+ * the Spring engine's per-order machine lock, taken while a row lock is held, deadlocks against the database once
+ * events for an order are no longer serialized, and only the lock timeout breaks it. Reports throughput, how
+ * many deliveries lost a race and the JDBC statements prepared per delivery. H2 reports a write to a row another
+ * transaction has just changed as a concurrency failure rather than re-checking the WHERE clause the way PostgreSQL
+ * does, so any {@link ConcurrencyFailureException} counts as a lost race. Its lock timeout is raised because the pool
+ * treats a timed out lock wait as a broken connection.
+ * <p>
+ * Only the public manager API is used so the same class can be run against an older revision for a
+ * before/after comparison: {@code mvn test -Dtest=StatusContentionBenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@TestPropertySource(properties = {
+        "sfg.beer-order.striped-executor.enabled=false",
+        "sfg.beer-order.state-machine.engine=compiled",
+        "spring.datasource.url=jdbc:h2:mem:contention;LOCK_TIMEOUT=30000",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"})
+class StatusContentionBenchmark {
+    private static final int ORDERS = 200;
+    private static final int DELIVERIES_PER_ORDER = 8;
+    private static final int LISTENER_THREADS = 16;
+
+    @Autowired
+    BeerOrderManager manager;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void conflictingValidationResults() throws Exception {
+        wireMockServer.stubFor(get(urlPathMatching("/api/v1/beerUpc/.*"))
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder()
+                        .id(UUID.randomUUID()).upc("12345").build()))));
+
+        List<UUID> orderIds = createPendingOrders();
+        List<Delivery> deliveries = new ArrayList<>(ORDERS * DELIVERIES_PER_ORDER);
+        for (int i = 0; i < DELIVERIES_PER_ORDER; i++) {
+            boolean isValid = i % 2 == 0;
+            orderIds.forEach(orderId -> deliveries.add(new Delivery(orderId, isValid)));
+        }
+        Collections.shuffle(deliveries);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ExecutorService listenerThreads = Executors.newFixedThreadPool(LISTENER_THREADS);
+        List<Future<?>> results = new ArrayList<>(deliveries.size());
+
+        long start = System.nanoTime();
+        deliveries.forEach(delivery -> results.add(listenerThreads.submit(
+                () -> manager.processValidationResult(delivery.orderId, delivery.isValid))));
+        int lostRaces = 0;
+        int failed = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                // a listener would have the broker redeliver these
+                if (e.getCause() instanceof ConcurrencyFailureException) {
+                    lostRaces++;
+                } else {
+                    failed++;
+                    log.warn("Delivery failed", e.getCause());
+                }
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        listenerThreads.shutdown();
+
+        double seconds = elapsedNanos / 1_000_000_000d;
+        log.info("Conflicting validation results: {} in {} s|{} msg/s|lost races:{}|failed:{}|statements/delivery:{}"
+                        + "|threads:{}", deliveries.size(), String.format("%.2f", seconds),
+                String.format("%.1f", deliveries.size() / seconds), lostRaces, failed,
+                String.format("%.2f", statistics.getPrepareStatementCount() / (double) deliveries.size()),
+                LISTENER_THREADS);
+
+        assertEquals(0, failed);
+        orderIds.forEach(orderId -> assertNotEquals(BeerOrderStatusEnum.VALIDATION_PENDING,
+                beerOrderRepository.findById(orderId).orElseThrow().getOrderStatus()));
+    }
+
+    private List<UUID> createPendingOrders() {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Contention Customer").build());
+        List<UUID> orderIds = new ArrayList<>(ORDERS);
+
+        for (int i = 0; i < ORDERS; i++) {
+            BeerOrder beerOrder = BeerOrder.builder()
+                    .customer(customer)
+                    .customerRef("dont-allocate")
+                    .orderStatus(BeerOrderStatusEnum.VALIDATION_PENDING)
+                    .build();
+            beerOrder.setBeerOrderLines(Collections.singleton(BeerOrderLine.builder()
+                    .beerId(UUID.randomUUID())
+                    .upc("12345")
+                    .orderQuantity(1)
+                    .beerOrder(beerOrder)
+                    .build()));
+            orderIds.add(beerOrderRepository.save(beerOrder).getId());
+        }
+
+        return orderIds;
+    }
+
+    private static class Delivery {
+        private final UUID orderId;
+        private final boolean isValid;
+
+        private Delivery(UUID orderId, boolean isValid) {
+            this.orderId = orderId;
+            this.isValid = isValid;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.beer.order.service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.beer.order.service.services.loadgen.LoadReport;
+import org.example.beer.order.service.services.loadgen.TastingRoomLoadGenerator;
+import org.example.beer.order.service.services.testcomponents.BeerOrderAllocationResponder;
+import org.example.brewery.model.BeerDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs {@link TastingRoomLoadGenerator} entirely in-process: the embedded Artemis broker, the stub validation and
+ * allocation listeners from {@code services.testcomponents} and a WireMock beer service answering in 5 ms. The
+ * percentile report is logged at the end of the run.
+ * <p>
+ * Rate, concurrency, duration and the line and UPC mixes are plain properties, so a run can be shaped from the
+ * command line, e.g. {@code mvn test -Dtest=TastingRoomLoadBenchmark
+ * -Dsfg.beer-order.tasting-room.load.orders-per-second=200 -Dsfg.beer-order.tasting-room.load.duration=2m}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@Import(BeerOrderAllocationResponder.Config.class)
+@TestPropertySource(properties = {
+        "sfg.beer-order.tasting-room.load.enabled=true",
+        "sfg.beer-order.tasting-room.load.autostart=false",
+        "sfg.beer-order.tasting-room.load.orders-per-second=${load.orders-per-second:20}",
+        "sfg.beer-order.tasting-room.load.duration=${load.duration:20s}",
+        "logging.level.org.example=info"})
+class TastingRoomLoadBenchmark {
+
+    @Autowired
+    TastingRoomLoadGenerator loadGenerator;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void tastingRoomLoad() throws Exception {
+        wireMockServer.stubFor(get(urlPathMatching(BeerServiceImpl.BEER_UPC_PATH_V1 + ".*"))
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder()
+                        .id(UUID.randomUUID()).beerName("Tasting Room Beer").price(new BigDecimal("4.50")).build()))
+                        .withFixedDelay(5)));
+
+        LoadReport report = loadGenerator.run();
+
+        assertEquals(0, report.getFailed());
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.beer.order.service.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.brewery.model.BeerDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+/**
+ * Drives validation results for 1k orders through {@link BeerOrderManager} from a pool of threads sized like a
+ * busy listener container. Every result is delivered twice, as happens on broker redelivery, so the second
+ * delivery hits an order that has already moved on.
+ * <p>
+ * Only the public manager API is used so the same class can be run against an older revision for a
+ * before/after comparison: {@code mvn test -Dtest=ValidationResultThroughputBenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+class ValidationResultThroughputBenchmark {
+    private static final int ORDERS = 1000;
+    private static final int DELIVERIES_PER_ORDER = 2;
+    private static final int LISTENER_THREADS = 16;
+
+    @Autowired
+    BeerOrderManager manager;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void validationResultThroughput() throws Exception {
+        wireMockServer.stubFor(get(urlPathMatching("/api/v1/beerUpc/.*"))
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder()
+                        .id(UUID.randomUUID()).upc("12345").build()))));
+
+        List<UUID> orderIds = createPendingOrders();
+        List<UUID> deliveries = new ArrayList<>(ORDERS * DELIVERIES_PER_ORDER);
+        for (int i = 0; i < DELIVERIES_PER_ORDER; i++) {
+            deliveries.addAll(orderIds);
+        }
+        Collections.shuffle(deliveries);
+
+        ExecutorService listenerThreads = Executors.newFixedThreadPool(LISTENER_THREADS);
+        List<Future<?>> results = new ArrayList<>(deliveries.size());
+
+        long start = System.nanoTime();
+        deliveries.forEach(orderId ->
+                results.add(listenerThreads.submit(() -> manager.processValidationResult(orderId, true))));
+        int failed = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                // a listener would have the broker redeliver these
+                failed++;
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        listenerThreads.shutdown();
+
+        double seconds = elapsedNanos / 1_000_000_000d;
+        log.info("Validation results processed: {} in {} s|{} msg/s|failed:{}|threads:{}", deliveries.size(),
+                String.format("%.2f", seconds), String.format("%.1f", deliveries.size() / seconds), failed,
+                LISTENER_THREADS);
+    }
+
+    private List<UUID> createPendingOrders() {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Benchmark Customer").build());
+        List<UUID> orderIds = new ArrayList<>(ORDERS);
+
+        for (int i = 0; i < ORDERS; i++) {
+            BeerOrder beerOrder = BeerOrder.builder()
+                    .customer(customer)
+                    .customerRef("dont-allocate")
+                    .orderStatus(BeerOrderStatusEnum.VALIDATION_PENDING)
+                    .build();
+            beerOrder.setBeerOrderLines(Collections.singleton(BeerOrderLine.builder()
+                    .beerId(UUID.randomUUID())
+                    .upc("12345")
+                    .orderQuantity(1)
+                    .beerOrder(beerOrder)
+                    .build()));
+            orderIds.add(beerOrderRepository.save(beerOrder).getId());
+        }
+
+        return orderIds;
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.beer.order.service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExecutorFactoryTest {
+
+    SimpleMeterRegistry meterRegistry;
+    ExecutorFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new ExecutorFactory(meterRegistry, false);
+    }
+
+    @Test
+    void abortPolicyRejectsOnceThePoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) factory.taskExecutor("test", 1, 1, 1,
+                ExecutorFactory.RejectionPolicy.ABORT);
+        try {
+            executor.execute(() -> await(release));
+            executor.execute(() -> await(release));
+
+            assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+            assertEquals(1, meterRegistry.get("beer.order.executor.rejected").tag("name", "test").counter().count());
+            assertEquals(1, meterRegistry.get("beer.order.executor.queued").tag("name", "test").gauge().value());
+            assertEquals(1, meterRegistry.get("beer.order.executor.active").tag("name", "test").gauge().value());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void callerRunsPolicyRunsRejectedTasksOnTheCallersThread() {
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) factory.taskExecutor("test", 1, 1, 0,
+                ExecutorFactory.RejectionPolicy.CALLER_RUNS);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        try {
+            executor.execute(() -> await(release));
+            executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+            assertEquals(Thread.currentThread(), ranOn.get());
+            assertEquals(1, meterRegistry.get("beer.order.executor.rejected").tag("name", "test").counter().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void virtualThreadsRunTasksOrFailAtStartupWithoutJdkSupport() throws Exception {
+        if (Runtime.version().feature() < 21) {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> new ExecutorFactory(meterRegistry, true));
+            assertTrue(e.getMessage().contains("sfg.beer-order.executor.virtual-threads"));
+            return;
+        }
+
+        ExecutorFactory virtual = new ExecutorFactory(meterRegistry, true);
+        AsyncTaskExecutor executor = virtual.taskExecutor("virtual", 1, 1, 10, ExecutorFactory.RejectionPolicy.ABORT);
+        AtomicReference<String> threadName = new AtomicReference<>();
+
+        executor.submit(() -> threadName.set(Thread.currentThread().getName())).get(5, TimeUnit.SECONDS);
+
+        assertTrue(threadName.get().startsWith("virtual-"));
+        assertTrue(virtual.isVirtualThreads());
+        assertNull(meterRegistry.find("beer.order.executor.queued").tag("name", "virtual").gauge());
+    }
+
+    @Test
+    void rejectionPolicyNamesAcceptPropertyStyle() {
+        assertEquals(ExecutorFactory.RejectionPolicy.CALLER_RUNS, ExecutorFactory.RejectionPolicy.of("caller-runs"));
+        assertEquals(ExecutorFactory.RejectionPolicy.ABORT, ExecutorFactory.RejectionPolicy.of("ABORT"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
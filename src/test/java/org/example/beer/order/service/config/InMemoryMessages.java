@@ -0,0 +1,90 @@
+package org.example.beer.order.service.config;
+
+import javax.jms.BytesMessage;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Text and bytes messages that only keep their body and string properties, from a session that makes nothing else,
+ * for exercising message converters without a broker.
+ */
+public final class InMemoryMessages {
+
+    private InMemoryMessages() {
+    }
+
+    public static Session session() {
+        return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{Session.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "createTextMessage":
+                            TextMessage textMessage = textMessage();
+                            if (args != null) {
+                                textMessage.setText((String) args[0]);
+                            }
+                            return textMessage;
+                        case "createBytesMessage":
+                            return bytesMessage();
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    public static TextMessage textMessage() {
+        return (TextMessage) message(TextMessage.class);
+    }
+
+    public static BytesMessage bytesMessage() {
+        return (BytesMessage) message(BytesMessage.class);
+    }
+
+    /**
+     * Size of the body a message was given, in bytes; text is counted as UTF-8.
+     */
+    public static int bodySize(Message message) throws Exception {
+        if (message instanceof TextMessage) {
+            return ((TextMessage) message).getText().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return (int) ((BytesMessage) message).getBodyLength();
+    }
+
+    private static Message message(Class<? extends Message> type) {
+        Map<String, Object> properties = new HashMap<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        String[] text = new String[1];
+
+        return (Message) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setStringProperty":
+                            properties.put((String) args[0], args[1]);
+                            return null;
+                        case "getStringProperty":
+                            return properties.get(args[0]);
+                        case "setText":
+                            text[0] = (String) args[0];
+                            return null;
+                        case "getText":
+                            return text[0];
+                        case "writeBytes":
+                            bytes.write((byte[]) args[0]);
+                            return null;
+                        case "getBodyLength":
+                            return (long) bytes.size();
+                        case "readBytes":
+                            byte[] body = bytes.toByteArray();
+                            System.arraycopy(body, 0, args[0], 0, body.length);
+                            return body.length;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.beer.order.service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.beer.order.service.config.NegotiatingMessageConverter.Encoding;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.example.brewery.model.events.AllocateOrderRequest;
+import org.example.brewery.model.events.ValidateOrderResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jms.support.converter.MessageConversionException;
+
+import javax.jms.BytesMessage;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NegotiatingMessageConverterTest {
+
+    ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    Session session = InMemoryMessages.session();
+
+    @Test
+    void jsonWithClassNamesMatchesThePreviousWireFormat() throws Exception {
+        AllocateOrderRequest request = new AllocateOrderRequest(beerOrder(3));
+
+        Message message = converter(Encoding.JSON, false).toMessage(request, session);
+
+        TextMessage textMessage = assertInstanceOf(TextMessage.class, message);
+        assertEquals(AllocateOrderRequest.class.getName(), message.getStringProperty(JmsConfig.TYPE_ID_PROPERTY));
+        assertEquals("application/json", message.getStringProperty(JmsConfig.CONTENT_TYPE_PROPERTY));
+        assertEquals(request, jsonMapper.readValue(textMessage.getText(), AllocateOrderRequest.class));
+    }
+
+    @Test
+    void smileWithAliasesRoundTrips() throws Exception {
+        AllocateOrderRequest request = new AllocateOrderRequest(beerOrder(10));
+        NegotiatingMessageConverter converter = converter(Encoding.SMILE, true);
+
+        Message message = converter.toMessage(request, session);
+
+        assertInstanceOf(BytesMessage.class, message);
+        assertEquals("AllocateOrderRequest", message.getStringProperty(JmsConfig.TYPE_ID_PROPERTY));
+        assertEquals("application/x-jackson-smile", message.getStringProperty(JmsConfig.CONTENT_TYPE_PROPERTY));
+        assertEquals(request, converter.fromMessage(message));
+        assertTrue(InMemoryMessages.bodySize(message)
+                < InMemoryMessages.bodySize(converter(Encoding.JSON, true).toMessage(request, session)));
+    }
+
+    @Test
+    void readsWhateverEncodingTheProducerChose() throws Exception {
+        AllocateOrderRequest request = new AllocateOrderRequest(beerOrder(2));
+
+        Message smile = converter(Encoding.SMILE, true).toMessage(request, session);
+        Message json = converter(Encoding.JSON, false).toMessage(request, session);
+
+        assertEquals(request, converter(Encoding.JSON, false).fromMessage(smile));
+        assertEquals(request, converter(Encoding.SMILE, true).fromMessage(json));
+    }
+
+    @Test
+    void readsMessagesWithoutContentType() throws Exception {
+        ValidateOrderResult result = ValidateOrderResult.builder().orderId(UUID.randomUUID()).isValid(true).build();
+        TextMessage message = InMemoryMessages.textMessage();
+        message.setText(jsonMapper.writeValueAsString(result));
+        message.setStringProperty(JmsConfig.TYPE_ID_PROPERTY, ValidateOrderResult.class.getName());
+
+        assertEquals(result, converter(Encoding.SMILE, true).fromMessage(message));
+    }
+
+    @Test
+    void transcodesOutboxJsonToSmile() throws Exception {
+        AllocateOrderRequest request = new AllocateOrderRequest(beerOrder(5));
+        NegotiatingMessageConverter converter = converter(Encoding.SMILE, true);
+
+        Message message = converter.toMessage(jsonMapper.writeValueAsString(request),
+                AllocateOrderRequest.class.getName(), session);
+
+        assertInstanceOf(BytesMessage.class, message);
+        assertEquals("AllocateOrderRequest", message.getStringProperty(JmsConfig.TYPE_ID_PROPERTY));
+        assertEquals(request, converter.fromMessage(message));
+    }
+
+    @Test
+    void rejectsUnregisteredTypes() throws Exception {
+        TextMessage message = InMemoryMessages.textMessage();
+        message.setText("{}");
+        message.setStringProperty(JmsConfig.TYPE_ID_PROPERTY, "java.util.HashMap");
+        NegotiatingMessageConverter converter = converter(Encoding.JSON, true);
+
+        assertThrows(MessageConversionException.class, () -> converter.fromMessage(message));
+        assertThrows(MessageConversionException.class, () -> converter.toMessage(beerOrder(1), session));
+    }
+
+    NegotiatingMessageConverter converter(Encoding encoding, boolean typeAliases) {
+        return new NegotiatingMessageConverter(jsonMapper, Jackson2ObjectMapperBuilder.smile().build(), encoding,
+                typeAliases, JmsConfig.MESSAGE_TYPES);
+    }
+
+    static BeerOrderDto beerOrder(int lines) {
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+        List<BeerOrderLineDto> orderLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            orderLines.add(BeerOrderLineDto.builder().id(UUID.randomUUID()).version(1).createdDate(now)
+                    .lastModifiedDate(now).upc(String.valueOf(631234200000L + i)).beerName("Beer " + i)
+                    .beerStyle("IPA").beerId(UUID.randomUUID()).orderQuantity(12).build());
+        }
+        return BeerOrderDto.builder().id(UUID.randomUUID()).version(1).createdDate(now).lastModifiedDate(now)
+                .customerId(UUID.randomUUID()).customerRef("converter-test").beerOrderLines(orderLines)
+                .orderStatus("ALLOCATION_PENDING").build();
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.beer.order.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.sm.BeerOrderStateMachineConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BeerOrderTransitionMetricsTest {
+
+    SimpleMeterRegistry meterRegistry;
+    BeerOrderTransitionMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new BeerOrderTransitionMetrics(meterRegistry, new BeerOrderStateMachineConfig(null, null, null, null, null));
+    }
+
+    @Test
+    void everyDeclaredTransitionIsRegisteredUpFront() {
+        assertEquals(0, meterRegistry.get("beer.order.transitions")
+                .tag("source", "ALLOCATED").tag("event", "CANCEL_ORDER").tag("target", "CANCELLED")
+                .counter().count());
+        assertNull(meterRegistry.find("beer.order.transitions").tag("source", "PICKED_UP").counter());
+    }
+
+    @Test
+    void transitionIsCountedAndTimeInSourceRecorded() {
+        long now = System.currentTimeMillis();
+        BeerOrder beerOrder = order(now - 60_000);
+
+        metrics.transitioned(beerOrder, BeerOrderStatusEnum.VALIDATION_PENDING, BeerOrderEventEnum.VALIDATION_PASSED,
+                BeerOrderStatusEnum.VALIDATED, new Timestamp(now - 5_000));
+
+        assertEquals(1, meterRegistry.get("beer.order.transitions")
+                .tag("source", "VALIDATION_PENDING").tag("event", "VALIDATION_PASSED").counter().count());
+        double seconds = meterRegistry.get("beer.order.status.duration").tag("status", "VALIDATION_PENDING")
+                .timer().totalTime(TimeUnit.SECONDS);
+        assertTrue(seconds >= 5 && seconds < 10, "time in status " + seconds);
+        assertEquals(0, meterRegistry.get("beer.order.allocation.latency").timer().count());
+    }
+
+    @Test
+    void allocationRecordsLatencySinceOrderWasPlaced() {
+        long now = System.currentTimeMillis();
+
+        metrics.transitioned(order(now - 60_000), BeerOrderStatusEnum.ALLOCATION_PENDING,
+                BeerOrderEventEnum.ALLOCATION_SUCCESS, BeerOrderStatusEnum.ALLOCATED, new Timestamp(now - 1_000));
+
+        double seconds = meterRegistry.get("beer.order.allocation.latency").timer().totalTime(TimeUnit.SECONDS);
+        assertTrue(seconds >= 60 && seconds < 65, "allocation latency " + seconds);
+    }
+
+    @Test
+    void transitionIsOnlyCountedOnceItsTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            metrics.transitioned(order(System.currentTimeMillis()), BeerOrderStatusEnum.NEW,
+                    BeerOrderEventEnum.VALIDATE_ORDER, BeerOrderStatusEnum.VALIDATION_PENDING, null);
+            metrics.transitioned(order(System.currentTimeMillis()), BeerOrderStatusEnum.NEW,
+                    BeerOrderEventEnum.VALIDATE_ORDER, BeerOrderStatusEnum.VALIDATION_PENDING, null);
+
+            assertEquals(0, transitionCount());
+            TransactionSynchronizationManager.getSynchronizations().get(0)
+                    .afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            TransactionSynchronizationManager.getSynchronizations().get(1).afterCommit();
+            assertEquals(1, transitionCount());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void listenerMetricsTagOutcome() {
+        JmsListenerMetrics listenerMetrics = new JmsListenerMetrics(meterRegistry);
+
+        listenerMetrics.record("validation-result", System.currentTimeMillis() - 2_000, () -> { });
+        assertThrows(IllegalStateException.class, () -> listenerMetrics.record("validation-result", null, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, meterRegistry.get("beer.order.listener.processing").tag("outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("beer.order.listener.processing").tag("outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get("beer.order.listener.lag").timer().count());
+    }
+
+    private double transitionCount() {
+        return meterRegistry.get("beer.order.transitions")
+                .tag("source", "NEW").tag("event", "VALIDATE_ORDER").counter().count();
+    }
+
+    private static BeerOrder order(long createdAt) {
+        return BeerOrder.builder()
+                .id(UUID.randomUUID())
+                .createdDate(new Timestamp(createdAt))
+                .build();
+    }
+}
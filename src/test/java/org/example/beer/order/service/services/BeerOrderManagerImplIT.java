@@ -9,10 +9,13 @@ import org.example.beer.order.service.initializers.WireMockInitializer;
 import org.example.beer.order.service.repositories.BeerOrderRepository;
 import org.example.beer.order.service.repositories.CustomerRepository;
 import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.beer.order.service.services.testcomponents.BeerOrderAllocationResponder;
 import org.example.brewery.model.BeerDto;
 import org.example.brewery.model.events.AllocationFailureEvent;
 import org.example.brewery.model.events.DeallocateOrderRequest;
+import org.example.brewery.model.events.InventoryRestockedEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import org.junit.jupiter.api.AfterEach;
@@ -21,15 +24,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
 import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -37,6 +47,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 @SpringBootTest
 @ContextConfiguration(initializers = {WireMockInitializer.class})
+@Import(BeerOrderAllocationResponder.Config.class)
 public class BeerOrderManagerImplIT {
 
     @Autowired
@@ -103,6 +114,50 @@ public class BeerOrderManagerImplIT {
                 line -> assertEquals(line.getOrderQuantity(), line.getQuantityAllocated()));
     }
 
+    @Test
+    void testNewToAllocatedMakesNoBeerServiceCalls() throws JsonProcessingException {
+        String upc = "no-lookup-" + UUID.randomUUID();
+        BeerDto beerDto = BeerDto.builder().id(beerId).upc(upc).build();
+
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + upc)
+                .willReturn(okJson(objectMapper.writeValueAsString(beerDto))));
+        BeerOrder beerOrder = createBeerOrder();
+        beerOrder.getBeerOrderLines().forEach(line -> line.setUpc(upc));
+
+        manager.newBeerOrder(beerOrder);
+
+        await().untilAsserted(() -> {
+            BeerOrder founded = beerOrderRepository.findById(beerOrder.getId()).orElseThrow();
+
+            assertEquals(BeerOrderStatusEnum.ALLOCATED, founded.getOrderStatus());
+        });
+
+        wireMockServer.verify(0, getRequestedFor(urlEqualTo(BeerServiceImpl.BEER_UPC_PATH_V1 + upc)));
+    }
+
+    @Test
+    void testNewToAllocatedNotifiesStatusCallback() throws JsonProcessingException {
+        String upc = "12345";
+        BeerDto beerDto = BeerDto.builder().id(beerId).upc(upc).build();
+
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + upc)
+                .willReturn(okJson(objectMapper.writeValueAsString(beerDto))));
+        String callbackPath = "/order-status/" + UUID.randomUUID();
+        wireMockServer.stubFor(post(callbackPath).willReturn(ok()));
+        BeerOrder beerOrder = createBeerOrder();
+        beerOrder.setOrderStatusCallbackUrl(wireMockServer.baseUrl() + callbackPath);
+
+        manager.newBeerOrder(beerOrder);
+
+        // bodies are checked here, JSON path matchers fail on the journal's body-less GETs
+        await().untilAsserted(() -> assertThat(wireMockServer.findAll(postRequestedFor(urlEqualTo(callbackPath))))
+                .anySatisfy(request -> {
+                    JsonNode update = objectMapper.readTree(request.getBodyAsString());
+                    assertEquals(beerOrder.getId().toString(), update.get("orderId").asText());
+                    assertEquals("ALLOCATED", update.get("orderStatus").asText());
+                }));
+    }
+
     @Test
     void testFailedValidation() throws JsonProcessingException {
         String upc = "12345";
@@ -194,6 +249,65 @@ public class BeerOrderManagerImplIT {
         });
     }
 
+    @Test
+    void testPendingInventoryReallocatedOnRestock() throws JsonProcessingException {
+        String upc = "12345";
+        BeerDto beerDto = BeerDto.builder().id(beerId).upc(upc).build();
+
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + upc)
+                .willReturn(okJson(objectMapper.writeValueAsString(beerDto))));
+
+        BeerOrder beerOrder = createBeerOrder();
+        beerOrder.setCustomerRef("partial-allocation");
+
+        manager.newBeerOrder(beerOrder);
+
+        await().untilAsserted(() -> {
+            BeerOrder foundOrder = beerOrderRepository.findById(beerOrder.getId()).get();
+            assertEquals(BeerOrderStatusEnum.PENDING_INVENTORY, foundOrder.getOrderStatus());
+        });
+
+        // the stub allocation service fills the order in full once it no longer asks for a partial allocation
+        BeerOrder pendingOrder = beerOrderRepository.findById(beerOrder.getId()).get();
+        pendingOrder.setCustomerRef(null);
+        beerOrderRepository.saveAndFlush(pendingOrder);
+
+        jmsTemplate.convertAndSend(JmsConfig.INVENTORY_RESTOCKED_QUEUE,
+                InventoryRestockedEvent.builder().upcs(List.of(upc)).build());
+
+        await().untilAsserted(() -> {
+            BeerOrder foundOrder = beerOrderRepository.findById(beerOrder.getId()).get();
+            assertEquals(BeerOrderStatusEnum.ALLOCATED, foundOrder.getOrderStatus());
+        });
+    }
+
+    @Test
+    void testRepeatedValidationResultLeavesPendingInventoryAlone() throws JsonProcessingException {
+        String upc = "12345";
+        BeerDto beerDto = BeerDto.builder().id(beerId).upc(upc).build();
+
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + upc)
+                .willReturn(okJson(objectMapper.writeValueAsString(beerDto))));
+
+        BeerOrder beerOrder = createBeerOrder();
+        beerOrder.setCustomerRef("partial-allocation");
+
+        manager.newBeerOrder(beerOrder);
+
+        await().untilAsserted(() -> {
+            BeerOrder foundOrder = beerOrderRepository.findById(beerOrder.getId()).get();
+            assertEquals(BeerOrderStatusEnum.PENDING_INVENTORY, foundOrder.getOrderStatus());
+        });
+        Long pendingVersion = beerOrderRepository.findById(beerOrder.getId()).get().getVersion();
+
+        // a redelivered validation result must not ask for allocation again
+        manager.processValidationResult(beerOrder.getId(), true);
+
+        BeerOrder foundOrder = beerOrderRepository.findById(beerOrder.getId()).get();
+        assertEquals(BeerOrderStatusEnum.PENDING_INVENTORY, foundOrder.getOrderStatus());
+        assertEquals(pendingVersion, foundOrder.getVersion());
+    }
+
     @Test
     void testValidationPendingToCancel() throws JsonProcessingException {
         String upc = "12345";
@@ -0,0 +1,227 @@
+package org.example.beer.order.service.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.archive.OrderArchiver;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.beer.order.service.services.testcomponents.ThreadStatementCounter;
+import org.example.brewery.model.BeerDto;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderLineDto;
+import org.example.brewery.model.BeerOrderPagedList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs with the beer cache disabled so every beer lookup reaches the WireMock beer service, and with the statements
+ * each call runs counted.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@TestPropertySource(properties = {"sfg.beer-order.beer-cache.enabled=false", ThreadStatementCounter.PROPERTY})
+class BeerOrderServiceImplIT {
+    private static final List<String> UPCS = List.of("9000000000001", "9000000000002", "9000000000003");
+    private static final int ORDERS = 25;
+    private static final int LINES_PER_ORDER = 4;
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    OrderArchiver archiver;
+
+    Customer testCustomer;
+
+    Map<String, BeerDto> beersByUpc = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        testCustomer = customerRepository.save(Customer.builder()
+                .customerName("Enrichment Customer")
+                .build());
+
+        for (String upc : UPCS) {
+            BeerDto beerDto = BeerDto.builder().id(UUID.randomUUID()).upc(upc)
+                    .beerName("Beer " + upc).beerStyle("IPA").price(new BigDecimal("9.99")).build();
+            beersByUpc.put(upc, beerDto);
+            wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + upc)
+                    .willReturn(okJson(objectMapper.writeValueAsString(beerDto))));
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            saveOrder(i, BeerOrderStatusEnum.ALLOCATED);
+        }
+    }
+
+    UUID saveOrder(int i, BeerOrderStatusEnum status) {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .customer(testCustomer)
+                .orderStatus(status)
+                .build();
+
+        Set<BeerOrderLine> lines = new HashSet<>();
+        for (int j = 0; j < LINES_PER_ORDER; j++) {
+            lines.add(BeerOrderLine.builder()
+                    .upc(UPCS.get((i + j) % UPCS.size()))
+                    .orderQuantity(1)
+                    .beerOrder(beerOrder)
+                    .build());
+        }
+        beerOrder.setBeerOrderLines(lines);
+
+        return beerOrderRepository.save(beerOrder).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.resetAll();
+    }
+
+    @Test
+    void listOrdersLooksUpEachDistinctUpcOnce() {
+        BeerOrderPagedList page = beerOrderService.listOrders(testCustomer.getId(), PageRequest.of(0, ORDERS));
+
+        assertEquals(ORDERS, page.getContent().size());
+        for (BeerOrderDto beerOrder : page.getContent()) {
+            assertEquals(LINES_PER_ORDER, beerOrder.getBeerOrderLines().size());
+
+            for (BeerOrderLineDto line : beerOrder.getBeerOrderLines()) {
+                BeerDto beerDto = beersByUpc.get(line.getUpc());
+                assertEquals(beerDto.getBeerName(), line.getBeerName());
+                assertEquals(beerDto.getBeerStyle(), line.getBeerStyle());
+                assertEquals(beerDto.getPrice(), line.getPrice());
+                assertEquals(beerDto.getId(), line.getBeerId());
+            }
+        }
+
+        UPCS.forEach(upc -> wireMockServer.verify(1, getRequestedFor(urlEqualTo(BeerServiceImpl.BEER_UPC_PATH_V1 + upc))));
+    }
+
+    @Test
+    void listOrdersStatementsDoNotGrowWithThePageSize() {
+        // more orders than a page of 100 holds
+        int hot = 150;
+        for (int i = ORDERS; i < hot; i++) {
+            saveOrder(i, BeerOrderStatusEnum.ALLOCATED);
+        }
+        int archived = 5;
+        for (int i = 0; i < archived; i++) {
+            saveOrder(i, BeerOrderStatusEnum.PICKED_UP);
+        }
+        archiver.archiveOlderThan(Timestamp.from(Instant.now().plusSeconds(60)));
+        // the customer lookup is cached from then on
+        beerOrderService.listOrders(testCustomer.getId(), PageRequest.of(0, 1));
+
+        // the id page with its total, then the hot orders with their lines
+        for (int pageSize : new int[]{1, 5, ORDERS, 100, hot}) {
+            assertStatements(2, PageRequest.of(0, pageSize), pageSize, hot + archived);
+        }
+        // and the archived orders with theirs
+        assertStatements(3, PageRequest.of(1, 100, Sort.by(Sort.Direction.DESC, "createdDate")), hot - 100 + archived,
+                hot + archived);
+        assertStatements(3, PageRequest.of(0, hot + archived), hot + archived, hot + archived);
+        assertStatements(2, PageRequest.of(1, hot), archived, hot + archived);
+        // an empty page has no total on its rows, so both tables are counted
+        assertStatements(3, PageRequest.of(2, hot), 0, hot + archived);
+
+        ThreadStatementCounter.reset();
+        beerOrderService.listOrdersETag(testCustomer.getId(), PageRequest.of(0, hot + archived));
+        assertEquals(1, ThreadStatementCounter.count(), "statements for a page's ETag");
+    }
+
+    private void assertStatements(long statements, PageRequest pageRequest, int orders, long total) {
+        ThreadStatementCounter.reset();
+        BeerOrderPagedList page = beerOrderService.listOrders(testCustomer.getId(), pageRequest);
+        long counted = ThreadStatementCounter.count();
+
+        assertEquals(orders, page.getContent().size());
+        assertEquals(total, page.getTotalElements());
+        page.forEach(beerOrder -> assertEquals(LINES_PER_ORDER, beerOrder.getBeerOrderLines().size()));
+        assertEquals(statements, counted, "statements for " + pageRequest);
+    }
+
+    @Test
+    void pagesSpanningTheArchiveKeepTheSort() {
+        List<UUID> archivedIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            BeerOrder beerOrder = BeerOrder.builder()
+                    .customer(testCustomer)
+                    .orderStatus(BeerOrderStatusEnum.PICKED_UP)
+                    .build();
+            beerOrder.setBeerOrderLines(Set.of(BeerOrderLine.builder()
+                    .upc(UPCS.get(0)).orderQuantity(1).beerOrder(beerOrder).build()));
+            archivedIds.add(beerOrderRepository.save(beerOrder).getId());
+        }
+        archiver.archiveOlderThan(Timestamp.from(Instant.now().plusSeconds(60)));
+        Sort byIdDescending = Sort.by(Sort.Direction.DESC, "id");
+
+        // hot and archived orders on one page, each table's in the requested order
+        // the customer lookup is cached from then on
+        beerOrderService.listOrders(testCustomer.getId(), PageRequest.of(0, 1));
+
+        ThreadStatementCounter.reset();
+        BeerOrderPagedList spanning = beerOrderService.listOrders(testCustomer.getId(),
+                PageRequest.of(2, 10, byIdDescending));
+        assertEquals(3, ThreadStatementCounter.count());
+        assertEquals(ORDERS + 5, spanning.getTotalElements());
+        assertEquals(10, spanning.getContent().size());
+        // ids are stored and so sorted as strings
+        List<String> hotIds = spanning.getContent().subList(0, 5).stream()
+                .map(beerOrder -> beerOrder.getId().toString()).collect(Collectors.toList());
+        assertEquals(hotIds.stream().sorted(Comparator.reverseOrder()).collect(Collectors.toList()), hotIds);
+        assertEquals(archivedIds.stream().map(UUID::toString).sorted(Comparator.reverseOrder())
+                        .collect(Collectors.toList()),
+                spanning.getContent().subList(5, 10).stream().map(beerOrder -> beerOrder.getId().toString())
+                        .collect(Collectors.toList()));
+        spanning.getContent().subList(5, 10).forEach(beerOrder -> assertEquals(1, beerOrder.getBeerOrderLines().size()));
+
+        BeerOrderPagedList pastTheEnd = beerOrderService.listOrders(testCustomer.getId(), PageRequest.of(3, 10));
+        assertEquals(0, pastTheEnd.getContent().size());
+        assertEquals(ORDERS + 5, pastTheEnd.getTotalElements());
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.beer.order.service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CustomerCacheTest {
+
+    CustomerRepository repository;
+    CustomerCache cache;
+
+    Customer customer = Customer.builder()
+            .id(UUID.randomUUID())
+            .apiKey(UUID.randomUUID())
+            .customerName("Cached Customer")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(CustomerRepository.class);
+        cache = new CustomerCache(repository, new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10));
+        given(repository.findById(customer.getId())).willReturn(Optional.of(customer));
+        given(repository.findByApiKey(customer.getApiKey())).willReturn(Optional.of(customer));
+    }
+
+    @Test
+    void findByIdHitsTheRepositoryOnce() {
+        cache.findById(customer.getId());
+        CustomerCache.CachedCustomer cached = cache.findById(customer.getId()).orElseThrow();
+
+        assertEquals(customer.getId(), cached.getId());
+        assertEquals("Cached Customer", cached.getCustomerName());
+        verify(repository, times(1)).findById(customer.getId());
+    }
+
+    @Test
+    void findByApiKeyFillsBothCaches() {
+        cache.findByApiKey(customer.getApiKey());
+        cache.findByApiKey(customer.getApiKey());
+        cache.findById(customer.getId());
+
+        verify(repository, times(1)).findByApiKey(customer.getApiKey());
+        verify(repository, never()).findById(customer.getId());
+    }
+
+    @Test
+    void invalidateDropsBothEntries() {
+        cache.findByApiKey(customer.getApiKey());
+
+        cache.invalidate(customer.getId());
+        cache.findByApiKey(customer.getApiKey());
+        cache.invalidate(customer.getId());
+        cache.findById(customer.getId());
+
+        verify(repository, times(2)).findByApiKey(customer.getApiKey());
+        verify(repository, times(1)).findById(customer.getId());
+    }
+
+    @Test
+    void missingCustomersAreNotCached() {
+        UUID unknown = UUID.randomUUID();
+        given(repository.findById(unknown)).willReturn(Optional.empty());
+
+        assertTrue(cache.findById(unknown).isEmpty());
+        assertTrue(cache.findById(unknown).isEmpty());
+        verify(repository, times(2)).findById(unknown);
+    }
+
+    @Test
+    void disabledCacheAlwaysReadsThrough() {
+        cache = new CustomerCache(repository, new SimpleMeterRegistry(), false, 100, Duration.ofMinutes(10));
+
+        cache.findById(customer.getId());
+        cache.findById(customer.getId());
+
+        verify(repository, times(2)).findById(customer.getId());
+    }
+}
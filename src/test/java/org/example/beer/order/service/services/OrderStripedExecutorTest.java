@@ -0,0 +1,167 @@
+package org.example.beer.order.service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderStripedExecutorTest {
+
+    OrderStripedExecutor executor;
+    ExecutorService listenerThreads;
+
+    @BeforeEach
+    void setUp() {
+        executor = new OrderStripedExecutor(new SimpleMeterRegistry(), 4, 16, Duration.ofSeconds(1));
+        listenerThreads = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listenerThreads.shutdownNow();
+        executor.shutdown();
+    }
+
+    @Test
+    void tasksForTheSameOrderNeverOverlap() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            results.add(listenerThreads.submit(() -> executor.execute(orderId, () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(2);
+                inFlight.decrementAndGet();
+            })));
+        }
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    void ordersOnDifferentStripesRunInParallel() throws Exception {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        while (executor.stripeIndex(second) == executor.stripeIndex(first)) {
+            second = UUID.randomUUID();
+        }
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        for (UUID orderId : List.of(first, second)) {
+            listenerThreads.submit(() -> executor.execute(orderId, () -> {
+                bothRunning.countDown();
+                await(bothRunning);
+            }));
+        }
+
+        assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void exceptionsReachTheCaller() {
+        UUID orderId = UUID.randomUUID();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> executor.execute(orderId, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals("boom", e.getMessage());
+    }
+
+    @Test
+    void executeAllRunsEveryOrderOnItsStripeAndReportsTheFailedOnes() {
+        UUID failing = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        Map<UUID, String> ranOn = new ConcurrentHashMap<>();
+        Map<UUID, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put(failing, () -> {
+            throw new IllegalStateException("boom");
+        });
+        tasks.put(other, () -> ranOn.put(other, Thread.currentThread().getName()));
+
+        Map<UUID, RuntimeException> failures = executor.executeAll(tasks);
+
+        assertEquals(Set.of(failing), failures.keySet());
+        assertEquals("boom", failures.get(failing).getMessage());
+        assertEquals("order-stripe-" + executor.stripeIndex(other), ranOn.get(other));
+    }
+
+    @Test
+    void nestedCallForTheSameOrderRunsInline() {
+        UUID orderId = UUID.randomUUID();
+
+        String result = executor.execute(orderId, () -> executor.execute(orderId, () -> Thread.currentThread().getName()));
+
+        assertTrue(result.startsWith("order-stripe-"));
+        assertNotEquals(Thread.currentThread().getName(), result);
+    }
+
+    @Test
+    void taskLeavingItsThreadInterruptedDoesNotStopTheStripe() {
+        UUID orderId = UUID.randomUUID();
+
+        executor.execute(orderId, () -> Thread.currentThread().interrupt());
+
+        assertEquals(Boolean.FALSE, executor.execute(orderId, () -> Thread.currentThread().isInterrupted()));
+    }
+
+    @Test
+    void callerGivesUpOnABlockedStripe() throws Exception {
+        UUID orderId = UUID.randomUUID();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        listenerThreads.submit(() -> executor.execute(orderId, () -> {
+            started.countDown();
+            await(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger ran = new AtomicInteger();
+        assertThrows(IllegalStateException.class, () -> executor.execute(orderId, ran::incrementAndGet));
+
+        release.countDown();
+        // the abandoned task was cancelled, later tasks still run
+        assertEquals(1, executor.execute(orderId, () -> ran.get() + 1));
+        assertEquals(0, ran.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
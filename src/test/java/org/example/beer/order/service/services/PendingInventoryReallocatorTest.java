@@ -0,0 +1,119 @@
+package org.example.beer.order.service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PendingInventoryReallocatorTest {
+
+    static final BeerOrderStatusEnum PENDING = BeerOrderStatusEnum.PENDING_INVENTORY;
+
+    BeerOrderRepository repository;
+    BeerOrderManager manager;
+    SimpleMeterRegistry meterRegistry;
+
+    UUID first = new UUID(0, 1);
+    UUID second = new UUID(0, 2);
+    UUID third = new UUID(0, 3);
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BeerOrderRepository.class);
+        manager = mock(BeerOrderManager.class);
+        meterRegistry = new SimpleMeterRegistry();
+        given(manager.reallocateOrder(any())).willReturn(true);
+    }
+
+    @Test
+    void pagesThroughTheBacklogByKeyset() {
+        given(repository.findIdsByOrderStatus(PENDING, PageRequest.of(0, 2))).willReturn(List.of(first, second));
+        given(repository.findIdsByOrderStatusAfter(PENDING, second, PageRequest.of(0, 2))).willReturn(List.of(third));
+        PendingInventoryReallocator reallocator = reallocator(2, 1000);
+
+        reallocator.reallocateAll();
+
+        assertEquals(3, reallocator.drain());
+        verify(manager).reallocateOrder(first);
+        verify(manager).reallocateOrder(second);
+        verify(manager).reallocateOrder(third);
+        verify(repository, never()).findIdsByOrderStatusAfter(PENDING, third, PageRequest.of(0, 2));
+        assertEquals(3, meterRegistry.get("beer.order.reallocation.submitted").counter().count());
+    }
+
+    @Test
+    void restockOnlyTouchesOrdersForTheRestockedUpcs() {
+        Set<String> upcs = Set.of("12345");
+        given(repository.findIdsByOrderStatusAndUpcIn(PENDING, upcs, PageRequest.of(0, 10))).willReturn(List.of(first));
+        PendingInventoryReallocator reallocator = reallocator(10, 1000);
+
+        reallocator.restocked(upcs);
+
+        verify(manager, never()).reallocateOrder(any());
+        assertEquals(1, reallocator.drain());
+        verify(repository, never()).findIdsByOrderStatus(any(), any());
+        verify(manager).reallocateOrder(first);
+        assertEquals(0, reallocator.drain());
+    }
+
+    @Test
+    void ordersThatMovedOnOrFailAreSkipped() {
+        given(repository.findIdsByOrderStatus(PENDING, PageRequest.of(0, 10))).willReturn(List.of(first, second, third));
+        given(manager.reallocateOrder(second)).willReturn(false);
+        given(manager.reallocateOrder(third)).willThrow(new IllegalStateException("boom"));
+        PendingInventoryReallocator reallocator = reallocator(10, 1000);
+
+        reallocator.reallocateAll();
+
+        assertEquals(1, reallocator.drain());
+        assertEquals(2, meterRegistry.get("beer.order.reallocation.skipped").counter().count());
+    }
+
+    @Test
+    void eachDrainSubmitsAtMostTheRateAndCarriesOn() {
+        given(repository.findIdsByOrderStatus(PENDING, PageRequest.of(0, 2))).willReturn(List.of(first, second));
+        given(repository.findIdsByOrderStatusAfter(PENDING, second, PageRequest.of(0, 2))).willReturn(List.of(third));
+        // 20/s drained every 100 ms
+        PendingInventoryReallocator reallocator = reallocator(2, 20);
+
+        reallocator.reallocateAll();
+
+        assertEquals(2, reallocator.drain());
+        verify(manager, never()).reallocateOrder(third);
+        assertEquals(1, reallocator.drain());
+        verify(manager).reallocateOrder(third);
+    }
+
+    @Test
+    void backlogGaugeIsCountedOncePerSweep() {
+        given(repository.countByOrderStatus(PENDING)).willReturn(42L);
+        PendingInventoryReallocator reallocator = reallocator(10, 1000);
+        assertTrue(Double.isNaN(meterRegistry.get("beer.order.pending.inventory.backlog").gauge().value()));
+
+        reallocator.reallocateAll();
+        reallocator.drain();
+
+        assertEquals(42, meterRegistry.get("beer.order.pending.inventory.backlog").gauge().value());
+        assertEquals(42, meterRegistry.get("beer.order.pending.inventory.backlog").gauge().value());
+        verify(repository, times(1)).countByOrderStatus(PENDING);
+    }
+
+    private PendingInventoryReallocator reallocator(int batchSize, double ratePerSecond) {
+        return new PendingInventoryReallocator(repository, manager, meterRegistry, batchSize, ratePerSecond, 100);
+    }
+}
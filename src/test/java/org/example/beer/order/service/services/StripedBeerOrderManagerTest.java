@@ -0,0 +1,68 @@
+package org.example.beer.order.service.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.brewery.model.events.ValidateOrderResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class StripedBeerOrderManagerTest {
+
+    BeerOrderManagerImpl delegate;
+    OrderStripedExecutor executor;
+    StripedBeerOrderManager manager;
+
+    ValidateOrderResult failing = ValidateOrderResult.builder().orderId(UUID.randomUUID()).isValid(true).build();
+    ValidateOrderResult applied;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(BeerOrderManagerImpl.class);
+        executor = new OrderStripedExecutor(new SimpleMeterRegistry(), 4, 16, Duration.ofSeconds(1));
+        manager = new StripedBeerOrderManager(delegate, executor);
+
+        UUID other = UUID.randomUUID();
+        while (executor.stripeIndex(other) == executor.stripeIndex(failing.getOrderId())) {
+            other = UUID.randomUUID();
+        }
+        applied = ValidateOrderResult.builder().orderId(other).isValid(true).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void failedStripeIsReportedWithoutTheStripesThatCommitted() {
+        willThrow(new IllegalStateException("boom")).given(delegate)
+                .processValidationResults(argThat(results -> results.contains(failing)));
+
+        PartiallyAppliedBatchException e = assertThrows(PartiallyAppliedBatchException.class,
+                () -> manager.processValidationResults(List.of(failing, applied)));
+
+        assertEquals(List.of(failing), e.getUnapplied());
+        verify(delegate).processValidationResults(List.of(applied));
+    }
+
+    @Test
+    void batchFailingOnEveryStripeIsRethrownAsIs() {
+        willThrow(new IllegalStateException("boom")).given(delegate).processValidationResults(argThat(results -> true));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> manager.processValidationResults(List.of(failing, applied)));
+
+        assertEquals("boom", e.getMessage());
+    }
+}
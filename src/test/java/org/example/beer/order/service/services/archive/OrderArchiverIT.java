@@ -0,0 +1,158 @@
+package org.example.beer.order.service.services.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.ArchivedBeerOrderRepository;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderService;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.brewery.model.BeerDto;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.BeerOrderPagedList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+class OrderArchiverIT {
+    // not one of the bootstrap beers, which the tasting room may look up and cache as not found before the stub
+    private static final String UPC = "9000000000036";
+
+    @Autowired
+    OrderArchiver archiver;
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    ArchivedBeerOrderRepository archivedBeerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Customer customer;
+    BeerOrder inFlight;
+    List<BeerOrder> ended = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        wireMockServer.stubFor(get(urlPathMatching(BeerServiceImpl.BEER_UPC_PATH_V1 + ".*"))
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder()
+                        .id(UUID.randomUUID()).upc(UPC).beerName("Mango Bobs").build()))));
+
+        customer = customerRepository.save(Customer.builder().customerName("Archive Customer").build());
+        inFlight = save(BeerOrderStatusEnum.ALLOCATED);
+        Stream.of(BeerOrderStatusEnum.PICKED_UP, BeerOrderStatusEnum.PICKED_UP, BeerOrderStatusEnum.CANCELLED,
+                        BeerOrderStatusEnum.VALIDATION_EXCEPTION, BeerOrderStatusEnum.ALLOCATION_EXCEPTION)
+                .forEach(status -> ended.add(save(status)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.resetAll();
+    }
+
+    @Test
+    void endedOrdersMoveToTheArchiveWithTheirLines() {
+        assertEquals(0, archiver.archiveOlderThan(Timestamp.from(Instant.now().minus(1, ChronoUnit.DAYS))));
+
+        assertTrue(archiver.archiveOlderThan(Timestamp.from(Instant.now().plusSeconds(60))) >= ended.size());
+
+        assertTrue(beerOrderRepository.findById(inFlight.getId()).isPresent());
+        for (BeerOrder beerOrder : ended) {
+            assertFalse(beerOrderRepository.findById(beerOrder.getId()).isPresent());
+            assertEquals(2, archivedBeerOrderRepository.findById(beerOrder.getId()).orElseThrow()
+                    .getBeerOrderLines().size());
+        }
+        assertEquals(archivedBeerOrderRepository.count(),
+                meterRegistry.get("beer.order.archived.orders").gauge().value());
+    }
+
+    @Test
+    void readsFallBackToTheArchive() {
+        archiver.archiveOlderThan(Timestamp.from(Instant.now().plusSeconds(60)));
+
+        BeerOrder archived = ended.get(0);
+        BeerOrderDto dto = beerOrderService.getOrderById(customer.getId(), archived.getId());
+        assertEquals(archived.getId(), dto.getId());
+        assertEquals(BeerOrderStatusEnum.PICKED_UP.name(), dto.getOrderStatus());
+        assertEquals(2, dto.getBeerOrderLines().size());
+        assertEquals("Mango Bobs", dto.getBeerOrderLines().get(0).getBeerName());
+
+        // the in-flight order first, then the archived ones, with pages spanning both tables
+        BeerOrderPagedList first = beerOrderService.listOrders(customer.getId(), PageRequest.of(0, 4));
+        BeerOrderPagedList second = beerOrderService.listOrders(customer.getId(), PageRequest.of(1, 4));
+
+        assertEquals(6, first.getTotalElements());
+        assertEquals(4, first.getContent().size());
+        assertEquals(2, second.getContent().size());
+        assertEquals(inFlight.getId(), first.getContent().get(0).getId());
+
+        Set<UUID> listed = Stream.concat(first.getContent().stream(), second.getContent().stream())
+                .map(BeerOrderDto::getId)
+                .collect(Collectors.toSet());
+        assertEquals(6, listed.size());
+        ended.forEach(beerOrder -> assertTrue(listed.contains(beerOrder.getId())));
+    }
+
+    private BeerOrder save(BeerOrderStatusEnum status) {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .customer(customer)
+                .orderStatus(status)
+                .build();
+        Set<BeerOrderLine> lines = new HashSet<>();
+        for (int i = 0; i < 2; i++) {
+            lines.add(BeerOrderLine.builder()
+                    .beerId(UUID.randomUUID())
+                    .upc(UPC)
+                    .orderQuantity(2)
+                    .quantityAllocated(i)
+                    .beerOrder(beerOrder)
+                    .build());
+        }
+        beerOrder.setBeerOrderLines(lines);
+        return beerOrderRepository.save(beerOrder);
+    }
+}
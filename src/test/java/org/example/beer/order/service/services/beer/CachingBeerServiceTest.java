@@ -0,0 +1,83 @@
+package org.example.beer.order.service.services.beer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.brewery.model.BeerDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CachingBeerServiceTest {
+
+    BeerServiceImpl delegate;
+    SimpleMeterRegistry meterRegistry;
+    CachingBeerService beerService;
+
+    BeerDto beerDto = BeerDto.builder().id(UUID.randomUUID()).upc("0631234200036").beerName("Mango Bobs").build();
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(BeerServiceImpl.class);
+        meterRegistry = new SimpleMeterRegistry();
+        beerService = new CachingBeerService(delegate, meterRegistry, 100,
+                Duration.ofMinutes(10), Duration.ofMinutes(5), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void repeatedUpcLookupsCallBeerServiceOnce() {
+        given(delegate.getBeerByUpc(beerDto.getUpc())).willReturn(Optional.of(beerDto));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Optional.of(beerDto), beerService.getBeerByUpc(beerDto.getUpc()));
+        }
+
+        verify(delegate, times(1)).getBeerByUpc(beerDto.getUpc());
+        assertEquals(0.8, meterRegistry.get("beer.order.beer.cache.hit.ratio").tag("cache", "beersByUpc").gauge().value());
+        assertEquals(1, meterRegistry.get("beer.order.beer.cache.load").tag("lookup", "upc").timer().count());
+    }
+
+    @Test
+    void beerLoadedByUpcIsCachedById() {
+        given(delegate.getBeerByUpc(beerDto.getUpc())).willReturn(Optional.of(beerDto));
+
+        beerService.getBeerByUpc(beerDto.getUpc());
+
+        assertEquals(Optional.of(beerDto), beerService.getBeerById(beerDto.getId()));
+        verify(delegate, never()).getBeerById(beerDto.getId());
+    }
+
+    @Test
+    void unknownUpcIsCachedAsEmpty() {
+        given(delegate.getBeerByUpc("unknown"))
+                .willThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        assertTrue(beerService.getBeerByUpc("unknown").isEmpty());
+        assertTrue(beerService.getBeerByUpc("unknown").isEmpty());
+
+        verify(delegate, times(1)).getBeerByUpc("unknown");
+    }
+
+    @Test
+    void beerServiceErrorsAreNotCached() {
+        given(delegate.getBeerByUpc(beerDto.getUpc()))
+                .willThrow(new ResourceAccessException("Connection refused"))
+                .willReturn(Optional.of(beerDto));
+
+        assertThrows(ResourceAccessException.class, () -> beerService.getBeerByUpc(beerDto.getUpc()));
+        assertEquals(Optional.of(beerDto), beerService.getBeerByUpc(beerDto.getUpc()));
+    }
+}
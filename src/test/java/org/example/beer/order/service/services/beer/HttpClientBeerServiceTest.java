@@ -0,0 +1,141 @@
+package org.example.beer.order.service.services.beer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.brewery.model.BeerDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.notFound;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpClientBeerServiceTest {
+
+    WireMockServer wireMockServer;
+    SimpleMeterRegistry meterRegistry;
+    HttpClientBeerService beerService;
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    BeerDto beerDto = BeerDto.builder().id(UUID.randomUUID()).upc("0631234200036").beerName("Mango Bobs").build();
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(new WireMockConfiguration().dynamicPort());
+        wireMockServer.start();
+        meterRegistry = new SimpleMeterRegistry();
+        beerService = beerService(Duration.ofSeconds(5));
+    }
+
+    HttpClientBeerService beerService(Duration requestTimeout) {
+        return new HttpClientBeerService(objectMapper, meterRegistry, "http://localhost:" + wireMockServer.port(),
+                Duration.ofSeconds(1), requestTimeout, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wireMockServer.stop();
+    }
+
+    @Test
+    void getBeerByUpc() throws Exception {
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + beerDto.getUpc())
+                .willReturn(okJson(objectMapper.writeValueAsString(beerDto))));
+
+        assertEquals(Optional.of(beerDto), beerService.getBeerByUpc(beerDto.getUpc()));
+        assertEquals(1, meterRegistry.get("beer.order.beer.client.requests")
+                .tags("lookup", "upc", "outcome", "200").timer().count());
+    }
+
+    @Test
+    void getBeerById() throws Exception {
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_PATH_V1 + beerDto.getId())
+                .willReturn(okJson(objectMapper.writeValueAsString(beerDto))));
+
+        assertEquals(Optional.of(beerDto), beerService.getBeerByIdAsync(beerDto.getId()).get());
+    }
+
+    @Test
+    void notFoundIsEmpty() {
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + "unknown").willReturn(notFound()));
+
+        assertTrue(beerService.getBeerByUpc("unknown").isEmpty());
+    }
+
+    @Test
+    void serverErrorIsThrown() {
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + beerDto.getUpc()).willReturn(serverError()));
+
+        assertThrows(HttpServerErrorException.class, () -> beerService.getBeerByUpc(beerDto.getUpc()));
+    }
+
+    @Test
+    void nonStandardStatusIsThrown() {
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + beerDto.getUpc())
+                .willReturn(aResponse().withStatus(599)));
+
+        assertThrows(UnknownHttpStatusCodeException.class, () -> beerService.getBeerByUpc(beerDto.getUpc()));
+        assertEquals(1, meterRegistry.get("beer.order.beer.client.requests")
+                .tags("lookup", "upc", "outcome", "599").timer().count());
+    }
+
+    @Test
+    void slowResponseTimesOut() {
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + beerDto.getUpc())
+                .willReturn(aResponse().withFixedDelay(2000).withStatus(200)));
+        HttpClientBeerService impatientBeerService = beerService(Duration.ofMillis(500));
+
+        assertThrows(ResourceAccessException.class, () -> impatientBeerService.getBeerByUpc(beerDto.getUpc()));
+        assertEquals(1, meterRegistry.get("beer.order.beer.client.requests")
+                .tags("lookup", "upc", "outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void callsOverTheBulkheadLimitAreRejected() throws Exception {
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + beerDto.getUpc())
+                .willReturn(okJson(objectMapper.writeValueAsString(beerDto)).withFixedDelay(100)));
+
+        CompletableFuture<Optional<BeerDto>> first = beerService.getBeerByUpcAsync(beerDto.getUpc());
+        CompletableFuture<Optional<BeerDto>> second = beerService.getBeerByUpcAsync(beerDto.getUpc());
+
+        assertThrows(ResourceAccessException.class, () -> beerService.getBeerByUpc(beerDto.getUpc()));
+        assertEquals(1, meterRegistry.get("beer.order.beer.client.rejected").counter().count());
+
+        assertEquals(Optional.of(beerDto), first.get());
+        assertEquals(Optional.of(beerDto), second.get());
+        assertEquals(Optional.of(beerDto), beerService.getBeerByUpc(beerDto.getUpc()));
+    }
+
+    @Test
+    void malformedUpcDoesNotTakeAPermit() throws Exception {
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + beerDto.getUpc())
+                .willReturn(okJson(objectMapper.writeValueAsString(beerDto)).withFixedDelay(100)));
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalArgumentException.class, () -> beerService.getBeerByUpc("0631 234200036"));
+        }
+
+        CompletableFuture<Optional<BeerDto>> first = beerService.getBeerByUpcAsync(beerDto.getUpc());
+        CompletableFuture<Optional<BeerDto>> second = beerService.getBeerByUpcAsync(beerDto.getUpc());
+
+        assertEquals(Optional.of(beerDto), first.get());
+        assertEquals(Optional.of(beerDto), second.get());
+        assertEquals(0, meterRegistry.get("beer.order.beer.client.rejected").counter().count());
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.beer.order.service.services.callback;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.brewery.model.OrderStatusUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.badRequest;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.serviceUnavailable;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderStatusCallbackDispatcherTest {
+
+    static final String CALLBACK_PATH = "/order-status";
+
+    WireMockServer wireMockServer;
+    SimpleMeterRegistry meterRegistry;
+    ThreadPoolTaskScheduler taskScheduler;
+    ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @BeforeEach
+    void setUp() {
+        wireMockServer = new WireMockServer(new WireMockConfiguration().dynamicPort());
+        wireMockServer.start();
+        meterRegistry = new SimpleMeterRegistry();
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskScheduler.shutdown();
+        wireMockServer.stop();
+    }
+
+    OrderStatusCallbackDispatcher dispatcher(int maxConcurrentRequests) {
+        return new OrderStatusCallbackDispatcher(objectMapper, taskScheduler, meterRegistry, Duration.ofSeconds(1),
+                Duration.ofSeconds(5), maxConcurrentRequests, Duration.ofMillis(100), 3, Duration.ofMillis(50),
+                Duration.ofMillis(200), 100);
+    }
+
+    @Test
+    void coalescesRapidTransitionsIntoTheLatestStatus() {
+        wireMockServer.stubFor(post(CALLBACK_PATH).willReturn(ok()));
+        OrderStatusCallbackDispatcher dispatcher = dispatcher(4);
+        BeerOrder beerOrder = beerOrder();
+
+        dispatcher.transitioned(beerOrder, BeerOrderStatusEnum.NEW, BeerOrderEventEnum.VALIDATION_PASSED,
+                BeerOrderStatusEnum.VALIDATED, null);
+        dispatcher.transitioned(beerOrder, BeerOrderStatusEnum.VALIDATED, BeerOrderEventEnum.ALLOCATE_ORDER,
+                BeerOrderStatusEnum.ALLOCATION_PENDING, null);
+
+        await().untilAsserted(() -> assertEquals(0, dispatcher.pending()));
+        wireMockServer.verify(1, postRequestedFor(urlEqualTo(CALLBACK_PATH)));
+        wireMockServer.verify(postRequestedFor(urlEqualTo(CALLBACK_PATH)).withRequestBody(equalToJson(
+                "{\"orderId\":\"" + beerOrder.getId() + "\",\"customerRef\":\"callback-test\","
+                        + "\"orderStatus\":\"ALLOCATION_PENDING\"}", true, true)));
+        assertEquals(1, meterRegistry.get("beer.order.status.callback.coalesced").counter().count());
+        assertEquals(1, meterRegistry.get("beer.order.status.callback.latency").timer().count());
+    }
+
+    @Test
+    void retriesWithBackoffUntilDelivered() {
+        wireMockServer.stubFor(post(CALLBACK_PATH).inScenario("retry").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(serviceUnavailable()).willSetStateTo("recovered"));
+        wireMockServer.stubFor(post(CALLBACK_PATH).inScenario("retry").whenScenarioStateIs("recovered")
+                .willReturn(ok()));
+        OrderStatusCallbackDispatcher dispatcher = dispatcher(4);
+
+        dispatcher.offer(callbackUrl(), update(UUID.randomUUID(), "ALLOCATED"));
+
+        await().untilAsserted(() -> assertEquals(0, dispatcher.pending()));
+        wireMockServer.verify(2, postRequestedFor(urlEqualTo(CALLBACK_PATH)));
+        assertEquals(1, meterRegistry.get("beer.order.status.callback.retries").counter().count());
+        assertEquals(1, meterRegistry.get("beer.order.status.callback.latency").timer().count());
+        assertEquals(1, meterRegistry.get("beer.order.status.callback.requests").tag("outcome", "503").timer().count());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        wireMockServer.stubFor(post(CALLBACK_PATH).willReturn(serviceUnavailable()));
+        OrderStatusCallbackDispatcher dispatcher = dispatcher(4);
+
+        dispatcher.offer(callbackUrl(), update(UUID.randomUUID(), "ALLOCATED"));
+
+        await().untilAsserted(() -> assertEquals(0, dispatcher.pending()));
+        wireMockServer.verify(3, postRequestedFor(urlEqualTo(CALLBACK_PATH)));
+        assertEquals(1, meterRegistry.get("beer.order.status.callback.dropped").counter().count());
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        wireMockServer.stubFor(post(CALLBACK_PATH).willReturn(badRequest()));
+        OrderStatusCallbackDispatcher dispatcher = dispatcher(4);
+
+        dispatcher.offer(callbackUrl(), update(UUID.randomUUID(), "ALLOCATED"));
+
+        await().untilAsserted(() -> assertEquals(0, dispatcher.pending()));
+        wireMockServer.verify(1, postRequestedFor(urlEqualTo(CALLBACK_PATH)));
+        assertEquals(1, meterRegistry.get("beer.order.status.callback.dropped").counter().count());
+    }
+
+    @Test
+    void boundsRequestsInFlight() {
+        wireMockServer.stubFor(post(CALLBACK_PATH).willReturn(aResponse().withStatus(200).withFixedDelay(1000)));
+        OrderStatusCallbackDispatcher dispatcher = dispatcher(2);
+
+        for (int i = 0; i < 6; i++) {
+            dispatcher.offer(callbackUrl(), update(UUID.randomUUID(), "ALLOCATED"));
+        }
+
+        // two requests take the slots, the other four wait their turn
+        await().untilAsserted(() -> assertEquals(4,
+                meterRegistry.get("beer.order.status.callback.ready").gauge().value()));
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertEquals(0, dispatcher.pending()));
+        wireMockServer.verify(6, postRequestedFor(urlEqualTo(CALLBACK_PATH)));
+    }
+
+    String callbackUrl() {
+        return "http://localhost:" + wireMockServer.port() + CALLBACK_PATH;
+    }
+
+    BeerOrder beerOrder() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return BeerOrder.builder()
+                .id(UUID.randomUUID())
+                .version(1L)
+                .createdDate(now)
+                .lastModifiedDate(now)
+                .customerRef("callback-test")
+                .orderStatus(BeerOrderStatusEnum.NEW)
+                .orderStatusCallbackUrl(callbackUrl())
+                .build();
+    }
+
+    static OrderStatusUpdate update(UUID orderId, String orderStatus) {
+        return OrderStatusUpdate.builder().id(orderId).orderId(orderId).orderStatus(orderStatus).build();
+    }
+}
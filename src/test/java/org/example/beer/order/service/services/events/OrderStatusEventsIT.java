@@ -0,0 +1,167 @@
+package org.example.beer.order.service.services.events;
+
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.beer.order.service.services.testcomponents.BeerOrderAllocationResponder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@Import(BeerOrderAllocationResponder.Config.class)
+class OrderStatusEventsIT {
+
+    static final int ORDER_SUBSCRIBERS = 200;
+    static final int CUSTOMER_SUBSCRIBERS = 20;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BeerOrderManager manager;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    OrderStatusEvents orderStatusEvents;
+
+    HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void pushesCommittedStatusChangesToEverySubscriber() throws Exception {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Events Customer").build());
+        BeerOrder beerOrder = validationPendingOrder(customer);
+        String ordersUrl = "http://localhost:" + port + "/api/v1/customers/" + customer.getId() + "/orders/";
+
+        List<EventLines> subscriptions = new ArrayList<>();
+        for (int i = 0; i < ORDER_SUBSCRIBERS; i++) {
+            subscriptions.add(subscribe(ordersUrl + beerOrder.getId() + "/events"));
+        }
+        for (int i = 0; i < CUSTOMER_SUBSCRIBERS; i++) {
+            subscriptions.add(subscribe(ordersUrl + "events"));
+        }
+        await().untilAsserted(() -> assertEquals(ORDER_SUBSCRIBERS + CUSTOMER_SUBSCRIBERS,
+                orderStatusEvents.subscribers()));
+
+        manager.processValidationResult(beerOrder.getId(), true);
+
+        for (EventLines subscription : subscriptions) {
+            String allocated = subscription.allocated.get(15, TimeUnit.SECONDS);
+            assertTrue(allocated.contains(beerOrder.getId().toString()));
+        }
+        // each order subscriber was sent the status and version the order had when it subscribed
+        String subscribedVersion = "\"version\":" + beerOrder.getVersion();
+        assertEquals(ORDER_SUBSCRIBERS, subscriptions.stream()
+                .filter(subscription -> subscription.lines.stream().anyMatch(line -> line.contains("VALIDATION_PENDING")
+                        && line.contains(subscribedVersion)))
+                .count());
+
+        subscriptions.forEach(EventLines::cancel);
+        await().atMost(Duration.ofSeconds(30)).untilAsserted(() -> {
+            orderStatusEvents.heartbeat();
+            assertEquals(0, orderStatusEvents.subscribers());
+        });
+    }
+
+    @Test
+    void unknownOrderIsNotSubscribed() throws Exception {
+        Customer customer = customerRepository.save(Customer.builder().customerName("Events Customer").build());
+
+        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                + "/api/v1/customers/" + customer.getId() + "/orders/" + UUID.randomUUID() + "/events")).build(),
+                HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(500, response.statusCode());
+        assertEquals(0, orderStatusEvents.subscribers());
+    }
+
+    EventLines subscribe(String url) {
+        EventLines eventLines = new EventLines();
+        httpClient.sendAsync(HttpRequest.newBuilder(URI.create(url)).header("Accept", "text/event-stream").build(),
+                HttpResponse.BodyHandlers.fromLineSubscriber(eventLines));
+        return eventLines;
+    }
+
+    BeerOrder validationPendingOrder(Customer customer) {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .customer(customer)
+                .orderStatus(BeerOrderStatusEnum.VALIDATION_PENDING)
+                .build();
+        beerOrder.setBeerOrderLines(Set.of(BeerOrderLine.builder()
+                .beerId(UUID.randomUUID())
+                .upc("12345")
+                .orderQuantity(1)
+                .beerOrder(beerOrder)
+                .build()));
+        return beerOrderRepository.save(beerOrder);
+    }
+
+    /**
+     * Collects a stream's lines and completes with the first event reporting the order allocated.
+     */
+    static class EventLines implements Flow.Subscriber<String> {
+        final List<String> lines = new CopyOnWriteArrayList<>();
+        final CompletableFuture<String> allocated = new CompletableFuture<>();
+        volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            lines.add(line);
+            if (line.startsWith("data:") && line.contains("\"ALLOCATED\"")) {
+                allocated.complete(line);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            allocated.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            allocated.completeExceptionally(new IllegalStateException("Stream ended before the order was allocated"));
+        }
+
+        void cancel() {
+            subscription.cancel();
+        }
+    }
+}
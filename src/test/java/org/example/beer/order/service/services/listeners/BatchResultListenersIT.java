@@ -0,0 +1,106 @@
+package org.example.beer.order.service.services.listeners;
+
+import org.example.beer.order.service.config.JmsConfig;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.services.BeerOrderManagerImpl;
+import org.example.beer.order.service.services.BeerOrderManagerImplIT;
+import org.example.brewery.model.events.ValidateOrderResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.jms.ConnectionFactory;
+import javax.jms.Message;
+import java.util.UUID;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Runs the order saga scenarios with validation and allocation results consumed by {@link BatchResultListeners}.
+ */
+@TestPropertySource(properties = BatchResultListeners.ENABLED_PROPERTY + "=true")
+class BatchResultListenersIT extends BeerOrderManagerImplIT {
+    private static final String MARKER = "testMarker";
+
+    @Autowired
+    JmsTemplate jmsTemplate;
+
+    @Autowired
+    ConnectionFactory connectionFactory;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @SpyBean
+    BeerOrderManagerImpl managerImpl;
+
+    @Test
+    void unreadableResultIsDeadLettered() {
+        String marker = UUID.randomUUID().toString();
+
+        jmsTemplate.send(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE, session -> {
+            Message message = session.createTextMessage("not a validation result");
+            message.setStringProperty(MARKER, marker);
+            return message;
+        });
+
+        assertNotNull(receiveDeadLetter(marker));
+    }
+
+    @Test
+    void resultFailingOnItsOwnIsDeadLettered() {
+        String marker = UUID.randomUUID().toString();
+
+        // no order id, so it can't be routed to an order's stripe
+        jmsTemplate.convertAndSend(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE,
+                ValidateOrderResult.builder().isValid(true).build(), message -> {
+                    message.setStringProperty(MARKER, marker);
+                    return message;
+                });
+
+        assertNotNull(receiveDeadLetter(marker));
+    }
+
+    @Test
+    void resultFailingOnceOnItsOwnIsRetried() {
+        BeerOrder beerOrder = createBeerOrder();
+        beerOrder.setOrderStatus(BeerOrderStatusEnum.VALIDATION_PENDING);
+        UUID orderId = beerOrderRepository.saveAndFlush(beerOrder).getId();
+        String marker = UUID.randomUUID().toString();
+
+        // the batch fails, then the result's first attempt on its own, as with a lock timeout
+        doThrow(new CannotAcquireLockException("lock timeout"))
+                .doThrow(new CannotAcquireLockException("lock timeout"))
+                .doCallRealMethod()
+                .when(managerImpl).processValidationResults(argThat(results -> results.stream()
+                        .anyMatch(result -> orderId.equals(result.getOrderId()))));
+
+        jmsTemplate.convertAndSend(JmsConfig.VALIDATE_ORDER_RESPONSE_QUEUE,
+                ValidateOrderResult.builder().orderId(orderId).isValid(true).build(), message -> {
+                    message.setStringProperty(MARKER, marker);
+                    return message;
+                });
+
+        await().untilAsserted(() -> assertEquals(BeerOrderStatusEnum.ALLOCATED,
+                beerOrderRepository.findById(orderId).orElseThrow().getOrderStatus()));
+        JmsTemplate deadLetters = new JmsTemplate(connectionFactory);
+        deadLetters.setReceiveTimeout(500);
+        assertNull(deadLetters.receiveSelected(JmsConfig.DEAD_LETTER_QUEUE, MARKER + " = '" + marker + "'"));
+    }
+
+    private Message receiveDeadLetter(String marker) {
+        JmsTemplate deadLetters = new JmsTemplate(connectionFactory);
+        deadLetters.setReceiveTimeout(10_000);
+        return deadLetters.receiveSelected(JmsConfig.DEAD_LETTER_QUEUE, MARKER + " = '" + marker + "'");
+    }
+}
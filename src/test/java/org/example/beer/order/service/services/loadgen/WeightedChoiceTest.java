@@ -0,0 +1,45 @@
+package org.example.beer.order.service.services.loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeightedChoiceTest {
+
+    @Test
+    void picksInProportionToWeights() {
+        WeightedChoice<Integer> choice = new WeightedChoice<>("1:70, 5:20, 10:10", Integer::valueOf);
+        Map<Integer, Integer> picks = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            picks.merge(choice.next(), 1, Integer::sum);
+        }
+
+        assertEquals(0.7, picks.get(1) / 100_000d, 0.02);
+        assertEquals(0.2, picks.get(5) / 100_000d, 0.02);
+        assertEquals(0.1, picks.get(10) / 100_000d, 0.02);
+    }
+
+    @Test
+    void zeroWeightsAreNeverPickedAndMissingWeightsCountAsOne() {
+        WeightedChoice<String> choice = new WeightedChoice<>("0631234200036:0,0631234300019", value -> value);
+
+        assertEquals(List.of("0631234300019"), choice.values());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("0631234300019", choice.next());
+        }
+    }
+
+    @Test
+    void rejectsSpecsWithNothingToPick() {
+        assertThrows(IllegalArgumentException.class, () -> new WeightedChoice<>("1:0", Integer::valueOf));
+        assertThrows(IllegalArgumentException.class, () -> new WeightedChoice<>("1:-2", Integer::valueOf));
+        assertTrue(new WeightedChoice<>("7", Integer::valueOf).values().contains(7));
+    }
+}
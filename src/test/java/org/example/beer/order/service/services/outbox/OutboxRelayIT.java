@@ -0,0 +1,90 @@
+package org.example.beer.order.service.services.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.brewery.model.events.AllocationFailureEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.jms.ConnectionFactory;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+class OutboxRelayIT {
+    private static final String DESTINATION = "outbox-relay-it";
+
+    @Autowired
+    OutboxService outboxService;
+
+    @Autowired
+    OutboxRelay outboxRelay;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ConnectionFactory connectionFactory;
+
+    @Autowired
+    MessageConverter messageConverter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    TransactionTemplate transactionTemplate;
+    JmsTemplate receiver;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        receiver = new JmsTemplate(connectionFactory);
+        receiver.setMessageConverter(messageConverter);
+        receiver.setReceiveTimeout(5000);
+    }
+
+    @Test
+    void committedMessageIsRelayedWithItsType() {
+        AllocationFailureEvent event = AllocationFailureEvent.builder().orderId(UUID.randomUUID()).build();
+        double sentBefore = meterRegistry.get("beer.order.outbox.sent").counter().count();
+
+        transactionTemplate.executeWithoutResult(status -> outboxService.enqueue(DESTINATION, event));
+        outboxRelay.relay();
+
+        assertEquals(event, receiver.receiveAndConvert(DESTINATION));
+        assertTrue(meterRegistry.get("beer.order.outbox.sent").counter().count() > sentBefore);
+        assertEquals(0.0, meterRegistry.get("beer.order.outbox.pending").gauge().value());
+    }
+
+    @Test
+    void rolledBackMessageIsNeverSent() {
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxService.enqueue(DESTINATION, AllocationFailureEvent.builder().orderId(UUID.randomUUID()).build());
+            status.setRollbackOnly();
+        });
+        outboxRelay.relay();
+
+        receiver.setReceiveTimeout(500);
+        assertNull(receiver.receive(DESTINATION));
+    }
+
+    @Test
+    void enqueueOutsideATransactionIsRejected() {
+        AllocationFailureEvent event = AllocationFailureEvent.builder().orderId(UUID.randomUUID()).build();
+
+        assertThrows(IllegalTransactionStateException.class, () -> outboxService.enqueue(DESTINATION, event));
+    }
+}
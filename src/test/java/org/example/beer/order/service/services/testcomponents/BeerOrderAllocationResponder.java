@@ -0,0 +1,75 @@
+package org.example.beer.order.service.services.testcomponents;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.beer.order.service.config.JmsConfig;
+import org.example.brewery.model.BeerOrderDto;
+import org.example.brewery.model.events.AllocateOrderRequest;
+import org.example.brewery.model.events.AllocateOrderResult;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.messaging.Message;
+
+/**
+ * Allocation stub that answers every request, for tests that take orders through allocation. Imported with
+ * {@link Config}, which takes {@link BeerOrderAllocationListener}'s place so the two don't compete for requests.
+ * Customer refs {@code partial-allocation}, {@code fail-allocation} and {@code dont-allocate} work as they do there.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BeerOrderAllocationResponder {
+
+    private final JmsTemplate jmsTemplate;
+
+    @JmsListener(destination = JmsConfig.ALLOCATE_ORDER_QUEUE)
+    public void listen(Message<AllocateOrderRequest> message) {
+        BeerOrderDto beerOrder = message.getPayload().getBeerOrderDto();
+        String customerRef = beerOrder.getCustomerRef();
+
+        if ("dont-allocate".equals(customerRef)) {
+            return;
+        }
+
+        boolean pendingInventory = "partial-allocation".equals(customerRef);
+        beerOrder.getBeerOrderLines().forEach(line -> line.setQuantityAllocated(pendingInventory
+                ? line.getOrderQuantity() - 1 : line.getOrderQuantity()));
+
+        log.info("Received order: {}", beerOrder.getOrderStatus());
+
+        jmsTemplate.convertAndSend(JmsConfig.ALLOCATE_ORDER_RESPONSE_QUEUE,
+                AllocateOrderResult.builder()
+                        .beerOrderDto(beerOrder)
+                        .pendingInventory(pendingInventory)
+                        .allocationError("fail-allocation".equals(customerRef)).build());
+    }
+
+    @TestConfiguration
+    public static class Config {
+
+        @Bean
+        static BeanDefinitionRegistryPostProcessor withoutAllocationListener() {
+            return new BeanDefinitionRegistryPostProcessor() {
+                @Override
+                public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                    if (registry.containsBeanDefinition("beerOrderAllocationListener")) {
+                        registry.removeBeanDefinition("beerOrderAllocationListener");
+                    }
+                }
+
+                @Override
+                public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+                }
+            };
+        }
+
+        @Bean
+        BeerOrderAllocationResponder beerOrderAllocationResponder(JmsTemplate jmsTemplate) {
+            return new BeerOrderAllocationResponder(jmsTemplate);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.beer.order.service.services.testcomponents;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the statements Hibernate prepares on the current thread, so scheduled jobs and listeners running meanwhile
+ * don't show up. Installed with {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}.
+ */
+public class ThreadStatementCounter implements StatementInspector {
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "org.example.beer.order.service.services.testcomponents.ThreadStatementCounter";
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static long count() {
+        return COUNT.get()[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+}
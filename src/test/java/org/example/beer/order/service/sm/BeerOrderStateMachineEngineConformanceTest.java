@@ -0,0 +1,291 @@
+package org.example.beer.order.service.sm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderEventEnum;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.statemachine.StateMachine;
+import org.springframework.statemachine.action.Action;
+import org.springframework.statemachine.config.StateMachineFactory;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs every (status, event) pair through both {@link BeerOrderStateMachineEngine} implementations and checks
+ * they accept the same events, leave the order in the same status and run the same actions.
+ */
+@SpringJUnitConfig
+class BeerOrderStateMachineEngineConformanceTest {
+
+    @Autowired
+    StateMachineFactory<BeerOrderStatusEnum, BeerOrderEventEnum> stateMachineFactory;
+
+    @Autowired
+    BeerOrderStateMachineConfig stateMachineConfig;
+
+    @Autowired
+    ConformanceConfig conformanceConfig;
+
+    BeerOrderStatusRegistry statusRegistry;
+    BeerOrderStateChangeInterceptor interceptor;
+    List<String> transitions = new ArrayList<>();
+    BeerOrderStateMachineEngine springEngine;
+    BeerOrderStateMachineEngine compiledEngine;
+
+    @BeforeEach
+    void setUp() {
+        BeerOrderRepository repository = mock(BeerOrderRepository.class);
+        given(repository.compareAndSetStatus(any(), any(), any())).willAnswer(invocation -> {
+            BeerOrder beerOrder = conformanceConfig.orders.get(invocation.<UUID>getArgument(0));
+            if (beerOrder.getOrderStatus() != invocation.getArgument(1)) {
+                return 0;
+            }
+            beerOrder.setOrderStatus(invocation.getArgument(2));
+            return 1;
+        });
+
+        statusRegistry = new BeerOrderStatusRegistry(new SimpleMeterRegistry(), Duration.ofSeconds(1));
+        interceptor = new BeerOrderStateChangeInterceptor(repository, mock(EntityManager.class), statusRegistry,
+                List.of((beerOrder, source, event, target, sourceEnteredAt) -> transitions.add(source + "-" + event + "->" + target)));
+
+        springEngine = new SpringStateMachineEngine(
+                new BeerOrderStateMachineCache(stateMachineFactory, interceptor, new SimpleMeterRegistry(), 100), interceptor);
+        compiledEngine = new CompiledStateMachineEngine(stateMachineConfig, interceptor);
+
+        conformanceConfig.orders.clear();
+        conformanceConfig.executed.clear();
+        conformanceConfig.failing = false;
+    }
+
+    static Stream<Arguments> statusAndEvent() {
+        return Arrays.stream(BeerOrderStatusEnum.values())
+                .flatMap(status -> Arrays.stream(BeerOrderEventEnum.values()).map(event -> Arguments.of(status, event)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("statusAndEvent")
+    void sameOutcomeForEveryStatusAndEvent(BeerOrderStatusEnum status, BeerOrderEventEnum event) {
+        Outcome spring = send(springEngine, status, event);
+        Outcome compiled = send(compiledEngine, status, event);
+
+        assertEquals(spring, compiled);
+    }
+
+    @ParameterizedTest
+    @MethodSource("statusAndEvent")
+    void sameOutcomeWhenActionFails(BeerOrderStatusEnum status, BeerOrderEventEnum event) {
+        conformanceConfig.failing = true;
+
+        Outcome spring = send(springEngine, status, event);
+        Outcome compiled = send(compiledEngine, status, event);
+
+        assertEquals(spring, compiled);
+    }
+
+    @Test
+    void transitionsAreDeclaredOnce() {
+        assertEquals(stateMachineConfig.transitions().size(), stateMachineConfig.transitions().stream()
+                .map(transition -> transition.getSource() + "/" + transition.getEvent())
+                .distinct()
+                .count());
+    }
+
+    @Test
+    void happyPathLifecycle() {
+        BeerOrderEventEnum[] lifecycle = {BeerOrderEventEnum.VALIDATE_ORDER, BeerOrderEventEnum.VALIDATION_PASSED,
+                BeerOrderEventEnum.ALLOCATE_ORDER, BeerOrderEventEnum.ALLOCATION_SUCCESS,
+                BeerOrderEventEnum.BEER_ORDER_PICKED_UP};
+
+        for (BeerOrderStateMachineEngine engine : List.of(springEngine, compiledEngine)) {
+            conformanceConfig.executed.clear();
+            BeerOrder beerOrder = newOrder(BeerOrderStatusEnum.NEW);
+
+            for (BeerOrderEventEnum event : lifecycle) {
+                assertTrue(engine.sendEvent(beerOrder, event), engine.getClass().getSimpleName() + " " + event);
+            }
+
+            assertEquals(BeerOrderStatusEnum.PICKED_UP, beerOrder.getOrderStatus());
+            assertEquals(List.of("validateOrderAction:NEW->VALIDATION_PENDING",
+                    "allocateOrderAction:VALIDATED->ALLOCATION_PENDING"), conformanceConfig.executed);
+            assertFalse(engine.sendEvent(beerOrder, BeerOrderEventEnum.CANCEL_ORDER));
+        }
+    }
+
+    @Test
+    void acceptedTransitionNotifiesStatusRegistry() {
+        for (BeerOrderStateMachineEngine engine : List.of(springEngine, compiledEngine)) {
+            BeerOrder beerOrder = newOrder(BeerOrderStatusEnum.VALIDATION_PENDING);
+            CompletableFuture<BeerOrderStatusEnum> waiter = statusRegistry.expect(beerOrder.getId(), BeerOrderStatusEnum.VALIDATED);
+
+            engine.sendEvent(beerOrder, BeerOrderEventEnum.VALIDATION_PASSED);
+
+            assertTrue(waiter.isDone(), engine.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void acceptedTransitionNotifiesTransitionListeners() {
+        for (BeerOrderStateMachineEngine engine : List.of(springEngine, compiledEngine)) {
+            transitions.clear();
+            BeerOrder beerOrder = newOrder(BeerOrderStatusEnum.ALLOCATION_PENDING);
+
+            engine.sendEvent(beerOrder, BeerOrderEventEnum.ALLOCATION_SUCCESS);
+            engine.sendEvent(beerOrder, BeerOrderEventEnum.ALLOCATION_FAILED);
+
+            assertEquals(List.of("ALLOCATION_PENDING-ALLOCATION_SUCCESS->ALLOCATED"), transitions,
+                    engine.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void lostRaceIsThrownAndLeavesCallersCopyUnchanged() {
+        for (BeerOrderStateMachineEngine engine : List.of(springEngine, compiledEngine)) {
+            BeerOrder persisted = newOrder(BeerOrderStatusEnum.VALIDATION_EXCEPTION);
+            BeerOrder stale = BeerOrder.builder().id(persisted.getId()).orderStatus(BeerOrderStatusEnum.VALIDATION_PENDING).build();
+
+            assertThrows(OptimisticLockingFailureException.class,
+                    () -> engine.sendEvent(stale, BeerOrderEventEnum.VALIDATION_PASSED), engine.getClass().getSimpleName());
+
+            assertEquals(BeerOrderStatusEnum.VALIDATION_PENDING, stale.getOrderStatus());
+            assertEquals(BeerOrderStatusEnum.VALIDATION_EXCEPTION, persisted.getOrderStatus());
+        }
+    }
+
+    @Test
+    void cacheKeepsMachinesInUseAndStopsEvictedOnes() {
+        BeerOrderStateMachineCache cache = new BeerOrderStateMachineCache(stateMachineFactory, interceptor,
+                new SimpleMeterRegistry(), 1);
+        BeerOrder inUse = newOrder(BeerOrderStatusEnum.NEW);
+        BeerOrder other = newOrder(BeerOrderStatusEnum.NEW);
+
+        cache.withStateMachine(inUse, held -> {
+            // over the max size while the first machine is held, so the released one goes instead
+            StateMachine<BeerOrderStatusEnum, BeerOrderEventEnum> evicted = cache.withStateMachine(other, sm -> sm);
+
+            assertEquals(1, cache.size());
+            assertTrue(evicted.isComplete() || evicted.getState() == null);
+            assertSame(held, cache.withStateMachine(inUse, sm -> sm));
+            return null;
+        });
+        assertEquals(1, cache.size());
+    }
+
+    private Outcome send(BeerOrderStateMachineEngine engine, BeerOrderStatusEnum status, BeerOrderEventEnum event) {
+        conformanceConfig.executed.clear();
+        BeerOrder beerOrder = newOrder(status);
+
+        boolean accepted = engine.sendEvent(beerOrder, event);
+
+        return new Outcome(accepted, beerOrder.getOrderStatus(), new ArrayList<>(conformanceConfig.executed));
+    }
+
+    private BeerOrder newOrder(BeerOrderStatusEnum status) {
+        BeerOrder beerOrder = BeerOrder.builder().id(UUID.randomUUID()).orderStatus(status).build();
+        conformanceConfig.orders.put(beerOrder.getId(), beerOrder);
+        return beerOrder;
+    }
+
+    private static class Outcome {
+        private final boolean accepted;
+        private final BeerOrderStatusEnum status;
+        private final List<String> actions;
+
+        private Outcome(boolean accepted, BeerOrderStatusEnum status, List<String> actions) {
+            this.accepted = accepted;
+            this.status = status;
+            this.actions = actions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Outcome)) {
+                return false;
+            }
+            Outcome other = (Outcome) o;
+            return accepted == other.accepted && status == other.status && actions.equals(other.actions);
+        }
+
+        @Override
+        public int hashCode() {
+            return status.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "accepted=" + accepted + ", status=" + status + ", actions=" + actions;
+        }
+    }
+
+    @Configuration
+    @Import(BeerOrderStateMachineConfig.class)
+    static class ConformanceConfig {
+        final Map<UUID, BeerOrder> orders = new ConcurrentHashMap<>();
+        final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        volatile boolean failing;
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> validateOrderAction() {
+            return recording("validateOrderAction");
+        }
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocateOrderAction() {
+            return recording("allocateOrderAction");
+        }
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> deallocateOrderAction() {
+            return recording("deallocateOrderAction");
+        }
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> validationFailureAction() {
+            return recording("validationFailureAction");
+        }
+
+        @Bean
+        Action<BeerOrderStatusEnum, BeerOrderEventEnum> allocationFailureAction() {
+            return recording("allocationFailureAction");
+        }
+
+        private Action<BeerOrderStatusEnum, BeerOrderEventEnum> recording(String name) {
+            return context -> {
+                executed.add(name + ":" + context.getSource().getId() + "->" + context.getTarget().getId());
+                if (failing) {
+                    throw new RuntimeException(name + " failed");
+                }
+            };
+        }
+    }
+}
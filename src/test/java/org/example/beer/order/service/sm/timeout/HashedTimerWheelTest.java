@@ -0,0 +1,87 @@
+package org.example.beer.order.service.sm.timeout;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimerWheelTest {
+
+    HashedTimerWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        // 8 buckets of 10 ms, so anything over 80 ms has to go round more than once
+        wheel = new HashedTimerWheel("test-wheel", Duration.ofMillis(10), 8, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void firesNoEarlierThanItsDelay() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong firedAfterMillis = new AtomicLong();
+        long start = System.nanoTime();
+
+        HashedTimerWheel.Timeout timeout = wheel.schedule(() -> {
+            firedAfterMillis.set((System.nanoTime() - start) / 1_000_000);
+            fired.countDown();
+        }, Duration.ofMillis(50));
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(firedAfterMillis.get() >= 50, "fired after " + firedAfterMillis.get() + " ms");
+        assertTrue(timeout.isExpired());
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void delaysLongerThanOneTurnWaitForTheirRound() throws Exception {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        wheel.schedule(fired::countDown, Duration.ofMillis(250));
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 250);
+    }
+
+    @Test
+    void cancelledTimeoutsNeverFire() throws Exception {
+        CountDownLatch cancelledFired = new CountDownLatch(1);
+        CountDownLatch laterFired = new CountDownLatch(1);
+
+        HashedTimerWheel.Timeout timeout = wheel.schedule(cancelledFired::countDown, Duration.ofMillis(30));
+        wheel.schedule(laterFired::countDown, Duration.ofMillis(60));
+
+        assertTrue(timeout.cancel());
+        assertEquals(1, wheel.pending());
+        assertTrue(laterFired.await(5, TimeUnit.SECONDS));
+        assertEquals(1, cancelledFired.getCount());
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    void manyTimeoutsAllFire() throws Exception {
+        int count = 10_000;
+        CountDownLatch fired = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(fired::countDown, Duration.ofMillis(i % 200));
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, wheel.pending());
+    }
+}
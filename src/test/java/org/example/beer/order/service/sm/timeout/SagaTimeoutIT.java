@@ -0,0 +1,140 @@
+package org.example.beer.order.service.sm.timeout;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.example.beer.order.service.services.BeerOrderManager;
+import org.example.beer.order.service.services.BeerOrderManagerImpl;
+import org.example.beer.order.service.services.beer.BeerServiceImpl;
+import org.example.beer.order.service.services.testcomponents.BeerOrderAllocationResponder;
+import org.example.brewery.model.BeerDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+@Import(BeerOrderAllocationResponder.Config.class)
+@TestPropertySource(properties = {
+        "sfg.beer-order.saga-timeout.validation=1s",
+        "sfg.beer-order.saga-timeout.allocation=1s",
+        "sfg.beer-order.saga-timeout.max-retries=1",
+        "sfg.beer-order.saga-timeout.backoff-multiplier=1.5"})
+class SagaTimeoutIT {
+
+    @Autowired
+    BeerOrderManager manager;
+
+    @Autowired
+    BeerOrderManagerImpl managerImpl;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    WireMockServer wireMockServer;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @AfterEach
+    void afterEach() {
+        wireMockServer.resetAll();
+    }
+
+    @Test
+    void unansweredAllocationIsRetriedThenFailed() throws Exception {
+        BeerOrder beerOrder = placeOrder("dont-allocate");
+
+        await().atMost(Duration.ofSeconds(15)).untilAsserted(() -> assertEquals(BeerOrderStatusEnum.ALLOCATION_EXCEPTION,
+                beerOrderRepository.findById(beerOrder.getId()).orElseThrow().getOrderStatus()));
+
+        assertEquals(1, timeouts(BeerOrderStatusEnum.ALLOCATION_PENDING, "retried"));
+        assertEquals(1, timeouts(BeerOrderStatusEnum.ALLOCATION_PENDING, "expired"));
+    }
+
+    @Test
+    void answeredRequestsDisarmTheirTimeout() throws Exception {
+        BeerOrder beerOrder = placeOrder(null);
+
+        await().untilAsserted(() -> assertEquals(BeerOrderStatusEnum.ALLOCATED,
+                beerOrderRepository.findById(beerOrder.getId()).orElseThrow().getOrderStatus()));
+
+        // long enough for a timeout armed for the order to have fired
+        Thread.sleep(1500);
+        assertEquals(BeerOrderStatusEnum.ALLOCATED,
+                beerOrderRepository.findById(beerOrder.getId()).orElseThrow().getOrderStatus());
+    }
+
+    @Test
+    void rolledBackTransitionKeepsTheTimeoutArmed() throws Exception {
+        BeerOrder beerOrder = placeOrder("dont-allocate");
+
+        await().untilAsserted(() -> assertEquals(BeerOrderStatusEnum.ALLOCATION_PENDING,
+                beerOrderRepository.findById(beerOrder.getId()).orElseThrow().getOrderStatus()));
+
+        // leaves ALLOCATION_PENDING, then rolls back, as a stripe batch failing on another order would
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            managerImpl.cancelOrder(beerOrder.getId());
+            assertEquals(BeerOrderStatusEnum.CANCELLED,
+                    beerOrderRepository.findById(beerOrder.getId()).orElseThrow().getOrderStatus());
+            status.setRollbackOnly();
+        });
+
+        await().atMost(Duration.ofSeconds(15)).untilAsserted(() -> assertEquals(BeerOrderStatusEnum.ALLOCATION_EXCEPTION,
+                beerOrderRepository.findById(beerOrder.getId()).orElseThrow().getOrderStatus()));
+    }
+
+    private BeerOrder placeOrder(String customerRef) throws Exception {
+        UUID beerId = UUID.randomUUID();
+        wireMockServer.stubFor(get(BeerServiceImpl.BEER_UPC_PATH_V1 + "12345")
+                .willReturn(okJson(objectMapper.writeValueAsString(BeerDto.builder().id(beerId).upc("12345").build()))));
+
+        Customer customer = customerRepository.save(Customer.builder().customerName("Timeout Customer").build());
+        BeerOrder beerOrder = BeerOrder.builder().customer(customer).customerRef(customerRef).build();
+        beerOrder.setBeerOrderLines(Set.of(BeerOrderLine.builder()
+                .beerId(beerId)
+                .upc("12345")
+                .orderQuantity(1)
+                .beerOrder(beerOrder)
+                .build()));
+
+        return manager.newBeerOrder(beerOrder);
+    }
+
+    private double timeouts(BeerOrderStatusEnum status, String outcome) {
+        return meterRegistry.get("beer.order.saga.timeouts").tag("status", status.name()).tag("outcome", outcome)
+                .counter().count();
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.beer.order.service.web.controllers;
+
+import org.example.beer.order.service.domain.BeerOrder;
+import org.example.beer.order.service.domain.BeerOrderLine;
+import org.example.beer.order.service.domain.BeerOrderStatusEnum;
+import org.example.beer.order.service.domain.Customer;
+import org.example.beer.order.service.initializers.WireMockInitializer;
+import org.example.beer.order.service.repositories.BeerOrderRepository;
+import org.example.beer.order.service.repositories.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ContextConfiguration(initializers = {WireMockInitializer.class})
+class ConditionalGetIT {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void orderIsNotModifiedUntilItsVersionChanges() throws Exception {
+        Customer customer = customerRepository.save(Customer.builder().customerName("ETag Customer").build());
+        BeerOrder beerOrder = allocatedOrder(customer);
+        String url = ordersUrl(customer) + beerOrder.getId();
+
+        HttpResponse<String> first = get(url, null);
+        assertEquals(200, first.statusCode());
+        String eTag = first.headers().firstValue("ETag").orElseThrow();
+        assertEquals("\"" + beerOrder.getVersion() + "\"", eTag);
+
+        HttpResponse<String> unchanged = get(url, eTag);
+        assertEquals(304, unchanged.statusCode());
+        assertEquals("", unchanged.body());
+        assertEquals(eTag, unchanged.headers().firstValue("ETag").orElseThrow());
+
+        beerOrder.setCustomerRef("changed");
+        beerOrderRepository.save(beerOrder);
+
+        HttpResponse<String> changed = get(url, eTag);
+        assertEquals(200, changed.statusCode());
+        assertTrue(changed.body().contains("changed"));
+        assertNotEquals(eTag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    void orderPageIsNotModifiedUntilAnOrderOnItChanges() throws Exception {
+        Customer customer = customerRepository.save(Customer.builder().customerName("ETag Customer").build());
+        BeerOrder beerOrder = allocatedOrder(customer);
+        allocatedOrder(customer);
+        String url = ordersUrl(customer) + "?pageSize=10";
+
+        String eTag = get(url, null).headers().firstValue("ETag").orElseThrow();
+        assertEquals(304, get(url, eTag).statusCode());
+
+        beerOrder.setCustomerRef("changed");
+        beerOrderRepository.save(beerOrder);
+        HttpResponse<String> changed = get(url, eTag);
+        assertEquals(200, changed.statusCode());
+        String changedETag = changed.headers().firstValue("ETag").orElseThrow();
+        assertNotEquals(eTag, changedETag);
+
+        // a new order changes the total even when it lands on another page
+        allocatedOrder(customer);
+        assertEquals(200, get(url, changedETag).statusCode());
+    }
+
+    @Test
+    void unknownOrderIsNotTagged() throws Exception {
+        Customer customer = customerRepository.save(Customer.builder().customerName("ETag Customer").build());
+
+        HttpResponse<String> response = get(ordersUrl(customer) + UUID.randomUUID(), "\"0\"");
+
+        assertEquals(500, response.statusCode());
+        assertTrue(response.headers().firstValue("ETag").isEmpty());
+    }
+
+    @Test
+    void customerPageIsNotModifiedUntilACustomerChanges() throws Exception {
+        String url = "http://localhost:" + port + "/api/v1/customers?pageSize=1000";
+
+        String eTag = get(url, null).headers().firstValue("ETag").orElseThrow();
+        assertEquals(304, get(url, eTag).statusCode());
+
+        customerRepository.save(Customer.builder().customerName("ETag Customer").build());
+        assertEquals(200, get(url, eTag).statusCode());
+    }
+
+    HttpResponse<String> get(String url, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    String ordersUrl(Customer customer) {
+        return "http://localhost:" + port + "/api/v1/customers/" + customer.getId() + "/orders/";
+    }
+
+    BeerOrder allocatedOrder(Customer customer) {
+        BeerOrder beerOrder = BeerOrder.builder()
+                .customer(customer)
+                .customerRef("etag-test")
+                .orderStatus(BeerOrderStatusEnum.ALLOCATED)
+                .build();
+        beerOrder.setBeerOrderLines(Set.of(BeerOrderLine.builder()
+                .beerId(UUID.randomUUID())
+                .upc("12345")
+                .orderQuantity(1)
+                .beerOrder(beerOrder)
+                .build()));
+        return beerOrderRepository.save(beerOrder);
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.beer.order.service.web.mappers;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DateMapperTest {
+
+    DateMapper dateMapper = new DateMapper();
+
+    @Test
+    void timestampKeepsItsLocalFieldsInUtc() {
+        Timestamp ts = Timestamp.valueOf(LocalDateTime.of(2021, 12, 10, 18, 30, 15, 123_456_789));
+
+        assertEquals(OffsetDateTime.of(2021, 12, 10, 18, 30, 15, 123_456_789, ZoneOffset.UTC),
+                dateMapper.asOffsetDateTime(ts));
+    }
+
+    @Test
+    void offsetDateTimeIsConvertedToUtcBeforeBecomingATimestamp() {
+        OffsetDateTime lisbonSummer = OffsetDateTime.of(2021, 7, 1, 10, 0, 0, 500, ZoneOffset.ofHours(1));
+
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2021, 7, 1, 9, 0, 0, 500)), dateMapper.asTimestamp(lisbonSummer));
+    }
+
+    @Test
+    void roundTripIsLossless() {
+        Timestamp ts = Timestamp.valueOf(LocalDateTime.of(2022, 2, 28, 23, 59, 59, 999_999_999));
+
+        assertEquals(ts, dateMapper.asTimestamp(dateMapper.asOffsetDateTime(ts)));
+    }
+
+    @Test
+    void nullsPassThrough() {
+        assertNull(dateMapper.asOffsetDateTime(null));
+        assertNull(dateMapper.asTimestamp(null));
+    }
+}